@@ -0,0 +1,266 @@
+package Compilador;
+
+import GeradorCodigo.CodigoBinario;
+import GeradorCodigo.GeradorDeCodigo;
+import SintaticoAnalyzer.Diagnostico;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cache em disco de resultados de compilação, endereçado pelo conteúdo: a chave é o SHA-256
+ * da versão do compilador, do limite de erros e dos bytes do programa. Guarda as quádruplas
+ * (no formato de CodigoBinario) ou os diagnósticos, então um acerto não passa pelo léxico, pelo parser nem pela geração.
+ *
+ * Cada entrada é um arquivo (diretorio/ab/abcdef...) escrito num temporário e movido
+ * atomicamente para o lugar, então vários processos podem usar o mesmo diretório: um leitor
+ * vê a entrada inteira ou não a vê. Um acerto atualiza a data de modificação da entrada, e
+ * quando o total passa do tamanho máximo as entradas usadas há mais tempo são apagadas.
+ */
+public class CacheDeCompilacao {
+    private static final int MAGICO = 0x43514435;   // "CQD5"
+    private static final String SUFIXO = ".res";
+
+    private final Path diretorio;
+    private final long tamanhoMaximo;
+    private final AtomicLong tamanhoAproximado = new AtomicLong();
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong faltas = new AtomicLong();
+
+    public CacheDeCompilacao(Path diretorio, long tamanhoMaximo) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoMaximo = tamanhoMaximo;
+        Files.createDirectories(diretorio);
+        tamanhoAproximado.set(tamanhoTotal(entradas()));
+    }
+
+    public static Path diretorioPadrao() {
+        return Paths.get(System.getProperty("user.home"), ".cache", "compilador");
+    }
+
+    public long getAcertos() {
+        return acertos.get();
+    }
+
+    public long getFaltas() {
+        return faltas.get();
+    }
+
+    /**
+     * Chave do programa entre as posições 0 e limit() do buffer (a posição do buffer não muda).
+     */
+    static String chave(ByteBuffer programa, int maxErros) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        sha.update(Compilador.VERSAO.getBytes(StandardCharsets.UTF_8));
+        sha.update(ByteBuffer.allocate(4).putInt(0, maxErros));
+        sha.update(programa.duplicate().position(0));
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : sha.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private Path caminho(String chave) {
+        return diretorio.resolve(chave.substring(0, 2)).resolve(chave + SUFIXO);
+    }
+
+    /**
+     * O resultado guardado para a chave, ou null se não há (ou se a entrada está corrompida).
+     */
+    ResultadoDaCompilacao buscar(String chave, String arquivo, long inicio) {
+        Path entrada = caminho(chave);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(entrada);
+        } catch (IOException e) {
+            faltas.incrementAndGet();
+            return null;
+        }
+        try {
+            ResultadoDaCompilacao resultado = ler(bytes, arquivo, inicio);
+            acertos.incrementAndGet();
+            try {
+                Files.setLastModifiedTime(entrada, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                // Outro processo pode ter acabado de apagá-la; o resultado lido continua valendo.
+            }
+            return resultado;
+        } catch (IOException e) {
+            faltas.incrementAndGet();
+            apagar(entrada);
+            return null;
+        }
+    }
+
+    /**
+     * Guarda o resultado (erros de leitura não são guardados). Uma falha ao escrever só
+     * faz a entrada não existir.
+     */
+    void guardar(String chave, ResultadoDaCompilacao resultado) {
+        if (resultado.erroDeLeitura != null) {
+            return;
+        }
+        Path entrada = caminho(chave);
+        try {
+            byte[] bytes = escrever(resultado);
+            Files.createDirectories(entrada.getParent());
+            Path temporario = Files.createTempFile(entrada.getParent(), chave.substring(0, 8), ".tmp");
+            try {
+                Files.write(temporario, bytes);
+                try {
+                    Files.move(temporario, entrada, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporario, entrada, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+            if (tamanhoAproximado.addAndGet(bytes.length) > tamanhoMaximo) {
+                despejar();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // O cache é só um atalho: sem a entrada, a próxima compilação é feita de novo.
+        }
+    }
+
+    /**
+     * Apaga as entradas usadas há mais tempo até o total ficar em 90% do tamanho máximo.
+     */
+    private synchronized void despejar() throws IOException {
+        List<Path> entradas = entradas();
+        long total = tamanhoTotal(entradas);
+        if (total > tamanhoMaximo) {
+            List<Entrada> porUso = new ArrayList<>(entradas.size());
+            for (Path entrada : entradas) {
+                try {
+                    porUso.add(new Entrada(entrada, Files.getLastModifiedTime(entrada).toMillis(), Files.size(entrada)));
+                } catch (IOException e) {
+                    // Já foi apagada por outro processo.
+                }
+            }
+            porUso.sort(Comparator.comparingLong(e -> e.usadaEm));
+            long alvo = tamanhoMaximo / 10 * 9;
+            for (int i = 0; i < porUso.size() && total > alvo; i++) {
+                apagar(porUso.get(i).caminho);
+                total -= porUso.get(i).tamanho;
+            }
+        }
+        tamanhoAproximado.set(total);
+    }
+
+    private static final class Entrada {
+        final Path caminho;
+        final long usadaEm;
+        final long tamanho;
+
+        Entrada(Path caminho, long usadaEm, long tamanho) {
+            this.caminho = caminho;
+            this.usadaEm = usadaEm;
+            this.tamanho = tamanho;
+        }
+    }
+
+    private List<Path> entradas() throws IOException {
+        try (Stream<Path> caminhos = Files.walk(diretorio, 2)) {
+            List<Path> entradas = new ArrayList<>();
+            caminhos.filter(c -> c.getFileName().toString().endsWith(SUFIXO)).forEach(entradas::add);
+            return entradas;
+        }
+    }
+
+    private static long tamanhoTotal(List<Path> entradas) {
+        long total = 0;
+        for (Path entrada : entradas) {
+            try {
+                total += Files.size(entrada);
+            } catch (IOException e) {
+                // Já foi apagada por outro processo.
+            }
+        }
+        return total;
+    }
+
+    private static void apagar(Path entrada) {
+        try {
+            Files.deleteIfExists(entrada);
+        } catch (IOException e) {
+            // Fica para o próximo despejo.
+        }
+    }
+
+    private static byte[] escrever(ResultadoDaCompilacao resultado) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeInt(MAGICO);
+        saida.writeBoolean(resultado.sucesso());
+        if (resultado.sucesso()) {
+            ByteBuffer codigo = CodigoBinario.codificar(resultado.gerador);
+            saida.write(codigo.array(), codigo.arrayOffset(), codigo.remaining());
+        } else {
+            saida.writeInt(resultado.diagnosticos.size());
+            for (Diagnostico d : resultado.diagnosticos) {
+                saida.writeByte(d.tipo.ordinal());
+                saida.writeInt(d.linha);
+                saida.writeUTF(d.mensagem);
+            }
+            saida.writeBoolean(resultado.limiteAtingido);
+        }
+        saida.flush();
+        return bytes.toByteArray();
+    }
+
+    private static ResultadoDaCompilacao ler(byte[] bytes, String arquivo, long inicio) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (entrada.readInt() != MAGICO) {
+            throw new IOException("Entrada do cache em formato desconhecido");
+        }
+        if (entrada.readBoolean()) {
+            // O resto da entrada é o código no formato de CodigoBinario.
+            int inicioDoCodigo = bytes.length - entrada.available();
+            GeradorDeCodigo gerador = CodigoBinario.de(ByteBuffer.wrap(bytes, inicioDoCodigo, bytes.length - inicioDoCodigo))
+                    .paraGerador();
+            return new ResultadoDaCompilacao(arquivo, gerador, List.of(), false, null, System.nanoTime() - inicio);
+        }
+        int quantidade = entrada.readInt();
+        // Cada erro ocupa ao menos 7 bytes (tipo, linha e o tamanho da mensagem); depois vem um boolean.
+        if (quantidade < 0 || quantidade > (entrada.available() - 1) / 7) {
+            throw new IOException("Entrada do cache corrompida");
+        }
+        List<Diagnostico> diagnosticos = new ArrayList<>(quantidade);
+        Diagnostico.Tipo[] tipos = Diagnostico.Tipo.values();
+        for (int i = 0; i < quantidade; i++) {
+            int tipo = entrada.readByte();
+            if (tipo < 0 || tipo >= tipos.length) {
+                throw new IOException("Entrada do cache corrompida");
+            }
+            diagnosticos.add(new Diagnostico(tipos[tipo], entrada.readInt(), entrada.readUTF()));
+        }
+        boolean limiteAtingido = entrada.readBoolean();
+        return new ResultadoDaCompilacao(arquivo, null, diagnosticos, limiteAtingido, null, System.nanoTime() - inicio);
+    }
+}
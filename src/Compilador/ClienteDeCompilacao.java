@@ -0,0 +1,87 @@
+package Compilador;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Cliente do ServidorDeCompilacao. Quem usa decide o que fazer quando não há servidor
+ * (conectar() devolve null): normalmente compilar no próprio processo.
+ */
+public class ClienteDeCompilacao implements AutoCloseable {
+    private final SocketChannel conexao;
+
+    /**
+     * Resposta de um pedido: sucesso e o texto de ResultadoDaCompilacao.comoTexto().
+     */
+    public static final class Resposta {
+        public final boolean sucesso;
+        public final String texto;
+
+        Resposta(boolean sucesso, String texto) {
+            this.sucesso = sucesso;
+            this.texto = texto;
+        }
+    }
+
+    private ClienteDeCompilacao(SocketChannel conexao) {
+        this.conexao = conexao;
+    }
+
+    /**
+     * Conecta ao servidor do socket dado, ou devolve null se nenhum servidor responde nele.
+     */
+    public static ClienteDeCompilacao conectar(Path caminhoSocket) {
+        try {
+            SocketChannel conexao = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                conexao.connect(UnixDomainSocketAddress.of(caminhoSocket));
+                return new ClienteDeCompilacao(conexao);
+            } catch (IOException e) {
+                conexao.close();
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static boolean servidorNoAr(Path caminhoSocket) {
+        try (ClienteDeCompilacao cliente = conectar(caminhoSocket)) {
+            return cliente != null;
+        }
+    }
+
+    public Resposta compilar(byte[] programa, int maxErros) throws IOException {
+        ByteBuffer[] partes = { ByteBuffer.allocate(8).putInt(maxErros).putInt(programa.length).flip(), ByteBuffer.wrap(programa) };
+        while (partes[1].hasRemaining() || partes[0].hasRemaining()) {
+            conexao.write(partes);
+        }
+        ByteBuffer cabecalho = ByteBuffer.allocate(5);
+        if (!ServidorDeCompilacao.lerTudo(conexao, cabecalho)) {
+            throw new IOException("O servidor de compilação encerrou a conexão");
+        }
+        int tamanho = cabecalho.getInt(1);
+        if (tamanho < 0 || tamanho > ServidorDeCompilacao.TAMANHO_MAXIMO) {
+            throw new IOException("Resposta do servidor de compilação com tamanho inválido: " + tamanho);
+        }
+        byte[] texto = new byte[tamanho];
+        if (!ServidorDeCompilacao.lerTudo(conexao, ByteBuffer.wrap(texto))) {
+            throw new IOException("O servidor de compilação encerrou a conexão");
+        }
+        return new Resposta(cabecalho.get(0) == ServidorDeCompilacao.SUCESSO, new String(texto, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() {
+        try {
+            conexao.close();
+        } catch (IOException e) {
+            // Nada a fazer.
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package Compilador;
+
+import GeradorCodigo.GeradorDeCodigo;
+import GeradorCodigo.GeradorDeQuadruplas;
+import LexicalAnalyzer.FonteDeTokens;
+import LexicalAnalyzer.LexicalAnalyzer;
+import LexicalAnalyzer.TabelaDeNomes;
+import LexicalAnalyzer.Token;
+import LexicalAnalyzer.TokenType;
+import SemanticsAnalyzer.AnalisadorSemantico;
+import SemanticsAnalyzer.Simbolo;
+import SemanticsAnalyzer.TabelaDeSimbolos;
+import SintaticoAnalyzer.ArvoreSintatica;
+import SintaticoAnalyzer.Diagnostico;
+import SintaticoAnalyzer.Diagnosticos;
+import SintaticoAnalyzer.Parser;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compilação incremental de um arquivo que muda aos poucos (usada pelo modo de observação).
+ *
+ * O programa é dividido em trechos que começam no início de uma linha: o cabeçalho (programa e
+ * variáveis globais), cada sub-rotina de primeiro nível e o corpo. Cada trecho tem a sua árvore
+ * e o seu código; os léxicos de todos numeram os nomes numa mesma TabelaDeNomes. Quando uma
+ * mudança no texto fica dentro de um só trecho, só ele é lido, analisado e gerado de novo.
+ * Os trechos seguintes só são analisados de novo se os símbolos globais que o trecho declara
+ * mudaram (ex.: a assinatura de uma sub-rotina), e só geram código de novo se isso mudou as
+ * anotações deles ou os números dos seus temporários e rótulos.
+ *
+ * Mudanças que atravessam trechos, ou que criam ou apagam um trecho, refazem a divisão.
+ * Com erros, o resultado vem de uma compilação do arquivo inteiro, para que as mensagens
+ * sejam exatamente as da compilação normal.
+ */
+public class CompilacaoIncremental {
+    private static final class Trecho {
+        int inicio;                 // posição no texto do início da linha em que o trecho começa
+        int primeiraLinha;
+        ArvoreSintatica arvore;
+        boolean comErros;
+        List<Simbolo> declarados;   // símbolos que o trecho põe no escopo global
+        GeradorDeCodigo codigo;
+        int baseTemp;
+        int baseRotulo;
+    }
+
+    private final Compilador compilador;
+    private String texto = null;
+    private TabelaDeNomes nomes;
+    private List<Trecho> trechos = null;   // null se o texto não pôde ser dividido
+
+    private int relidos;
+    private int reanalisados;
+    private int regerados;
+
+    /**
+     * @param compilador usado para compilar o arquivo inteiro quando há erros.
+     */
+    public CompilacaoIncremental(Compilador compilador) {
+        this.compilador = compilador;
+    }
+
+    /** Trechos lidos de novo na última atualização. */
+    public int getRelidos() { return relidos; }
+    /** Trechos analisados de novo na última atualização. */
+    public int getReanalisados() { return reanalisados; }
+    /** Trechos cujo código foi gerado de novo na última atualização. */
+    public int getRegerados() { return regerados; }
+    /** Quantidade de trechos (0 se o programa não pôde ser dividido). */
+    public int getTrechos() { return trechos == null ? 0 : trechos.size(); }
+
+    /**
+     * Compila o novo conteúdo do arquivo, aproveitando o que não mudou desde a chamada anterior.
+     */
+    public ResultadoDaCompilacao atualizar(String nome, byte[] conteudo) {
+        long inicio = System.nanoTime();
+        String novo = new String(conteudo, StandardCharsets.UTF_8);
+        relidos = 0;
+        reanalisados = 0;
+        regerados = 0;
+        if (trechos == null || texto == null || !atualizarUmTrecho(novo)) {
+            dividir(novo);
+        }
+        texto = novo;
+
+        if (trechos == null || algumComErros()) {
+            ResultadoDaCompilacao completo = compilador.compilar(nome, ByteBuffer.wrap(conteudo));
+            if (completo.sucesso() && trechos != null) {
+                // Um trecho com erros pode ter deixado de ser um trecho (ex.: foi apagado).
+                dividir(novo);
+            }
+            return completo;
+        }
+        GeradorDeCodigo gerador = new GeradorDeCodigo();
+        for (Trecho trecho : trechos) {
+            gerador.anexar(trecho.codigo);
+        }
+        return new ResultadoDaCompilacao(nome, gerador, List.of(), false, null, System.nanoTime() - inicio);
+    }
+
+    // Devolve false se a mudança não pôde ser tratada num só trecho.
+    private boolean atualizarUmTrecho(String novo) {
+        int prefixo = 0;
+        int limite = Math.min(texto.length(), novo.length());
+        while (prefixo < limite && texto.charAt(prefixo) == novo.charAt(prefixo)) prefixo++;
+        int sufixo = 0;
+        while (sufixo < limite - prefixo
+                && texto.charAt(texto.length() - 1 - sufixo) == novo.charAt(novo.length() - 1 - sufixo)) sufixo++;
+        int fimAntigo = texto.length() - sufixo;
+        int fimNovo = novo.length() - sufixo;
+        if (prefixo == fimAntigo && prefixo == fimNovo) {
+            return true; // nada mudou
+        }
+
+        int k = trechos.size() - 1;
+        while (k > 0 && trechos.get(k).inicio > prefixo) k--;
+        Trecho trecho = trechos.get(k);
+        boolean ultimo = k == trechos.size() - 1;
+        int delta = fimNovo - fimAntigo;
+        int fimDoTrecho = ultimo ? novo.length() : trechos.get(k + 1).inicio + delta;
+        if (!ultimo && (fimAntigo > trechos.get(k + 1).inicio || novo.charAt(fimDoTrecho - 1) != '\n')) {
+            return false; // a mudança alcança o trecho seguinte ou junta a linha dele a este
+        }
+        for (int j = 0; j < trechos.size(); j++) {
+            if (j != k && trechos.get(j).comErros) return false;
+        }
+
+        Diagnosticos diagnosticos = new Diagnosticos(Integer.MAX_VALUE);
+        LexicalAnalyzer lexer = new LexicalAnalyzer(CharBuffer.wrap(novo, trecho.inicio, fimDoTrecho),
+                trecho.primeiraLinha, nomes);
+        lexer.setOuvinteDeErros(linha -> diagnosticos.adicionar(Diagnostico.lexico(linha)));
+        Parser parser = new Parser(lexer, diagnosticos);
+        if (k == 0) {
+            parser.parseCabecalho();
+        } else if (ultimo) {
+            parser.parseCorpo();
+        } else {
+            parser.parseSubRotina();
+        }
+        if (parser.getTokenAtual().type != TokenType.FIM_ARQUIVO) {
+            return false; // o trecho passou a ter mais de uma parte
+        }
+        relidos = 1;
+        trecho.arvore = parser.getArvore();
+        trecho.comErros = diagnosticos.temErros();
+
+        int linhasAntes = contarLinhas(texto, prefixo, fimAntigo);
+        int linhasDepois = contarLinhas(novo, prefixo, fimNovo);
+        for (int j = k + 1; j < trechos.size(); j++) {
+            trechos.get(j).inicio += delta;
+            trechos.get(j).primeiraLinha += linhasDepois - linhasAntes;
+        }
+        if (!trecho.comErros) {
+            analisarEGerar(k);
+        }
+        return true;
+    }
+
+    /**
+     * Lê o texto inteiro com um só léxico e um Parser por trecho. Se uma sub-rotina ou o corpo
+     * não começa no início de uma linha, o texto não é dividido.
+     */
+    private void dividir(String novo) {
+        nomes = new TabelaDeNomes();
+        trechos = new ArrayList<>();
+        relidos = 0;
+        Diagnosticos diagnosticos = new Diagnosticos(Integer.MAX_VALUE);
+        LexicalAnalyzer lexer = new LexicalAnalyzer(novo, 1, nomes);
+        lexer.setOuvinteDeErros(linha -> diagnosticos.adicionar(Diagnostico.lexico(linha)));
+        List<Integer> inicioDasLinhas = inicioDasLinhas(novo);
+
+        Parser parser = new Parser(lexer, diagnosticos);
+        parser.parseCabecalho();
+        adicionar(0, 1, parser);
+        Token proximo = parser.getTokenAtual();
+        boolean leuCorpo = false;
+        while (!leuCorpo && (proximo.type == TokenType.PROCEDIMENTO || proximo.type == TokenType.FUNCAO
+                || proximo.type == TokenType.INICIO)) {
+            int inicio = inicioDasLinhas.get(proximo.line - 1);
+            if (!comecaNaLinha(novo, inicio, proximo)) {
+                trechos = null;
+                return;
+            }
+            parser = new Parser(new ComTokenJaLido(proximo, lexer), diagnosticos);
+            leuCorpo = proximo.type == TokenType.INICIO;
+            if (leuCorpo) {
+                parser.parseCorpo();
+            } else {
+                parser.parseSubRotina();
+            }
+            adicionar(inicio, proximo.line, parser);
+            proximo = parser.getTokenAtual();
+        }
+        if (!leuCorpo || proximo.type != TokenType.FIM_ARQUIVO) {
+            trechos = null; // um erro sintático tirou o programa da forma cabeçalho, sub-rotinas, corpo
+            return;
+        }
+
+        if (diagnosticos.temErros()) {
+            // Lido junto com os outros, não dá para saber a que trecho um erro pertence (uma
+            // sub-rotina sem 'fim' acusa o erro na linha da seguinte), então todos ficam com erros
+            // e a próxima mudança refaz a divisão.
+            for (Trecho trecho : trechos) {
+                trecho.comErros = true;
+            }
+            return;
+        }
+        analisarEGerar(0);
+    }
+
+    private void adicionar(int inicio, int primeiraLinha, Parser parser) {
+        Trecho trecho = new Trecho();
+        trecho.inicio = inicio;
+        trecho.primeiraLinha = primeiraLinha;
+        trecho.arvore = parser.getArvore();
+        trechos.add(trecho);
+        relidos++;
+    }
+
+    /**
+     * Devolve primeiro o token que o Parser do trecho anterior já tirou do léxico.
+     */
+    private static final class ComTokenJaLido implements FonteDeTokens {
+        private final FonteDeTokens resto;
+        private Token lido;
+
+        ComTokenJaLido(Token lido, FonteDeTokens resto) {
+            this.lido = lido;
+            this.resto = resto;
+        }
+
+        @Override
+        public Token obterProximoToken() {
+            if (lido == null) {
+                return resto.obterProximoToken();
+            }
+            Token token = lido;
+            lido = null;
+            return token;
+        }
+    }
+
+    /**
+     * Analisa o trecho k e gera o seu código. Os trechos seguintes são analisados de novo se
+     * algum símbolo declarado antes deles mudou, e gerados de novo se foram analisados ou se
+     * os números dos seus temporários e rótulos mudaram; para no primeiro que fica igual.
+     */
+    private void analisarEGerar(int k) {
+        TabelaDeSimbolos tabela = new TabelaDeSimbolos();
+        for (int j = 0; j < k; j++) {
+            for (Simbolo simbolo : trechos.get(j).declarados) {
+                tabela.inserir(simbolo);
+            }
+        }
+        boolean tabelaMudou = false;
+        for (int j = k; j < trechos.size(); j++) {
+            Trecho trecho = trechos.get(j);
+            boolean analisado = false;
+            if (tabelaMudou || j == k || trecho.declarados == null) {
+                Diagnosticos diagnosticos = new Diagnosticos(Integer.MAX_VALUE);
+                new AnalisadorSemantico(trecho.arvore, diagnosticos, tabela).analisarTrecho();
+                reanalisados++;
+                trecho.comErros = diagnosticos.temErros();
+                if (trecho.comErros) {
+                    return; // declarados e código continuam os da última análise sem erros
+                }
+                List<Simbolo> declarados = declarados(trecho.arvore, tabela, j);
+                tabelaMudou |= trecho.declarados == null || !mesmosSimbolos(trecho.declarados, declarados);
+                trecho.declarados = declarados;
+                analisado = true;
+            } else {
+                for (Simbolo simbolo : trecho.declarados) {
+                    tabela.inserir(simbolo);
+                }
+            }
+
+            int baseTemp = j == 0 ? 0 : trechos.get(j - 1).baseTemp + temps(trechos.get(j - 1));
+            int baseRotulo = j == 0 ? 0 : trechos.get(j - 1).baseRotulo + rotulos(trechos.get(j - 1));
+            if (analisado || trecho.codigo == null || baseTemp != trecho.baseTemp || baseRotulo != trecho.baseRotulo) {
+                trecho.baseTemp = baseTemp;
+                trecho.baseRotulo = baseRotulo;
+                trecho.codigo = new GeradorDeCodigo(baseTemp, baseRotulo);
+                new GeradorDeQuadruplas(trecho.arvore, trecho.codigo).gerarTrecho();
+                regerados++;
+            } else if (j > k) {
+                return; // daqui em diante nada muda
+            }
+        }
+    }
+
+    private static int temps(Trecho trecho) {
+        return trecho.codigo.getContadorTemp() - trecho.baseTemp;
+    }
+
+    private static int rotulos(Trecho trecho) {
+        return trecho.codigo.getContadorRotulo() - trecho.baseRotulo;
+    }
+
+    // O cabeçalho declara o programa e as globais; uma sub-rotina, a si mesma; o corpo, nada.
+    private static List<Simbolo> declarados(ArvoreSintatica arvore, TabelaDeSimbolos tabela, int k) {
+        List<Simbolo> declarados = new ArrayList<>();
+        int raiz = arvore.raiz();
+        if (k == 0) {
+            declarados.addAll(tabela.globais());
+            declarados.sort(Comparator.comparingInt(s -> s.idNome));
+        } else if (raiz >= 0 && arvore.b(raiz) >= 0) {
+            declarados.add(tabela.buscar(arvore.a(arvore.b(raiz))));
+        }
+        return declarados;
+    }
+
+    private static boolean mesmosSimbolos(List<Simbolo> a, List<Simbolo> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!mesmaAssinatura(a.get(i), b.get(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean mesmaAssinatura(Simbolo a, Simbolo b) {
+        if (a.idNome != b.idNome || a.categoria != b.categoria || a.tipo != b.tipo || a.endereco != b.endereco
+                || a.parametros.size() != b.parametros.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.parametros.size(); i++) {
+            if (a.parametros.get(i).tipo != b.parametros.get(i).tipo) return false;
+        }
+        return true;
+    }
+
+    private boolean algumComErros() {
+        for (Trecho trecho : trechos) {
+            if (trecho.comErros) return true;
+        }
+        return false;
+    }
+
+    // A linha do token só tem espaços antes dele.
+    private static boolean comecaNaLinha(String texto, int inicioDaLinha, Token token) {
+        int i = inicioDaLinha;
+        while (i < texto.length() && (texto.charAt(i) == ' ' || texto.charAt(i) == '\t' || texto.charAt(i) == '\r')) i++;
+        return texto.startsWith(token.lexeme, i);
+    }
+
+    private static List<Integer> inicioDasLinhas(String texto) {
+        List<Integer> inicios = new ArrayList<>();
+        inicios.add(0);
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '\n') inicios.add(i + 1);
+        }
+        return inicios;
+    }
+
+    private static int contarLinhas(String texto, int inicio, int fim) {
+        int linhas = 0;
+        for (int i = inicio; i < fim; i++) {
+            if (texto.charAt(i) == '\n') linhas++;
+        }
+        return linhas;
+    }
+}
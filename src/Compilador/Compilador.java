@@ -0,0 +1,148 @@
+package Compilador;
+
+import GeradorCodigo.DestinoDeQuadruplas;
+import LexicalAnalyzer.FonteDeTokens;
+import LexicalAnalyzer.LexerEmPipeline;
+import LexicalAnalyzer.LexicalAnalyzer;
+import SintaticoAnalyzer.Diagnostico;
+import SintaticoAnalyzer.Diagnosticos;
+import SintaticoAnalyzer.Parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Compila um arquivo do começo ao fim: léxico, sintático, semântico e geração de código.
+ *
+ * Cada chamada de compilar() cria o seu próprio léxico, parser, tabela de símbolos e gerador;
+ * o único estado estático dessas classes são tabelas final preenchidas na carga da classe
+ * (palavras reservadas, classes de caracteres, lexemas fixos). Por isso várias compilações
+ * podem rodar ao mesmo tempo em threads diferentes com o mesmo Compilador.
+ */
+public class Compilador {
+    /**
+     * Entra na chave do CacheDeCompilacao: precisa mudar sempre que a saída do compilador
+     * para um mesmo programa mudar.
+     */
+    public static final String VERSAO = "compilador-24";
+
+    private final int maxErros;
+    private final boolean pipeline;
+    private final boolean paralelo;
+    private CacheDeCompilacao cache = null;
+
+    public Compilador() {
+        this(Diagnosticos.LIMITE_PADRAO, false, false);
+    }
+
+    /**
+     * @param pipeline roda o léxico em outra thread (LexerEmPipeline).
+     * @param paralelo analisa e gera o código das sub-rotinas em paralelo.
+     */
+    public Compilador(int maxErros, boolean pipeline, boolean paralelo) {
+        this.maxErros = maxErros;
+        this.pipeline = pipeline;
+        this.paralelo = paralelo;
+    }
+
+    /**
+     * Passa a consultar o cache antes de compilar e a guardar nele o que compilar.
+     * Deve ser chamado antes de o Compilador ser usado por outras threads.
+     */
+    public void setCache(CacheDeCompilacao cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Um Compilador com as mesmas opções, mas que compila sempre, sem consultar nem encher o cache.
+     */
+    public Compilador semCache() {
+        return new Compilador(maxErros, pipeline, paralelo);
+    }
+
+    public ResultadoDaCompilacao compilar(Path arquivo) {
+        return compilar(arquivo, null);
+    }
+
+    /**
+     * Como compilar(arquivo), mas cada quádrupla vai para o destino assim que é gerada, sem ficar
+     * guardada no resultado (o gerador dele só tem as tabelas); o destino só é terminado se a
+     * compilação der certo. Não usa o cache, que guarda o código inteiro.
+     */
+    public ResultadoDaCompilacao compilar(Path arquivo, DestinoDeQuadruplas destino) {
+        long inicio = System.nanoTime();
+        ByteBuffer programa;
+        // O arquivo é mapeado em memória e o léxico lê seus bytes sob demanda, um token por vez.
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo grande demais para ser mapeado: " + arquivo);
+            }
+            programa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        } catch (IOException e) {
+            return new ResultadoDaCompilacao(arquivo.toString(), null, List.of(), false, e.getMessage(),
+                    System.nanoTime() - inicio);
+        }
+        if (destino != null) {
+            return compilar(arquivo.toString(), new LexicalAnalyzer(programa), destino, inicio);
+        }
+        return compilar(arquivo.toString(), programa, inicio);
+    }
+
+    /**
+     * Compila um programa UTF-8 entre as posições 0 e limit() do buffer, sem copiá-lo.
+     * O buffer pode ser reaproveitado assim que o resultado é devolvido.
+     */
+    public ResultadoDaCompilacao compilar(String nome, ByteBuffer programa) {
+        return compilar(nome, programa, System.nanoTime());
+    }
+
+    private ResultadoDaCompilacao compilar(String nome, ByteBuffer programa, long inicio) {
+        if (cache == null) {
+            return compilar(nome, new LexicalAnalyzer(programa), null, inicio);
+        }
+        String chave = CacheDeCompilacao.chave(programa, maxErros);
+        ResultadoDaCompilacao resultado = cache.buscar(chave, nome, inicio);
+        if (resultado == null) {
+            resultado = compilar(nome, new LexicalAnalyzer(programa), null, inicio);
+            cache.guardar(chave, resultado);
+        }
+        return resultado;
+    }
+
+    private ResultadoDaCompilacao compilar(String nome, LexicalAnalyzer lexer, DestinoDeQuadruplas destino,
+                                           long inicio) {
+        // Todos os erros (léxicos, sintáticos e semânticos) são coletados e listados no final.
+        Diagnosticos diagnosticos = new Diagnosticos(maxErros);
+        lexer.setOuvinteDeErros(linha -> diagnosticos.adicionar(Diagnostico.lexico(linha)));
+        LexerEmPipeline lexerEmPipeline = null;
+        try {
+            FonteDeTokens tokens = lexer;
+            if (pipeline) {
+                // O léxico roda em outra thread, à frente do parser.
+                lexerEmPipeline = new LexerEmPipeline(lexer);
+                tokens = lexerEmPipeline;
+            }
+            Parser parser = new Parser(tokens, diagnosticos);
+            parser.setParalelo(paralelo);
+            if (destino != null) {
+                parser.getGerador().enviarPara(destino);
+            }
+            parser.parse();
+            if (diagnosticos.temErros()) {
+                return new ResultadoDaCompilacao(nome, null, diagnosticos.getDiagnosticos(),
+                        diagnosticos.limiteAtingido(), null, System.nanoTime() - inicio);
+            }
+            parser.getGerador().terminar();
+            return new ResultadoDaCompilacao(nome, parser.getGerador(), List.of(), false, null,
+                    System.nanoTime() - inicio);
+        } finally {
+            if (lexerEmPipeline != null) {
+                lexerEmPipeline.close();
+            }
+        }
+    }
+}
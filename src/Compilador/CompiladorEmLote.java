@@ -0,0 +1,205 @@
+package Compilador;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Compila muitos arquivos ao mesmo tempo num pool de threads de tamanho fixo.
+ *
+ * Os arquivos podem vir de um diretório (todos os .txt abaixo dele), de um glob
+ * (ex.: "testes/**.txt") ou de uma lista (@lista.txt, um caminho por linha).
+ * Os resultados são relatados na ordem dos arquivos, não na ordem em que terminam.
+ */
+public class CompiladorEmLote {
+    private final Compilador compilador;
+    private final int threads;
+
+    public CompiladorEmLote(Compilador compilador, int threads) {
+        this.compilador = compilador;
+        this.threads = threads;
+    }
+
+    /**
+     * Expande diretórios, globs e listas (@arquivo) nos caminhos dos programas, em ordem.
+     */
+    public static List<Path> coletarArquivos(List<String> entradas) throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        for (String entrada : entradas) {
+            if (entrada.startsWith("@")) {
+                for (String linha : Files.readAllLines(Paths.get(entrada.substring(1)), StandardCharsets.UTF_8)) {
+                    if (!linha.isBlank()) arquivos.add(Paths.get(linha.strip()));
+                }
+            } else if (ehGlob(entrada)) {
+                coletarGlob(entrada, arquivos);
+            } else {
+                Path caminho = Paths.get(entrada);
+                if (Files.isDirectory(caminho)) {
+                    coletar(caminho, FileSystems.getDefault().getPathMatcher("glob:**.txt"), arquivos);
+                } else {
+                    arquivos.add(caminho);
+                }
+            }
+        }
+        return arquivos;
+    }
+
+    private static boolean ehGlob(String entrada) {
+        for (int i = 0; i < entrada.length(); i++) {
+            char c = entrada.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return true;
+        }
+        return false;
+    }
+
+    private static void coletarGlob(String glob, List<Path> arquivos) throws IOException {
+        // A busca começa no diretório mais profundo antes do primeiro curinga.
+        Path padrao = Paths.get(glob);
+        Path base = padrao.isAbsolute() ? padrao.getRoot() : Paths.get("");
+        for (Path parte : padrao) {
+            if (ehGlob(parte.toString())) break;
+            base = base.resolve(parte);
+        }
+        if (base.equals(padrao)) {
+            arquivos.add(padrao);
+            return;
+        }
+        coletar(base, FileSystems.getDefault().getPathMatcher("glob:" + glob), arquivos);
+    }
+
+    private static void coletar(Path diretorio, PathMatcher filtro, List<Path> arquivos) throws IOException {
+        if (!Files.isDirectory(diretorio)) return;
+        try (Stream<Path> caminhos = Files.walk(diretorio)) {
+            caminhos.filter(Files::isRegularFile)
+                    .filter(filtro::matches)
+                    .sorted()
+                    .forEach(arquivos::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Compila todos os arquivos e devolve os resultados na mesma ordem.
+     */
+    public List<ResultadoDaCompilacao> compilar(List<Path> arquivos) throws InterruptedException {
+        if (threads <= 1) {
+            List<ResultadoDaCompilacao> resultados = new ArrayList<>(arquivos.size());
+            for (Path arquivo : arquivos) {
+                resultados.add(compilarProtegido(arquivo));
+            }
+            return resultados;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads, tarefa -> {
+            Thread thread = new Thread(tarefa, "compilador-lote");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<ResultadoDaCompilacao>> pendentes = new ArrayList<>(arquivos.size());
+            for (Path arquivo : arquivos) {
+                pendentes.add(pool.submit(() -> compilarProtegido(arquivo)));
+            }
+            List<ResultadoDaCompilacao> resultados = new ArrayList<>(arquivos.size());
+            for (Future<ResultadoDaCompilacao> pendente : pendentes) {
+                try {
+                    resultados.add(pendente.get());
+                } catch (ExecutionException e) {
+                    // compilarProtegido() já transforma as falhas em resultados.
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return resultados;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Um erro inesperado num arquivo não derruba o lote: vira o resultado daquele arquivo.
+     */
+    private ResultadoDaCompilacao compilarProtegido(Path arquivo) {
+        long inicio = System.nanoTime();
+        try {
+            return compilador.compilar(arquivo);
+        } catch (RuntimeException | StackOverflowError e) {
+            return new ResultadoDaCompilacao(arquivo.toString(), null, List.of(), false,
+                    "erro inesperado: " + e, System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Uma linha por arquivo (OK ou FALHA, com os erros abaixo) e os tempos somados no final.
+     */
+    public static void relatar(List<ResultadoDaCompilacao> resultados, long nanosTotais, int threads,
+                               PrintStream saida) {
+        int falhas = 0;
+        long soma = 0;
+        long maior = 0;
+        String maisLento = null;
+        for (ResultadoDaCompilacao resultado : resultados) {
+            soma += resultado.nanos;
+            if (resultado.nanos >= maior) {
+                maior = resultado.nanos;
+                maisLento = resultado.arquivo;
+            }
+            if (resultado.sucesso()) {
+                saida.printf("OK     %s (%d quádruplas, %.2f ms)%n", resultado.arquivo,
+                        resultado.gerador.tamanho(), milissegundos(resultado.nanos));
+            } else {
+                falhas++;
+                saida.printf("FALHA  %s (%.2f ms)%n", resultado.arquivo, milissegundos(resultado.nanos));
+                for (String linha : resultado.comoTexto().split("\\R")) {
+                    saida.println("         " + linha);
+                }
+            }
+        }
+        saida.println("------------------------------------");
+        saida.printf("%d arquivos, %d compilados, %d com falha, %d threads%n",
+                resultados.size(), resultados.size() - falhas, falhas, threads);
+        saida.printf("tempo total: %.2f ms; soma por arquivo: %.2f ms; média: %.3f ms%n",
+                milissegundos(nanosTotais), milissegundos(soma),
+                resultados.isEmpty() ? 0.0 : milissegundos(soma) / resultados.size());
+        if (maisLento != null) {
+            saida.printf("mais lento: %s (%.2f ms)%n", maisLento, milissegundos(maior));
+        }
+    }
+
+    /**
+     * Compila os arquivos em série e no pool e compara as saídas, arquivo por arquivo.
+     * As duas compilações ignoram o cache: senão a concorrente só repetiria o que a serial guardou.
+     * Devolve quantos arquivos deram saídas diferentes.
+     */
+    public int verificarContraSerial(List<Path> arquivos, PrintStream saida) throws InterruptedException {
+        Compilador semCache = compilador.semCache();
+        List<ResultadoDaCompilacao> serial = new CompiladorEmLote(semCache, 1).compilar(arquivos);
+        List<ResultadoDaCompilacao> concorrente = new CompiladorEmLote(semCache, threads).compilar(arquivos);
+        int diferentes = 0;
+        for (int i = 0; i < arquivos.size(); i++) {
+            if (!serial.get(i).comoTexto().equals(concorrente.get(i).comoTexto())) {
+                diferentes++;
+                saida.println("DIFERENTE " + arquivos.get(i));
+            }
+        }
+        saida.printf("verificação: %d de %d arquivos iguais à compilação em série (%d threads)%n",
+                arquivos.size() - diferentes, arquivos.size(), threads);
+        return diferentes;
+    }
+
+    private static double milissegundos(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,141 @@
+package Compilador;
+
+import GeradorCodigo.ArquivoDeSaida;
+import GeradorCodigo.ListagemEmCanal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo de observação: recompila o arquivo a cada vez que ele é salvo, com CompilacaoIncremental.
+ *
+ * Sem arquivo de saída, cada compilação escreve o código gerado (ou os erros) como a compilação
+ * normal; com ele, o código vai para o arquivo e só uma linha de resumo é escrita.
+ */
+public class ObservadorDeArquivo {
+    // Editores costumam salvar em mais de uma escrita; espera-se este tempo sem eventos.
+    private static final long ESPERA_MS = 30;
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final Path arquivo;
+    private final Path saida;
+    private final Compilador compilador;
+    private final CompilacaoIncremental compilacao;
+    private final boolean verificar;
+    private byte[] ultimoConteudo = null;
+
+    /**
+     * @param saida arquivo onde o código gerado é escrito (null para a saída padrão).
+     * @param verificar compara cada resultado com o da compilação do arquivo inteiro.
+     */
+    public ObservadorDeArquivo(Path arquivo, Path saida, Compilador compilador, boolean verificar) {
+        this.arquivo = arquivo.toAbsolutePath();
+        this.saida = saida;
+        this.compilador = compilador;
+        this.compilacao = new CompilacaoIncremental(compilador);
+        this.verificar = verificar;
+    }
+
+    /**
+     * Compila o arquivo e fica recompilando a cada mudança, até a thread ser interrompida.
+     */
+    public void executar() throws IOException, InterruptedException {
+        try (WatchService observador = FileSystems.getDefault().newWatchService()) {
+            arquivo.getParent().register(observador, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            compilar(System.out, System.err);
+            while (true) {
+                WatchKey chave = observador.take();
+                boolean mudou = false;
+                do {
+                    for (WatchEvent<?> evento : chave.pollEvents()) {
+                        mudou |= evento.kind() == StandardWatchEventKinds.OVERFLOW
+                                || arquivo.getFileName().equals(evento.context());
+                    }
+                    chave.reset();
+                    chave = observador.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+                } while (chave != null);
+                if (mudou) {
+                    compilar(System.out, System.err);
+                }
+            }
+        }
+    }
+
+    /**
+     * Uma compilação: lê o arquivo e, se ele mudou desde a última, compila e relata.
+     */
+    public void compilar(PrintStream saidaPadrao, PrintStream saidaDeErros) {
+        byte[] conteudo;
+        try {
+            conteudo = Files.readAllBytes(arquivo);
+        } catch (IOException e) {
+            saidaDeErros.println("Erro ao ler o arquivo: " + e.getMessage());
+            return;
+        }
+        if (Arrays.equals(conteudo, ultimoConteudo)) {
+            return;
+        }
+        ultimoConteudo = conteudo;
+
+        ResultadoDaCompilacao resultado = compilacao.atualizar(arquivo.toString(), conteudo);
+        String texto = resultado.comoTexto();
+        if (!resultado.sucesso()) {
+            saidaDeErros.print(texto);
+        } else if (saida == null) {
+            saidaPadrao.print(texto);
+        } else {
+            escreverSaida(resultado, saidaDeErros);
+        }
+
+        String resumo = resultado.sucesso()
+                ? String.format("%d quádruplas", resultado.gerador.tamanho())
+                : String.format("%d erros", resultado.diagnosticos.size());
+        int trechos = compilacao.getTrechos();
+        String trabalho = trechos == 0 ? "arquivo inteiro"
+                : String.format("trechos: %d de %d relidos, %d reanalisados, %d gerados", compilacao.getRelidos(),
+                        trechos, compilacao.getReanalisados(), compilacao.getRegerados());
+        saidaPadrao.printf("[%s] %s, %s em %.2f ms (%s)%n", LocalTime.now().format(HORA),
+                resultado.sucesso() ? "OK" : "FALHA", resumo, resultado.nanos / 1_000_000.0, trabalho);
+
+        if (verificar) {
+            ResultadoDaCompilacao completo = compilador.compilar(arquivo);
+            saidaPadrao.println(completo.comoTexto().equals(texto)
+                    ? "verificação: igual à compilação do arquivo inteiro"
+                    : "verificação: DIFERENTE da compilação do arquivo inteiro");
+        }
+    }
+
+    private void escreverSaida(ResultadoDaCompilacao resultado, PrintStream saidaDeErros) {
+        try {
+            // O temporário fica com as permissões do arquivo de saída (ou as padrão, se ele é novo).
+            Path temporario = ArquivoDeSaida.temporarioPara(saida);
+            try {
+                try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                    resultado.gerador.enviar(new ListagemEmCanal(canal, "", StandardCharsets.UTF_8));
+                }
+                Files.move(temporario, saida, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            saidaDeErros.println("Erro ao escrever " + saida + ": " + e.getMessage());
+        }
+    }
+}
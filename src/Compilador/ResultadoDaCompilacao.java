@@ -0,0 +1,66 @@
+package Compilador;
+
+import GeradorCodigo.GeradorDeCodigo;
+import GeradorCodigo.ListagemEmCanal;
+import SintaticoAnalyzer.Diagnostico;
+
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * O que sobrou de uma compilação: o código gerado ou os erros encontrados, e quanto tempo levou.
+ */
+public class ResultadoDaCompilacao {
+    private static final String SUCESSO = "Análise concluída com sucesso!";
+
+    public final String arquivo;
+    public final GeradorDeCodigo gerador;          // null se houve erros; só as tabelas se o código foi a um destino
+    public final List<Diagnostico> diagnosticos;
+    public final boolean limiteAtingido;
+    public final String erroDeLeitura;             // não null se o arquivo não pôde ser lido
+    public final long nanos;
+
+    ResultadoDaCompilacao(String arquivo, GeradorDeCodigo gerador, List<Diagnostico> diagnosticos,
+                          boolean limiteAtingido, String erroDeLeitura, long nanos) {
+        this.arquivo = arquivo;
+        this.gerador = gerador;
+        this.diagnosticos = diagnosticos;
+        this.limiteAtingido = limiteAtingido;
+        this.erroDeLeitura = erroDeLeitura;
+        this.nanos = nanos;
+    }
+
+    public boolean sucesso() {
+        return gerador != null;
+    }
+
+    /**
+     * O que a compilação de um arquivo só escreve: o código gerado, ou os erros um por linha.
+     */
+    public String comoTexto() {
+        if (erroDeLeitura != null) {
+            return "Erro ao ler o arquivo: " + erroDeLeitura + System.lineSeparator();
+        }
+        if (gerador != null) {
+            return SUCESSO + System.lineSeparator() + gerador.codigoComoTexto();
+        }
+        StringBuilder texto = new StringBuilder();
+        for (Diagnostico diagnostico : diagnosticos) {
+            texto.append(diagnostico).append(System.lineSeparator());
+        }
+        if (limiteAtingido) {
+            texto.append("Análise interrompida após ").append(diagnosticos.size()).append(" erros.")
+                    .append(System.lineSeparator());
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Destino que escreve no canal o texto de comoTexto() de uma compilação bem-sucedida,
+     * à medida que recebe o código.
+     */
+    public static ListagemEmCanal listagem(WritableByteChannel canal) {
+        return new ListagemEmCanal(canal, SUCESSO + System.lineSeparator(), Charset.defaultCharset());
+    }
+}
@@ -0,0 +1,202 @@
+package Compilador;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor de compilação: uma JVM que fica no ar, já com o JIT aquecido, e atende pedidos
+ * por um socket de domínio Unix.
+ *
+ * Protocolo (inteiros big-endian), vários pedidos podem ser feitos na mesma conexão:
+ *   pedido:   int maxErros, int tamanho, tamanho bytes do programa em UTF-8
+ *   resposta: byte status (SUCESSO ou FALHA), int tamanho, tamanho bytes do texto em UTF-8
+ * O texto é o mesmo de ResultadoDaCompilacao.comoTexto(): o código gerado ou os erros.
+ *
+ * Cada thread do pool guarda o seu buffer de leitura entre pedidos, e o programa é compilado
+ * direto desse buffer; as tabelas do léxico são estáticas e já ficam carregadas.
+ */
+public class ServidorDeCompilacao implements AutoCloseable {
+    static final byte SUCESSO = 0;
+    static final byte FALHA = 1;
+    static final int TAMANHO_MAXIMO = 256 * 1024 * 1024;   // de um programa ou de uma resposta
+
+    private static final String PROGRAMA_DE_AQUECIMENTO =
+            "programa aquecimento;\n"
+            + "var a, b: inteiro; ok: booleano;\n"
+            + "funcao dobro(x: inteiro): inteiro;\n"
+            + "inicio retorno x * 2 fim;\n"
+            + "procedimento mostrar(v: inteiro);\n"
+            + "inicio escreva(v) fim;\n"
+            + "inicio\n"
+            + "  a := 0; b := 10; ok := verdadeiro;\n"
+            + "  enquanto (a < b) e ok faca\n"
+            + "  inicio\n"
+            + "    se a = 5 entao ok := falso senao mostrar(dobro(a + 1));\n"
+            + "    a := a + 1\n"
+            + "  fim\n"
+            + "fim.\n";
+
+    private final Path caminhoSocket;
+    private final boolean pipeline;
+    private final boolean paralelo;
+    private final ExecutorService pool;
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(64 * 1024));
+    private CacheDeCompilacao cache = null;
+    private ServerSocketChannel servidor;
+
+    public ServidorDeCompilacao(Path caminhoSocket, boolean pipeline, boolean paralelo, int threads) {
+        this.caminhoSocket = caminhoSocket;
+        this.pipeline = pipeline;
+        this.paralelo = paralelo;
+        this.pool = Executors.newFixedThreadPool(threads, tarefa -> {
+            Thread thread = new Thread(tarefa, "servidor-compilacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Os pedidos passam a usar o cache em disco (ver Compilador.setCache()).
+     */
+    public void setCache(CacheDeCompilacao cache) {
+        this.cache = cache;
+    }
+
+    public static Path socketPadrao() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "compilador.sock");
+    }
+
+    /**
+     * Compila alguns programas pequenos para que o primeiro pedido já encontre o código compilado pelo JIT.
+     */
+    public void aquecer(int repeticoes) {
+        Compilador compilador = new Compilador(1, pipeline, paralelo);
+        byte[] programa = PROGRAMA_DE_AQUECIMENTO.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < repeticoes; i++) {
+            compilador.compilar("aquecimento", ByteBuffer.wrap(programa)).comoTexto();
+        }
+    }
+
+    /**
+     * Cria o socket. Um socket deixado por um servidor que já terminou é apagado;
+     * se outro servidor ainda responde nele, falha com IOException.
+     */
+    public void abrir() throws IOException {
+        if (Files.exists(caminhoSocket)) {
+            if (ClienteDeCompilacao.servidorNoAr(caminhoSocket)) {
+                throw new IOException("Já há um servidor de compilação em " + caminhoSocket);
+            }
+            Files.delete(caminhoSocket);
+        }
+        servidor = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        servidor.bind(UnixDomainSocketAddress.of(caminhoSocket));
+    }
+
+    /**
+     * Atende conexões até close() ser chamado.
+     */
+    public void executar() throws IOException {
+        if (servidor == null) {
+            abrir();
+        }
+        try {
+            while (true) {
+                SocketChannel conexao = servidor.accept();
+                pool.execute(() -> atender(conexao));
+            }
+        } catch (ClosedChannelException e) {
+            // close() foi chamado.
+        } finally {
+            close();
+        }
+    }
+
+    private void atender(SocketChannel conexao) {
+        try (conexao) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(8);
+            while (lerTudo(conexao, cabecalho.clear())) {
+                int maxErros = cabecalho.getInt(0);
+                int tamanho = cabecalho.getInt(4);
+                if (tamanho < 0 || tamanho > TAMANHO_MAXIMO) {
+                    return;
+                }
+                ByteBuffer programa = buffer(tamanho);
+                if (!lerTudo(conexao, programa)) {
+                    return;
+                }
+                programa.flip();
+                ResultadoDaCompilacao resultado;
+                try {
+                    Compilador compilador = new Compilador(maxErros, pipeline, paralelo);
+                    compilador.setCache(cache);
+                    resultado = compilador.compilar("pedido", programa);
+                } catch (RuntimeException | StackOverflowError e) {
+                    resultado = new ResultadoDaCompilacao("pedido", null, List.of(), false,
+                            "erro inesperado: " + e, 0);
+                }
+                responder(conexao, resultado.sucesso() ? SUCESSO : FALHA, resultado.comoTexto());
+            }
+        } catch (IOException e) {
+            // O cliente desistiu; a conexão é simplesmente descartada.
+        }
+    }
+
+    /**
+     * O buffer desta thread, limpo e com o limite no tamanho pedido (cresce quando não cabe).
+     */
+    private ByteBuffer buffer(int tamanho) {
+        ByteBuffer buffer = buffers.get();
+        if (buffer.capacity() < tamanho) {
+            buffer = ByteBuffer.allocateDirect(Math.max(tamanho, buffer.capacity() * 2));
+            buffers.set(buffer);
+        }
+        buffer.clear().limit(tamanho);
+        return buffer;
+    }
+
+    static void responder(SocketChannel conexao, byte status, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer[] partes = { ByteBuffer.allocate(5).put(status).putInt(bytes.length).flip(), ByteBuffer.wrap(bytes) };
+        while (partes[1].hasRemaining() || partes[0].hasRemaining()) {
+            conexao.write(partes);
+        }
+    }
+
+    /**
+     * Lê até encher o buffer. Devolve false se a conexão terminou antes do primeiro byte.
+     */
+    static boolean lerTudo(SocketChannel conexao, ByteBuffer buffer) throws IOException {
+        boolean leuAlgo = !buffer.hasRemaining();
+        while (buffer.hasRemaining()) {
+            if (conexao.read(buffer) < 0) {
+                if (!leuAlgo) return false;
+                throw new IOException("Conexão encerrada no meio de uma mensagem");
+            }
+            leuAlgo = true;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (servidor != null) servidor.close();
+            Files.deleteIfExists(caminhoSocket);
+        } catch (IOException e) {
+            // Nada a fazer: o socket será apagado pelo próximo servidor.
+        }
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,47 @@
+package GeradorCodigo;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Temporários para arquivos de saída escritos à parte e depois movidos atomicamente por cima
+ * do destino. Files.createTempFile cria com permissão só para o dono (0600), que o arquivo
+ * movido levaria consigo; aqui o temporário fica com as permissões do destino, se ele já
+ * existe, ou com as padrão do processo (as do umask).
+ */
+public final class ArquivoDeSaida {
+    private ArquivoDeSaida() {
+    }
+
+    /**
+     * Cria um arquivo vazio no diretório do destino, pronto para ser movido para ele.
+     */
+    public static Path temporarioPara(Path destino) throws IOException {
+        Path absoluto = destino.toAbsolutePath();
+        Path temporario;
+        while (true) {
+            temporario = absoluto.resolveSibling("." + absoluto.getFileName() + "."
+                    + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.createFile(temporario);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // Outro nome.
+            }
+        }
+        PosixFileAttributeView atributos = Files.getFileAttributeView(absoluto, PosixFileAttributeView.class);
+        if (atributos != null && Files.exists(absoluto)) {
+            try {
+                Files.setPosixFilePermissions(temporario, atributos.readAttributes().permissions());
+            } catch (IOException e) {
+                Files.deleteIfExists(temporario);
+                throw e;
+            }
+        }
+        return temporario;
+    }
+}
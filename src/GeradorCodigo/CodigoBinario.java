@@ -0,0 +1,483 @@
+package GeradorCodigo;
+
+import SemanticsAnalyzer.Endereco;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Código intermediário em formato binário, feito para ser mapeado em memória e lido no lugar:
+ * as quádruplas são registros de tamanho fixo, então ler a quádrupla i é ler quatro ints numa
+ * posição calculada, sem converter o arquivo em objetos.
+ *
+ * Formato (little-endian, todas as seções alinhadas em 4 bytes):
+ *   cabeçalho    36 bytes: MAGICO, VERSAO, quádruplas (Q), rótulos (R), corpos (C), variáveis (V),
+ *                textos (T), contador de temporários, número do primeiro rótulo
+ *   quádruplas   Q registros de 16 bytes: código da Operacao, arg1, arg2, resultado (como em Operando)
+ *   rótulos      R ints: posição da quádrupla de cada rótulo, a partir do primeiro (-1 se não colocado)
+ *   corpos       C registros de 12 bytes: posição da ENTRADA (-1 no programa), início, fim
+ *   variáveis    V registros de 8 bytes: número do texto do nome, Endereco
+ *   textos       T + 1 ints com o início de cada texto nos dados, seguidos dos dados em UTF-8
+ *
+ * A VERSAO muda sempre que o formato ou a lista de Operacao muda.
+ */
+public final class CodigoBinario implements CodigoIntermediario {
+    public static final int MAGICO = 0x52495143;   // "CQIR" em little-endian
+    public static final int VERSAO = 2;
+
+    private static final int TAMANHO_CABECALHO = 36;
+    private static final int TAMANHO_QUADRUPLA = 16;
+    private static final int TAMANHO_CORPO = 12;
+    private static final int TAMANHO_VARIAVEL = 8;
+
+    private final ByteBuffer buffer;
+    private final int quantidade;
+    private final int quantidadeRotulos;
+    private final int quantidadeCorpos;
+    private final int quantidadeVariaveis;
+    private final int quantidadeTextos;
+    private final int contadorTemp;
+    private final int primeiroRotulo;
+    private final int inicioRotulos;
+    private final int inicioCorpos;
+    private final int inicioVariaveis;
+    private final int inicioTextos;
+    private final int inicioDados;
+    private final String[] textos;                   // decodificados na primeira leitura de cada um
+
+    private CodigoBinario(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < TAMANHO_CABECALHO || buffer.getInt(0) != MAGICO) {
+            throw new IOException("Não é um arquivo de código intermediário");
+        }
+        if (buffer.getInt(4) != VERSAO) {
+            throw new IOException("Versão do código intermediário não suportada: " + buffer.getInt(4));
+        }
+        quantidade = buffer.getInt(8);
+        quantidadeRotulos = buffer.getInt(12);
+        quantidadeCorpos = buffer.getInt(16);
+        quantidadeVariaveis = buffer.getInt(20);
+        quantidadeTextos = buffer.getInt(24);
+        contadorTemp = buffer.getInt(28);
+        primeiroRotulo = buffer.getInt(32);
+        if (quantidade < 0 || quantidadeRotulos < 0 || quantidadeCorpos < 0 || quantidadeVariaveis < 0
+                || quantidadeTextos < 0) {
+            throw new IOException("Código intermediário corrompido");
+        }
+        long rotulos = TAMANHO_CABECALHO + (long) quantidade * TAMANHO_QUADRUPLA;
+        long corpos = rotulos + 4L * quantidadeRotulos;
+        long variaveis = corpos + (long) quantidadeCorpos * TAMANHO_CORPO;
+        long tabelaDeTextos = variaveis + (long) quantidadeVariaveis * TAMANHO_VARIAVEL;
+        long dados = tabelaDeTextos + 4L * (quantidadeTextos + 1);
+        if (dados > buffer.limit()) {
+            throw new IOException("Código intermediário truncado");
+        }
+        inicioRotulos = (int) rotulos;
+        inicioCorpos = (int) corpos;
+        inicioVariaveis = (int) variaveis;
+        inicioTextos = (int) tabelaDeTextos;
+        inicioDados = (int) dados;
+        textos = new String[quantidadeTextos];
+        validar();
+    }
+
+    // Confere uma vez tudo o que as leituras usam como índice, para que um arquivo corrompido
+    // seja recusado aqui, com IOException, e não estoure depois no meio de quem o lê.
+    private void validar() throws IOException {
+        if (contadorTemp < 0 || primeiroRotulo < 0 || (long) primeiroRotulo + quantidadeRotulos > 1 << 28) {
+            throw new IOException("Código intermediário corrompido");
+        }
+        int operacoes = Operacao.values().length;
+        for (int i = 0; i < quantidade; i++) {
+            int registro = TAMANHO_CABECALHO + i * TAMANHO_QUADRUPLA;
+            int codigo = buffer.getInt(registro);
+            if (codigo < 0 || codigo >= operacoes || !quadruplaValida(Operacao.deCodigo(codigo),
+                    buffer.getInt(registro + 4), buffer.getInt(registro + 8), buffer.getInt(registro + 12))) {
+                throw new IOException("Código intermediário corrompido na quádrupla " + i);
+            }
+        }
+        for (int k = 0; k < quantidadeRotulos; k++) {
+            int posicao = buffer.getInt(inicioRotulos + 4 * k);
+            if (posicao < -1 || posicao >= quantidade) {
+                throw new IOException("Código intermediário corrompido");
+            }
+        }
+        for (int k = 0; k < quantidadeCorpos; k++) {
+            int entrada = buffer.getInt(inicioCorpos + k * TAMANHO_CORPO);
+            int inicio = buffer.getInt(inicioCorpos + k * TAMANHO_CORPO + 4);
+            int fim = buffer.getInt(inicioCorpos + k * TAMANHO_CORPO + 8);
+            if (entrada < -1 || entrada >= quantidade || inicio < 0 || inicio > fim || fim > quantidade) {
+                throw new IOException("Código intermediário corrompido");
+            }
+        }
+        for (int v = 0; v < quantidadeVariaveis; v++) {
+            int nome = buffer.getInt(inicioVariaveis + v * TAMANHO_VARIAVEL);
+            if (nome < 0 || nome >= quantidadeTextos) {
+                throw new IOException("Código intermediário corrompido");
+            }
+        }
+        int anterior = 0;
+        for (int t = 0; t <= quantidadeTextos; t++) {
+            int inicio = buffer.getInt(inicioTextos + 4 * t);
+            if (inicio < anterior || inicio > buffer.limit() - inicioDados || (t == 0 && inicio != 0)) {
+                throw new IOException("Código intermediário corrompido");
+            }
+            anterior = inicio;
+        }
+    }
+
+    // Os operandos que a forma da operação usa têm de ser do tipo certo e apontar para as tabelas.
+    private boolean quadruplaValida(Operacao operacao, int arg1, int arg2, int resultado) {
+        switch (operacao.forma) {
+            case ROTULO:
+                return operacao == Operacao.ROTULO ? operandoValido(arg1, Operando.ROTULO)
+                        : operandoValido(arg1, Operando.SUBROTINA);
+            case DESVIO:
+                return operandoValido(resultado, Operando.ROTULO);
+            case DESVIO_SE_FALSO:
+                return valorValido(arg1) && operandoValido(resultado, Operando.ROTULO);
+            case CHAMADA:
+                return operandoValido(arg1, Operando.SUBROTINA)
+                        && (resultado == Operando.NENHUM || destinoValido(resultado));
+            case COPIA:
+            case UNARIA:
+                return valorValido(arg1) && destinoValido(resultado);
+            case BINARIA:
+                return valorValido(arg1) && valorValido(arg2) && destinoValido(resultado);
+            default: // PARAM, SAIDA
+                return valorValido(arg1);
+        }
+    }
+
+    private boolean valorValido(int operando) {
+        return destinoValido(operando) || operandoValido(operando, Operando.CONSTANTE);
+    }
+
+    private boolean destinoValido(int operando) {
+        return operandoValido(operando, Operando.TEMPORARIO) || operandoValido(operando, Operando.VARIAVEL);
+    }
+
+    private boolean operandoValido(int operando, int tipo) {
+        if (operando == Operando.NENHUM || Operando.tipo(operando) != tipo) {
+            return false;
+        }
+        int valor = Operando.valor(operando);
+        switch (tipo) {
+            case Operando.VARIAVEL: return valor < quantidadeVariaveis;
+            case Operando.CONSTANTE:
+            case Operando.SUBROTINA: return valor < quantidadeTextos;
+            case Operando.ROTULO: return valor >= primeiroRotulo && valor - primeiroRotulo < quantidadeRotulos;
+            default: return true;
+        }
+    }
+
+    /**
+     * Mapeia o arquivo em memória (só leitura). O mapeamento continua válido depois de o canal fechar.
+     */
+    public static CodigoBinario abrir(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return de(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    /**
+     * Lê o código de um buffer com o conteúdo de um arquivo gravado por gravar().
+     */
+    public static CodigoBinario de(ByteBuffer conteudo) throws IOException {
+        return new CodigoBinario(conteudo.slice().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Grava o código num temporário e o move atomicamente para o arquivo: quem mapeia o arquivo
+     * vê a versão anterior inteira ou a nova inteira.
+     */
+    public static void gravar(GeradorDeCodigo codigo, Path arquivo) throws IOException {
+        Path temporario = ArquivoDeSaida.temporarioPara(arquivo);
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                escrever(codigo, canal);
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    public static void escrever(GeradorDeCodigo codigo, WritableByteChannel canal) throws IOException {
+        ByteBuffer conteudo = codificar(codigo);
+        while (conteudo.hasRemaining()) {
+            canal.write(conteudo);
+        }
+    }
+
+    /**
+     * O conteúdo do arquivo num buffer, pronto para ser lido (posição 0).
+     */
+    public static ByteBuffer codificar(GeradorDeCodigo codigo) {
+        int quantidade = codigo.tamanho();
+        ByteBuffer tabelas = tabelas(codigo);
+        ByteBuffer saida = ByteBuffer.allocate(tamanhoTotal(quantidade, tabelas)).order(ByteOrder.LITTLE_ENDIAN);
+        cabecalho(saida, codigo);
+        for (int i = 0; i < quantidade; i++) {
+            saida.putInt(codigo.operacao(i).ordinal()).putInt(codigo.arg1(i)).putInt(codigo.arg2(i))
+                    .putInt(codigo.resultado(i));
+        }
+        saida.put(tabelas);
+        saida.position(0);
+        return saida;
+    }
+
+    /**
+     * Um destino que grava o código no arquivo à medida que ele é gerado, sem guardar as
+     * quádruplas na memória. Como em gravar(), o arquivo só é substituído em terminar(); fechar
+     * o Gravador antes disso descarta o que foi escrito.
+     */
+    public static Gravador gravador(Path arquivo) throws IOException {
+        return new Gravador(arquivo);
+    }
+
+    public static final class Gravador implements DestinoDeQuadruplas, Closeable {
+        private final Path arquivo;
+        private final Path temporario;
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private int quantidade = 0;
+        private boolean terminado = false;
+
+        private Gravador(Path arquivo) throws IOException {
+            this.arquivo = arquivo;
+            this.temporario = ArquivoDeSaida.temporarioPara(arquivo);
+            this.canal = FileChannel.open(temporario, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            canal.position(TAMANHO_CABECALHO);  // o cabeçalho, com as quantidades, é escrito no fim
+        }
+
+        @Override
+        public void receber(CodigoIntermediario codigo, Operacao operacao, int arg1, int arg2, int resultado) {
+            if (buffer.remaining() < TAMANHO_QUADRUPLA) {
+                descarregar();
+            }
+            buffer.putInt(operacao.ordinal()).putInt(arg1).putInt(arg2).putInt(resultado);
+            quantidade++;
+        }
+
+        /**
+         * O código deve ser o GeradorDeCodigo que enviou as quádruplas (são dele as tabelas).
+         */
+        @Override
+        public void terminar(CodigoIntermediario codigo) {
+            if (!(codigo instanceof GeradorDeCodigo) || codigo.tamanho() != quantidade) {
+                throw new IllegalArgumentException("O código não é o que enviou as quádruplas ao Gravador");
+            }
+            GeradorDeCodigo gerador = (GeradorDeCodigo) codigo;
+            ByteBuffer tabelas = tabelas(gerador);
+            tamanhoTotal(quantidade, tabelas);
+            descarregar();
+            try {
+                escreverTudo(tabelas, -1);
+                ByteBuffer inicio = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+                cabecalho(inicio, gerador);
+                inicio.flip();
+                escreverTudo(inicio, 0);
+                canal.close();
+                Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            terminado = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+            if (!terminado) {
+                Files.deleteIfExists(temporario);
+            }
+        }
+
+        private void descarregar() {
+            buffer.flip();
+            try {
+                escreverTudo(buffer, -1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        // Escreve na posição atual do canal (posicao -1) ou na posição dada.
+        private void escreverTudo(ByteBuffer conteudo, long posicao) throws IOException {
+            while (conteudo.hasRemaining()) {
+                if (posicao < 0) {
+                    canal.write(conteudo);
+                } else {
+                    posicao += canal.write(conteudo, posicao);
+                }
+            }
+        }
+    }
+
+    private static void cabecalho(ByteBuffer saida, GeradorDeCodigo codigo) {
+        saida.putInt(MAGICO).putInt(VERSAO).putInt(codigo.tamanho())
+                .putInt(codigo.getContadorRotulo() - codigo.primeiroRotulo()).putInt(codigo.quantidadeCorpos())
+                .putInt(codigo.quantidadeVariaveis()).putInt(codigo.quantidadeTextos())
+                .putInt(codigo.getContadorTemp()).putInt(codigo.primeiroRotulo());
+    }
+
+    // Tudo o que vem depois das quádruplas: rótulos, corpos, variáveis e textos, completado até múltiplo de 4.
+    private static ByteBuffer tabelas(GeradorDeCodigo codigo) {
+        int quantidadeRotulos = codigo.getContadorRotulo() - codigo.primeiroRotulo();
+        int quantidadeCorpos = codigo.quantidadeCorpos();
+        int quantidadeVariaveis = codigo.quantidadeVariaveis();
+        int quantidadeTextos = codigo.quantidadeTextos();
+        byte[][] textos = new byte[quantidadeTextos][];
+        long tamanhoDados = 0;
+        for (int t = 0; t < quantidadeTextos; t++) {
+            textos[t] = codigo.textoNumero(t).getBytes(StandardCharsets.UTF_8);
+            tamanhoDados += textos[t].length;
+        }
+        long tamanho = 4L * quantidadeRotulos + (long) quantidadeCorpos * TAMANHO_CORPO
+                + (long) quantidadeVariaveis * TAMANHO_VARIAVEL
+                + 4L * (quantidadeTextos + 1) + tamanhoDados;
+        if (tamanho > Integer.MAX_VALUE - 3) {
+            throw new IllegalStateException("Código intermediário grande demais para o formato binário");
+        }
+
+        ByteBuffer saida = ByteBuffer.allocate((int) (tamanho + 3) & ~3).order(ByteOrder.LITTLE_ENDIAN);
+        for (int k = 0; k < quantidadeRotulos; k++) {
+            saida.putInt(codigo.posicaoDoRotulo(Operando.rotulo(codigo.primeiroRotulo() + k)));
+        }
+        for (int k = 0; k < quantidadeCorpos; k++) {
+            saida.putInt(codigo.entradaDoCorpo(k)).putInt(codigo.inicioDoCorpo(k)).putInt(codigo.fimDoCorpo(k));
+        }
+        for (int v = 0; v < quantidadeVariaveis; v++) {
+            saida.putInt(codigo.nomeDaVariavel(v)).putInt(codigo.enderecoDaVariavel(v));
+        }
+        int inicio = 0;
+        for (byte[] texto : textos) {
+            saida.putInt(inicio);
+            inicio += texto.length;
+        }
+        saida.putInt(inicio);
+        for (byte[] texto : textos) {
+            saida.put(texto);
+        }
+        saida.position(0);
+        return saida;
+    }
+
+    private static int tamanhoTotal(int quantidade, ByteBuffer tabelas) {
+        long tamanho = TAMANHO_CABECALHO + (long) quantidade * TAMANHO_QUADRUPLA + tabelas.remaining();
+        if (tamanho > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Código intermediário grande demais para o formato binário");
+        }
+        return (int) tamanho;
+    }
+
+    /**
+     * Um GeradorDeCodigo com o mesmo código, para quem precisa alterá-lo ou anexá-lo a outro.
+     */
+    public GeradorDeCodigo paraGerador() {
+        GeradorDeCodigo gerador = new GeradorDeCodigo(0, primeiroRotulo);
+        for (int t = 0; t < quantidadeTextos; t++) {
+            gerador.internarTexto(textoNumero(t));
+        }
+        for (int v = 0; v < quantidadeVariaveis; v++) {
+            int registro = inicioVariaveis + v * TAMANHO_VARIAVEL;
+            gerador.variavel(textoNumero(buffer.getInt(registro)), buffer.getInt(registro + 4));
+        }
+        for (int i = 0; i < quantidade; i++) {
+            Operacao operacao = operacao(i);
+            if (operacao == Operacao.ROTULO) {
+                gerador.colocarRotulo(arg1(i));
+            } else {
+                gerador.gerar(operacao, arg1(i), arg2(i), resultado(i));
+            }
+        }
+        for (int k = 0; k < quantidadeCorpos; k++) {
+            gerador.adicionarCorpo(entradaDoCorpo(k), inicioDoCorpo(k), fimDoCorpo(k));
+        }
+        gerador.definirContadores(contadorTemp, getContadorRotulo());
+        return gerador;
+    }
+
+    public int getContadorTemp() {
+        return contadorTemp;
+    }
+
+    public int getContadorRotulo() {
+        return primeiroRotulo + quantidadeRotulos;
+    }
+
+    @Override public int tamanho() { return quantidade; }
+    @Override public Operacao operacao(int i) { return Operacao.deCodigo(buffer.getInt(registro(i))); }
+    @Override public int arg1(int i) { return buffer.getInt(registro(i) + 4); }
+    @Override public int arg2(int i) { return buffer.getInt(registro(i) + 8); }
+    @Override public int resultado(int i) { return buffer.getInt(registro(i) + 12); }
+
+    private int registro(int i) {
+        if (i < 0 || i >= quantidade) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return TAMANHO_CABECALHO + i * TAMANHO_QUADRUPLA;
+    }
+
+    @Override
+    public int posicaoDoRotulo(int rotulo) {
+        int indice = Operando.valor(rotulo) - primeiroRotulo;
+        return indice >= 0 && indice < quantidadeRotulos ? buffer.getInt(inicioRotulos + 4 * indice) : -1;
+    }
+
+    @Override public int quantidadeCorpos() { return quantidadeCorpos; }
+    @Override public int entradaDoCorpo(int k) { return buffer.getInt(corpo(k)); }
+    @Override public int inicioDoCorpo(int k) { return buffer.getInt(corpo(k) + 4); }
+    @Override public int fimDoCorpo(int k) { return buffer.getInt(corpo(k) + 8); }
+
+    private int corpo(int k) {
+        if (k < 0 || k >= quantidadeCorpos) {
+            throw new IndexOutOfBoundsException(k);
+        }
+        return inicioCorpos + k * TAMANHO_CORPO;
+    }
+
+    @Override
+    public String texto(int operando) {
+        int valor = Operando.valor(operando);
+        switch (Operando.tipo(operando)) {
+            case Operando.TEMPORARIO: return "t" + valor;
+            case Operando.ROTULO: return "L" + valor;
+            case Operando.VARIAVEL: return textoNumero(buffer.getInt(inicioVariaveis + valor * TAMANHO_VARIAVEL));
+            default: return textoNumero(valor);
+        }
+    }
+
+    @Override
+    public int endereco(int operando) {
+        return Operando.ehVariavel(operando)
+                ? buffer.getInt(inicioVariaveis + Operando.valor(operando) * TAMANHO_VARIAVEL + 4)
+                : Endereco.NENHUM;
+    }
+
+    private String textoNumero(int indice) {
+        String texto = textos[indice];
+        if (texto == null) {
+            int inicio = buffer.getInt(inicioTextos + 4 * indice);
+            int fim = buffer.getInt(inicioTextos + 4 * indice + 4);
+            byte[] bytes = new byte[fim - inicio];
+            buffer.get(inicioDados + inicio, bytes);
+            texto = new String(bytes, StandardCharsets.UTF_8);
+            textos[indice] = texto;
+        }
+        return texto;
+    }
+}
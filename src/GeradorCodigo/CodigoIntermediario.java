@@ -0,0 +1,96 @@
+package GeradorCodigo;
+
+import java.math.BigInteger;
+
+/**
+ * Leitura do código intermediário, quádrupla por quádrupla, com os operandos codificados como
+ * em Operando. Implementado pelo GeradorDeCodigo (código em memória) e pelo CodigoBinario
+ * (código lido de um arquivo mapeado).
+ */
+public interface CodigoIntermediario {
+    int tamanho();
+    Operacao operacao(int i);
+    int arg1(int i);
+    int arg2(int i);
+    int resultado(int i);
+
+    /**
+     * Posição da quádrupla onde o rótulo (um operando ROTULO) foi colocado, ou -1.
+     */
+    int posicaoDoRotulo(int rotulo);
+
+    /**
+     * Quantos corpos (de sub-rotina ou do programa principal) o código tem, na ordem em que aparecem.
+     * As quádruplas de um corpo são contíguas; as ENTRADA ficam fora de todos eles.
+     */
+    int quantidadeCorpos();
+
+    /**
+     * Posição da quádrupla ENTRADA da sub-rotina do corpo k, ou -1 no corpo do programa principal.
+     */
+    int entradaDoCorpo(int k);
+
+    /**
+     * O corpo k são as quádruplas das posições inicioDoCorpo(k) até fimDoCorpo(k) - 1.
+     */
+    int inicioDoCorpo(int k);
+    int fimDoCorpo(int k);
+
+    /**
+     * Texto do operando na listagem (t3, L2, o nome da variável ou sub-rotina, o literal).
+     */
+    String texto(int operando);
+
+    /**
+     * Endereco da variável do operando, ou Endereco.NENHUM se ele não é uma variável.
+     */
+    int endereco(int operando);
+
+    /**
+     * Posição da quádrupla para onde o desvio i (DESVIO ou DESVIO_SE_FALSO) vai.
+     */
+    default int destino(int i) {
+        return posicaoDoRotulo(resultado(i));
+    }
+
+    /**
+     * Valor de um operando CONSTANTE: o número, ou 1 e 0 para verdadeiro e falso. Literais que não
+     * cabem num long ficam com os 64 bits de baixo.
+     */
+    default long valorDaConstante(int operando) {
+        String texto = texto(operando);
+        if (texto.equals("verdadeiro")) return 1;
+        if (texto.equals("falso")) return 0;
+        try {
+            return Long.parseLong(texto);
+        } catch (NumberFormatException e) {
+            return new BigInteger(texto).longValue();
+        }
+    }
+
+    /**
+     * A quádrupla i como aparece na listagem, sem a posição.
+     */
+    default String quadruplaComoTexto(int i) {
+        StringBuilder texto = new StringBuilder();
+        Listagem.quadrupla(texto, this, operacao(i), arg1(i), arg2(i), resultado(i));
+        return texto.toString();
+    }
+
+    /**
+     * A listagem do código, o mesmo texto que GeradorDeCodigo.imprimirCodigo() escreve.
+     */
+    default String codigoComoTexto() {
+        return Listagem.comoTexto(this);
+    }
+
+    /**
+     * Passa todas as quádruplas ao destino, na ordem, e o termina.
+     */
+    default void enviar(DestinoDeQuadruplas destino) {
+        for (int i = 0, quantidade = tamanho(); i < quantidade; i++) {
+            destino.receber(this, operacao(i), arg1(i), arg2(i), resultado(i));
+        }
+        destino.terminar(this);
+    }
+}
@@ -0,0 +1,43 @@
+package GeradorCodigo;
+
+/**
+ * Para onde vão as quádruplas à medida que são geradas (ver GeradorDeCodigo.enviarPara()).
+ * Nenhuma quádrupla é alterada depois de gerada (os desvios citam o rótulo, não a posição),
+ * então um destino pode escrever cada uma assim que a recebe.
+ *
+ * Um erro de escrita sai como UncheckedIOException.
+ */
+public interface DestinoDeQuadruplas {
+    /**
+     * Recebe a próxima quádrupla; os textos e endereços dos operandos são lidos em codigo.
+     */
+    void receber(CodigoIntermediario codigo, Operacao operacao, int arg1, int arg2, int resultado);
+
+    /**
+     * Fim do código: as tabelas de codigo (rótulos, variáveis, textos) estão completas.
+     */
+    default void terminar(CodigoIntermediario codigo) {
+    }
+
+    /**
+     * Um destino que repassa cada quádrupla a todos os destinos dados, na ordem.
+     */
+    static DestinoDeQuadruplas emSerie(DestinoDeQuadruplas... destinos) {
+        DestinoDeQuadruplas[] copia = destinos.clone();
+        return new DestinoDeQuadruplas() {
+            @Override
+            public void receber(CodigoIntermediario codigo, Operacao operacao, int arg1, int arg2, int resultado) {
+                for (DestinoDeQuadruplas destino : copia) {
+                    destino.receber(codigo, operacao, arg1, arg2, resultado);
+                }
+            }
+
+            @Override
+            public void terminar(CodigoIntermediario codigo) {
+                for (DestinoDeQuadruplas destino : copia) {
+                    destino.terminar(codigo);
+                }
+            }
+        };
+    }
+}
@@ -1,34 +1,436 @@
 package GeradorCodigo;
 
-import java.util.ArrayList;
+import SemanticsAnalyzer.Endereco;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Código intermediário em vetores primitivos: a quádrupla i é (operacao(i), arg1(i), arg2(i),
+ * resultado(i)), com os operandos codificados como em Operando. Cada texto (nome de variável ou
+ * de sub-rotina, literal) é guardado uma única vez, e cada variável distinta (nome e Endereco)
+ * também. Os rótulos guardam a posição da quádrupla onde foram colocados, e cada corpo (de
+ * sub-rotina ou do programa) guarda onde começa e termina e qual ENTRADA é a sua.
+ *
+ * getQuadruplas() dá uma visão do mesmo código como objetos Quadrupla, montados sob demanda,
+ * e CodigoBinario o grava num arquivo que pode ser mapeado em memória e lido sem conversão.
+ *
+ * Com enviarPara(), as quádruplas não ficam guardadas: cada uma vai para o DestinoDeQuadruplas
+ * assim que é gerada, e só as tabelas (textos, variáveis, rótulos) e tamanho() continuam valendo.
+ */
+public class GeradorDeCodigo implements CodigoIntermediario {
+    private byte[] operacoes = new byte[64];
+    private int[] args1 = new int[64];
+    private int[] args2 = new int[64];
+    private int[] resultados = new int[64];
+    private int quantidade = 0;
+
+    private String[] textos = new String[32];
+    private int quantidadeTextos = 0;
+    private final Map<String, Integer> indiceTextos = new HashMap<>();
+
+    private int[] nomesDasVariaveis = new int[16];         // índice do texto do nome
+    private int[] enderecosDasVariaveis = new int[16];
+    private int quantidadeVariaveis = 0;
+    private final Map<Long, Integer> indiceVariaveis = new HashMap<>();
+
+    private final int primeiroRotulo;
+    private int[] posicoesDosRotulos = new int[16];        // por número do rótulo - primeiroRotulo; -1 se não colocado
+
+    private int[] corpos = new int[3 * 8];                 // (entrada, início, fim) de cada corpo
+    private int quantidadeCorpos = 0;
 
-public class GeradorDeCodigo {
-    private final List<Quadrupla> quadruplas = new ArrayList<>();
     private int contadorTemp = 0;
     private int contadorRotulo = 0;
 
-    public String novoTemp() {
-        return "t" + contadorTemp++;
+    private DestinoDeQuadruplas destino = null;            // null: as quádruplas ficam nos vetores
+    private boolean[] removidas = null;                     // marcadas por remover(), até compactar()
+
+    private final List<Quadrupla> visao = new Visao();
+
+    public GeradorDeCodigo() {
+        this(0, 0);
     }
 
-    public String novoRotulo() {
-        return "L" + contadorRotulo++;
+    /**
+     * Gerador cujos temporários e rótulos começam nos números dados (usado para gerar partes do
+     * programa em paralelo, cada uma com sua faixa de números, e depois juntá-las com anexar()).
+     */
+    public GeradorDeCodigo(int primeiroTemp, int primeiroRotulo) {
+        this.contadorTemp = primeiroTemp;
+        this.contadorRotulo = primeiroRotulo;
+        this.primeiroRotulo = primeiroRotulo;
+        Arrays.fill(posicoesDosRotulos, -1);
     }
 
-    public void gerar(String op, String arg1, String arg2, String res) {
-        quadruplas.add(new Quadrupla(op, arg1, arg2, res));
+    public int novoTemp() {
+        return Operando.temporario(contadorTemp++);
     }
 
-    public void imprimirCodigo() {
-        System.out.println("\n--- CÓDIGO INTERMEDIÁRIO GERADO ---");
-        for (int i = 0; i < quadruplas.size(); i++) {
-            System.out.printf("%-4d: %s\n", i, quadruplas.get(i));
+    public int novoRotulo() {
+        return Operando.rotulo(contadorRotulo++);
+    }
+
+    /**
+     * Operando de uma variável; endereco é o seu Endereco (ou Endereco.NENHUM se o nome não é de variável).
+     */
+    public int variavel(String nome, int endereco) {
+        int texto = internarTexto(nome);
+        long chave = (long) endereco << 32 | texto;
+        Integer indice = indiceVariaveis.get(chave);
+        if (indice == null) {
+            if (quantidadeVariaveis == nomesDasVariaveis.length) {
+                nomesDasVariaveis = Arrays.copyOf(nomesDasVariaveis, quantidadeVariaveis * 2);
+                enderecosDasVariaveis = Arrays.copyOf(enderecosDasVariaveis, quantidadeVariaveis * 2);
+            }
+            nomesDasVariaveis[quantidadeVariaveis] = texto;
+            enderecosDasVariaveis[quantidadeVariaveis] = endereco;
+            indice = quantidadeVariaveis++;
+            indiceVariaveis.put(chave, indice);
+        }
+        return Operando.de(Operando.VARIAVEL, indice);
+    }
+
+    /**
+     * Operando de um literal inteiro ou booleano, pelo seu texto no programa.
+     */
+    public int constante(String texto) {
+        return Operando.de(Operando.CONSTANTE, internarTexto(texto));
+    }
+
+    public int subRotina(String nome) {
+        return Operando.de(Operando.SUBROTINA, internarTexto(nome));
+    }
+
+    /**
+     * Passa a enviar cada quádrupla ao destino em vez de guardá-la. Deve ser chamado antes da
+     * primeira quádrupla; terminar() avisa o destino de que o código acabou.
+     */
+    public void enviarPara(DestinoDeQuadruplas destino) {
+        if (quantidade > 0) {
+            throw new IllegalStateException("O código já começou a ser gerado");
+        }
+        this.destino = destino;
+    }
+
+    public void terminar() {
+        if (destino != null) {
+            destino.terminar(this);
+        }
+    }
+
+    public void gerar(Operacao operacao, int arg1, int arg2, int resultado) {
+        if (destino != null) {
+            destino.receber(this, operacao, arg1, arg2, resultado);
+            quantidade++;
+            return;
+        }
+        if (quantidade == operacoes.length) {
+            int capacidade = quantidade * 2;
+            operacoes = Arrays.copyOf(operacoes, capacidade);
+            args1 = Arrays.copyOf(args1, capacidade);
+            args2 = Arrays.copyOf(args2, capacidade);
+            resultados = Arrays.copyOf(resultados, capacidade);
+        }
+        operacoes[quantidade] = (byte) operacao.ordinal();
+        args1[quantidade] = arg1;
+        args2[quantidade] = arg2;
+        resultados[quantidade] = resultado;
+        quantidade++;
+    }
+
+    /**
+     * Coloca o rótulo (um operando de novoRotulo()) na posição atual do código.
+     */
+    public void colocarRotulo(int rotulo) {
+        colocarPosicao(Operando.valor(rotulo) - primeiroRotulo, quantidade);
+        gerar(Operacao.ROTULO, rotulo, Operando.NENHUM, Operando.NENHUM);
+    }
+
+    /**
+     * Marca o início do código de uma sub-rotina. Devolve a posição da quádrupla ENTRADA, que
+     * marcarCorpo() associa ao corpo (o código das sub-rotinas aninhadas vem antes dele).
+     */
+    public int entrada(String nome) {
+        gerar(Operacao.ENTRADA, subRotina(nome), Operando.NENHUM, Operando.NENHUM);
+        return quantidade - 1;
+    }
+
+    /**
+     * Registra que as quádruplas de inicio até a posição atual são o corpo da sub-rotina cuja
+     * ENTRADA está na posição entrada (-1 para o corpo do programa).
+     */
+    public void marcarCorpo(int entrada, int inicio) {
+        adicionarCorpo(entrada, inicio, quantidade);
+    }
+
+    void adicionarCorpo(int entrada, int inicio, int fim) {
+        if (3 * quantidadeCorpos == corpos.length) {
+            corpos = Arrays.copyOf(corpos, corpos.length * 2);
+        }
+        corpos[3 * quantidadeCorpos] = entrada;
+        corpos[3 * quantidadeCorpos + 1] = inicio;
+        corpos[3 * quantidadeCorpos + 2] = fim;
+        quantidadeCorpos++;
+    }
+
+    /**
+     * Acrescenta ao final as quádruplas de outro gerador; os contadores passam a valer o maior dos dois.
+     * Os rótulos do outro devem ter números a partir do primeiro rótulo deste gerador.
+     */
+    public void anexar(GeradorDeCodigo outro) {
+        int[] novosTextos = new int[outro.quantidadeTextos];
+        for (int t = 0; t < outro.quantidadeTextos; t++) {
+            novosTextos[t] = internarTexto(outro.textos[t]);
+        }
+        int[] novasVariaveis = new int[outro.quantidadeVariaveis];
+        for (int v = 0; v < outro.quantidadeVariaveis; v++) {
+            novasVariaveis[v] = Operando.valor(variavel(textos[novosTextos[outro.nomesDasVariaveis[v]]],
+                    outro.enderecosDasVariaveis[v]));
+        }
+        int deslocamento = quantidade;
+        for (int i = 0; i < outro.quantidade; i++) {
+            gerar(Operacao.deCodigo(outro.operacoes[i]),
+                    traduzir(outro.args1[i], novosTextos, novasVariaveis),
+                    traduzir(outro.args2[i], novosTextos, novasVariaveis),
+                    traduzir(outro.resultados[i], novosTextos, novasVariaveis));
+        }
+        for (int k = 0; k < outro.quantidadeCorpos; k++) {
+            int entrada = outro.corpos[3 * k];
+            adicionarCorpo(entrada < 0 ? entrada : entrada + deslocamento,
+                    outro.corpos[3 * k + 1] + deslocamento, outro.corpos[3 * k + 2] + deslocamento);
+        }
+        for (int k = 0; k < outro.posicoesDosRotulos.length; k++) {
+            if (outro.posicoesDosRotulos[k] >= 0) {
+                int numero = outro.primeiroRotulo + k;
+                colocarPosicao(numero - primeiroRotulo, outro.posicoesDosRotulos[k] + deslocamento);
+            }
+        }
+        contadorTemp = Math.max(contadorTemp, outro.contadorTemp);
+        contadorRotulo = Math.max(contadorRotulo, outro.contadorRotulo);
+    }
+
+    // --- Alteração do código, para as otimizações ---
+
+    /**
+     * Troca a quádrupla i por outra. Não deve criar nem trocar um ROTULO ou uma ENTRADA.
+     */
+    public void substituir(int i, Operacao operacao, int arg1, int arg2, int resultado) {
+        verificarAlteravel(i);
+        operacoes[i] = (byte) operacao.ordinal();
+        args1[i] = arg1;
+        args2[i] = arg2;
+        resultados[i] = resultado;
+    }
+
+    /**
+     * Marca a quádrupla i para sair no próximo compactar(); até lá as posições não mudam.
+     */
+    public void remover(int i) {
+        verificarAlteravel(i);
+        if (removidas == null) {
+            removidas = new boolean[quantidade];
+        }
+        removidas[i] = true;
+    }
+
+    private void verificarAlteravel(int i) {
+        if (destino != null) {
+            throw new IllegalStateException("As quádruplas já foram enviadas ao destino");
+        }
+        if (i < 0 || i >= quantidade) {
+            throw new IndexOutOfBoundsException(i);
+        }
+    }
+
+    /**
+     * Tira as quádruplas marcadas por remover() e acerta as posições dos rótulos e dos corpos.
+     * Um rótulo cuja quádrupla saiu fica sem posição (-1). Devolve quantas saíram.
+     */
+    public int compactar() {
+        if (removidas == null) {
+            return 0;
+        }
+        int[] novaPosicao = new int[quantidade + 1];   // posição nova da primeira quádrupla mantida a partir de i
+        int mantidas = 0;
+        for (int i = 0; i < quantidade; i++) {
+            novaPosicao[i] = mantidas;
+            if (!removidas[i]) {
+                operacoes[mantidas] = operacoes[i];
+                args1[mantidas] = args1[i];
+                args2[mantidas] = args2[i];
+                resultados[mantidas] = resultados[i];
+                mantidas++;
+            }
+        }
+        novaPosicao[quantidade] = mantidas;
+        int removidasAgora = quantidade - mantidas;
+        quantidade = mantidas;
+        removidas = null;
+
+        Arrays.fill(posicoesDosRotulos, -1);
+        for (int i = 0; i < quantidade; i++) {
+            if (operacoes[i] == Operacao.ROTULO.ordinal()) {
+                colocarPosicao(Operando.valor(args1[i]) - primeiroRotulo, i);
+            }
+        }
+        for (int k = 0; k < quantidadeCorpos; k++) {
+            int entrada = corpos[3 * k];
+            corpos[3 * k] = entrada < 0 ? entrada : novaPosicao[entrada];
+            corpos[3 * k + 1] = novaPosicao[corpos[3 * k + 1]];
+            corpos[3 * k + 2] = novaPosicao[corpos[3 * k + 2]];
+        }
+        return removidasAgora;
+    }
+
+    private static int traduzir(int operando, int[] novosTextos, int[] novasVariaveis) {
+        if (operando == Operando.NENHUM) {
+            return operando;
+        }
+        switch (Operando.tipo(operando)) {
+            case Operando.VARIAVEL:
+                return Operando.de(Operando.VARIAVEL, novasVariaveis[Operando.valor(operando)]);
+            case Operando.CONSTANTE:
+            case Operando.SUBROTINA:
+                return Operando.de(Operando.tipo(operando), novosTextos[Operando.valor(operando)]);
+            default:
+                return operando;
+        }
+    }
+
+    private void colocarPosicao(int indice, int posicao) {
+        if (indice >= posicoesDosRotulos.length) {
+            int antigo = posicoesDosRotulos.length;
+            posicoesDosRotulos = Arrays.copyOf(posicoesDosRotulos, Math.max(indice + 1, antigo * 2));
+            Arrays.fill(posicoesDosRotulos, antigo, posicoesDosRotulos.length, -1);
+        }
+        posicoesDosRotulos[indice] = posicao;
+    }
+
+    int internarTexto(String texto) {
+        Integer indice = indiceTextos.get(texto);
+        if (indice != null) {
+            return indice;
+        }
+        if (quantidadeTextos == textos.length) {
+            textos = Arrays.copyOf(textos, quantidadeTextos * 2);
+        }
+        textos[quantidadeTextos] = texto;
+        indiceTextos.put(texto, quantidadeTextos);
+        return quantidadeTextos++;
+    }
+
+    public int getContadorTemp() {
+        return contadorTemp;
+    }
+
+    public int getContadorRotulo() {
+        return contadorRotulo;
+    }
+
+    // --- Leitura do código ---
+
+    @Override public int tamanho() { return quantidade; }
+    @Override public Operacao operacao(int i) { return Operacao.deCodigo(operacoes[i]); }
+    @Override public int arg1(int i) { return args1[i]; }
+    @Override public int arg2(int i) { return args2[i]; }
+    @Override public int resultado(int i) { return resultados[i]; }
+
+    @Override
+    public int posicaoDoRotulo(int rotulo) {
+        int indice = Operando.valor(rotulo) - primeiroRotulo;
+        return indice >= 0 && indice < posicoesDosRotulos.length ? posicoesDosRotulos[indice] : -1;
+    }
+
+    @Override public int quantidadeCorpos() { return quantidadeCorpos; }
+    @Override public int entradaDoCorpo(int k) { return corpos[3 * verificarCorpo(k)]; }
+    @Override public int inicioDoCorpo(int k) { return corpos[3 * verificarCorpo(k) + 1]; }
+    @Override public int fimDoCorpo(int k) { return corpos[3 * verificarCorpo(k) + 2]; }
+
+    private int verificarCorpo(int k) {
+        if (k < 0 || k >= quantidadeCorpos) {
+            throw new IndexOutOfBoundsException(k);
         }
-        System.out.println("------------------------------------");
+        return k;
     }
 
+    @Override
+    public String texto(int operando) {
+        int valor = Operando.valor(operando);
+        switch (Operando.tipo(operando)) {
+            case Operando.TEMPORARIO: return "t" + valor;
+            case Operando.ROTULO: return "L" + valor;
+            case Operando.VARIAVEL: return textos[nomesDasVariaveis[valor]];
+            default: return textos[valor];
+        }
+    }
+
+    @Override
+    public int endereco(int operando) {
+        return Operando.ehVariavel(operando) ? enderecosDasVariaveis[Operando.valor(operando)] : Endereco.NENHUM;
+    }
+
+    public void imprimirCodigo() {
+        System.out.print(codigoComoTexto());
+    }
+
+    // --- Visão como objetos ---
+
+    /**
+     * As quádruplas como objetos Quadrupla, montados a cada acesso. Nada no compilador usa esta
+     * visão (ele lê os vetores pelo CodigoIntermediario); ela é mantida por compatibilidade com
+     * quem já usava a lista de quádruplas.
+     */
     public List<Quadrupla> getQuadruplas() {
-        return this.quadruplas;
+        return visao;
+    }
+
+    private Quadrupla quadrupla(int i) {
+        Operacao operacao = operacao(i);
+        if (operacao.forma == Operacao.Forma.ROTULO) {
+            return new Quadrupla(operacao, texto(args1[i]) + ":", null, Endereco.NENHUM, null, Endereco.NENHUM,
+                    null, Endereco.NENHUM);
+        }
+        return new Quadrupla(operacao, operacao.texto,
+                textoOuNull(args1[i]), endereco(args1[i]),
+                textoOuNull(args2[i]), endereco(args2[i]),
+                textoOuNull(resultados[i]), endereco(resultados[i]));
+    }
+
+    private String textoOuNull(int operando) {
+        return operando == Operando.NENHUM ? null : texto(operando);
+    }
+
+    private final class Visao extends AbstractList<Quadrupla> implements RandomAccess {
+        @Override
+        public Quadrupla get(int i) {
+            if (i < 0 || i >= quantidade) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return quadrupla(i);
+        }
+
+        @Override
+        public int size() {
+            return quantidade;
+        }
+    }
+
+    // --- Tabelas, para o CodigoBinario ---
+
+    int primeiroRotulo() { return primeiroRotulo; }
+    int quantidadeTextos() { return quantidadeTextos; }
+    String textoNumero(int indice) { return textos[indice]; }
+    int quantidadeVariaveis() { return quantidadeVariaveis; }
+    int nomeDaVariavel(int indice) { return nomesDasVariaveis[indice]; }
+    int enderecoDaVariavel(int indice) { return enderecosDasVariaveis[indice]; }
+
+    void definirContadores(int contadorTemp, int contadorRotulo) {
+        this.contadorTemp = contadorTemp;
+        this.contadorRotulo = contadorRotulo;
     }
-}
\ No newline at end of file
+}
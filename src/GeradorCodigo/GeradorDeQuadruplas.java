@@ -0,0 +1,333 @@
+package GeradorCodigo;
+
+import LexicalAnalyzer.TokenType;
+import SintaticoAnalyzer.ArvoreSintatica;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Passo de geração de código: percorre a ArvoreSintatica já analisada e emite as quádruplas
+ * no GeradorDeCodigo. Espera uma árvore sem erros.
+ *
+ * Operandos que são variáveis levam o Endereco anotado pela análise semântica, e as operações
+ * são escolhidas pelos tipos que ela anotou nas expressões.
+ *
+ * gerarEmParalelo() produz as mesmas quádruplas gerando o corpo de cada sub-rotina (e o do
+ * programa) em uma tarefa do ForkJoinPool.
+ */
+public class GeradorDeQuadruplas {
+    private final ArvoreSintatica arvore;
+    private final GeradorDeCodigo gerador;
+
+    private final Deque<Integer> pilhaInicioLaco = new ArrayDeque<>();
+    private final Deque<Integer> pilhaFimLaco    = new ArrayDeque<>();
+
+    // Pilhas da avaliação das expressões (pós-fixas): operandos, seus tipos e funções chamadas.
+    private int[] operandos = new int[16];
+    private TokenType[] tiposOperandos = new TokenType[16];
+    private int topoOperandos = 0;
+    private int[] chamadas = new int[8];
+    private int topoChamadas = 0;
+    private TokenType tipoDoResultado = null; // da última expressao()
+
+    public GeradorDeQuadruplas(ArvoreSintatica arvore, GeradorDeCodigo gerador) {
+        this.arvore = arvore;
+        this.gerador = gerador;
+    }
+
+    public void gerar() {
+        int programa = arvore.raiz();
+        if (programa >= 0) {
+            bloco(arvore.b(programa), -1);
+        }
+    }
+
+    /**
+     * Mesmo resultado de gerar(). Primeiro conta os temporários e rótulos que cada corpo usa, para
+     * que cada tarefa gere o seu com os mesmos números da geração sequencial; depois as quádruplas
+     * de cada corpo são emendadas na ordem da geração sequencial, entre os rótulos das sub-rotinas.
+     */
+    public void gerarEmParalelo() {
+        int programa = arvore.raiz();
+        if (programa < 0) {
+            return;
+        }
+        List<Integer> corpos = new ArrayList<>();
+        coletarCorpos(arvore.b(programa), corpos);
+        if (corpos.size() < 2 || Runtime.getRuntime().availableProcessors() < 2) {
+            gerar();
+            return;
+        }
+
+        int quantidade = corpos.size();
+        int[] temps = new int[quantidade];
+        int[] rotulos = new int[quantidade];
+        List<ForkJoinTask<?>> contagens = new ArrayList<>();
+        for (int k = 0; k < quantidade; k++) {
+            int indice = k;
+            contagens.add(ForkJoinTask.adapt(() -> contar(corpos.get(indice), temps, rotulos, indice)));
+        }
+        ForkJoinTask.invokeAll(contagens);
+
+        List<ForkJoinTask<GeradorDeCodigo>> tarefas = new ArrayList<>();
+        int primeiroTemp = gerador.getContadorTemp();
+        int primeiroRotulo = gerador.getContadorRotulo();
+        for (int k = 0; k < quantidade; k++) {
+            int corpo = corpos.get(k);
+            int baseTemp = primeiroTemp;
+            int baseRotulo = primeiroRotulo;
+            tarefas.add(ForkJoinTask.adapt(() -> {
+                GeradorDeCodigo parte = new GeradorDeCodigo(baseTemp, baseRotulo);
+                new GeradorDeQuadruplas(arvore, parte).comandos(corpo);
+                return parte;
+            }));
+            primeiroTemp += temps[k];
+            primeiroRotulo += rotulos[k];
+        }
+        ForkJoinTask.invokeAll(tarefas);
+
+        emendar(arvore.b(programa), -1, tarefas.iterator());
+    }
+
+    /**
+     * Gera o código de uma árvore lida por Parser.parseSubRotina() ou parseCorpo() (o cabeçalho
+     * não gera nada). Com um GeradorDeCodigo que começa nos números certos, o resultado é o
+     * mesmo trecho que gerar() produziria para o programa inteiro.
+     */
+    public void gerarTrecho() {
+        int raiz = arvore.raiz();
+        if (raiz < 0 || arvore.tipo(raiz) != ArvoreSintatica.BLOCO) {
+            return;
+        }
+        for (int sub = arvore.b(raiz); sub >= 0; sub = arvore.proximo(sub)) {
+            bloco(arvore.c(sub), gerador.entrada(arvore.nome(arvore.a(sub))));
+        }
+        if (arvore.c(raiz) >= 0) {
+            int inicio = gerador.tamanho();
+            comandos(arvore.c(raiz));
+            gerador.marcarCorpo(-1, inicio);
+        }
+    }
+
+    // Corpos na ordem em que a geração sequencial chega a eles.
+    private void coletarCorpos(int bloco, List<Integer> corpos) {
+        for (int sub = arvore.b(bloco); sub >= 0; sub = arvore.proximo(sub)) {
+            coletarCorpos(arvore.c(sub), corpos);
+        }
+        corpos.add(arvore.c(bloco));
+    }
+
+    // Temporários e rótulos que a geração do corpo vai usar: os nós dos comandos são um intervalo contíguo.
+    private void contar(int corpo, int[] temps, int[] rotulos, int indice) {
+        int quantidadeTemps = 0;
+        int quantidadeRotulos = 0;
+        for (int no = corpo; no < arvore.b(corpo); no++) {
+            switch (arvore.tipo(no)) {
+                case ArvoreSintatica.E_BINARIO:
+                case ArvoreSintatica.E_NAO:
+                case ArvoreSintatica.E_CHAMADA_FIM:
+                    quantidadeTemps++;
+                    break;
+                case ArvoreSintatica.CHAMADA:
+                case ArvoreSintatica.CHAMADA_SIMPLES:
+                    if (arvore.anotacao(no) == 1) quantidadeTemps++;
+                    break;
+                case ArvoreSintatica.SE:
+                case ArvoreSintatica.ENQUANTO:
+                    quantidadeRotulos += 2;
+                    break;
+                default:
+                    break;
+            }
+        }
+        temps[indice] = quantidadeTemps;
+        rotulos[indice] = quantidadeRotulos;
+    }
+
+    private void emendar(int bloco, int entrada, Iterator<ForkJoinTask<GeradorDeCodigo>> partes) {
+        for (int sub = arvore.b(bloco); sub >= 0; sub = arvore.proximo(sub)) {
+            emendar(arvore.c(sub), gerador.entrada(arvore.nome(arvore.a(sub))), partes);
+        }
+        int inicio = gerador.tamanho();
+        gerador.anexar(partes.next().join());
+        gerador.marcarCorpo(entrada, inicio);
+    }
+
+    // entrada: posição da ENTRADA da sub-rotina dona do bloco (-1 no programa).
+    private void bloco(int bloco, int entrada) {
+        for (int sub = arvore.b(bloco); sub >= 0; sub = arvore.proximo(sub)) {
+            bloco(arvore.c(sub), gerador.entrada(arvore.nome(arvore.a(sub))));
+        }
+        int inicio = gerador.tamanho();
+        comandos(arvore.c(bloco));
+        gerador.marcarCorpo(entrada, inicio);
+    }
+
+    private void comandos(int lista) {
+        for (int cmd = arvore.a(lista); cmd >= 0; cmd = arvore.proximo(cmd)) {
+            comando(cmd);
+        }
+    }
+
+    private void comando(int no) {
+        switch (arvore.tipo(no)) {
+            case ArvoreSintatica.CMD_BLOCO:
+                comandos(no);
+                break;
+
+            case ArvoreSintatica.ATRIBUICAO: {
+                int valor = expressao(arvore.b(no), arvore.c(no));
+                int variavel = gerador.variavel(arvore.nome(arvore.a(no)), arvore.anotacao(no));
+                gerador.gerar(Operacao.porTipo(Operacao.COPIA_INT, Operacao.COPIA_BOOL, tipoDoResultado),
+                        valor, Operando.NENHUM, variavel);
+                break;
+            }
+
+            case ArvoreSintatica.CHAMADA:
+            case ArvoreSintatica.CHAMADA_SIMPLES: {
+                if (arvore.tipo(no) == ArvoreSintatica.CHAMADA) {
+                    expressao(arvore.b(no), arvore.c(no)); // gera os 'param'
+                }
+                int subRotina = gerador.subRotina(arvore.nome(arvore.a(no)));
+                if (arvore.anotacao(no) == 1) { // Chamada de função como procedimento
+                    int temp = gerador.novoTemp(); // Descarta o retorno em um temporário
+                    gerador.gerar(Operacao.porTipo(Operacao.CHAMADA_INT, Operacao.CHAMADA_BOOL, arvore.tipoAnotado(no)),
+                            subRotina, Operando.NENHUM, temp);
+                } else {
+                    gerador.gerar(Operacao.CHAMADA, subRotina, Operando.NENHUM, Operando.NENHUM);
+                }
+                break;
+            }
+
+            case ArvoreSintatica.SE: {
+                int rotuloSenao = gerador.novoRotulo();
+                int rotuloFimSe = gerador.novoRotulo();
+                int condicao = expressao(arvore.a(no), arvore.b(no));
+                gerador.gerar(Operacao.DESVIO_SE_FALSO, condicao, Operando.NENHUM, rotuloSenao);
+                comando(arvore.c(no));
+                if (arvore.d(no) >= 0) {
+                    gerador.gerar(Operacao.DESVIO, Operando.NENHUM, Operando.NENHUM, rotuloFimSe);
+                    gerador.colocarRotulo(rotuloSenao);
+                    comando(arvore.d(no));
+                    gerador.colocarRotulo(rotuloFimSe);
+                } else {
+                    gerador.colocarRotulo(rotuloSenao);
+                }
+                break;
+            }
+
+            case ArvoreSintatica.ENQUANTO: {
+                int rotuloInicio = gerador.novoRotulo();
+                int rotuloFim    = gerador.novoRotulo();
+                gerador.colocarRotulo(rotuloInicio);
+                int condicao = expressao(arvore.a(no), arvore.b(no));
+                gerador.gerar(Operacao.DESVIO_SE_FALSO, condicao, Operando.NENHUM, rotuloFim);
+
+                pilhaInicioLaco.push(rotuloInicio);
+                pilhaFimLaco.push(rotuloFim);
+                comando(arvore.c(no));
+                pilhaInicioLaco.pop();
+                pilhaFimLaco.pop();
+
+                gerador.gerar(Operacao.DESVIO, Operando.NENHUM, Operando.NENHUM, rotuloInicio);
+                gerador.colocarRotulo(rotuloFim);
+                break;
+            }
+
+            case ArvoreSintatica.ESCREVA:
+            case ArvoreSintatica.RETORNO: {
+                int valor = expressao(arvore.a(no), arvore.b(no));
+                Operacao operacao = arvore.tipo(no) == ArvoreSintatica.ESCREVA
+                        ? Operacao.porTipo(Operacao.ESCREVA_INT, Operacao.ESCREVA_BOOL, tipoDoResultado)
+                        : Operacao.porTipo(Operacao.RETORNO_INT, Operacao.RETORNO_BOOL, tipoDoResultado);
+                gerador.gerar(operacao, valor, Operando.NENHUM, Operando.NENHUM);
+                break;
+            }
+
+            case ArvoreSintatica.BREAK:
+                gerador.gerar(Operacao.DESVIO, Operando.NENHUM, Operando.NENHUM, pilhaFimLaco.peek());
+                break;
+
+            case ArvoreSintatica.CONTINUE:
+                gerador.gerar(Operacao.DESVIO, Operando.NENHUM, Operando.NENHUM, pilhaInicioLaco.peek());
+                break;
+
+            default: // VAZIO
+                break;
+        }
+    }
+
+    /**
+     * Gera as quádruplas dos nós pós-fixos [inicio, fim) e devolve o operando do resultado
+     * (NENHUM se o intervalo só tem argumentos de uma chamada usada como comando); o tipo
+     * do resultado fica em tipoDoResultado.
+     */
+    private int expressao(int inicio, int fim) {
+        topoOperandos = 0;
+        topoChamadas = 0;
+        for (int i = inicio; i < fim; i++) {
+            switch (arvore.tipo(i)) {
+                case ArvoreSintatica.E_ID:
+                    empilhar(gerador.variavel(arvore.nome(arvore.a(i)), arvore.anotacao(i)), arvore.tipoAnotado(i));
+                    break;
+                case ArvoreSintatica.E_LITERAL:
+                    empilhar(gerador.constante(arvore.texto(arvore.a(i))), arvore.tipoAnotado(i));
+                    break;
+                case ArvoreSintatica.E_BINARIO: {
+                    int dir = operandos[--topoOperandos];
+                    int esq = operandos[--topoOperandos];
+                    Operacao operacao = Operacao.binaria(ArvoreSintatica.tipoDoCampo(arvore.a(i)), tiposOperandos[topoOperandos]);
+                    int temp = gerador.novoTemp();
+                    gerador.gerar(operacao, esq, dir, temp);
+                    empilhar(temp, arvore.tipoAnotado(i));
+                    break;
+                }
+                case ArvoreSintatica.E_NAO: {
+                    int operando = operandos[--topoOperandos];
+                    int temp = gerador.novoTemp();
+                    gerador.gerar(Operacao.NAO, operando, Operando.NENHUM, temp);
+                    empilhar(temp, TokenType.BOOLEANO);
+                    break;
+                }
+                case ArvoreSintatica.E_CHAMADA:
+                    if (topoChamadas == chamadas.length) {
+                        chamadas = Arrays.copyOf(chamadas, topoChamadas * 2);
+                    }
+                    chamadas[topoChamadas++] = arvore.a(i);
+                    break;
+                case ArvoreSintatica.E_ARG_FIM:
+                    topoOperandos--;
+                    gerador.gerar(Operacao.porTipo(Operacao.PARAM_INT, Operacao.PARAM_BOOL, tiposOperandos[topoOperandos]),
+                            operandos[topoOperandos], Operando.NENHUM, Operando.NENHUM);
+                    break;
+                case ArvoreSintatica.E_CHAMADA_FIM: {
+                    TokenType tipo = arvore.tipoAnotado(i);
+                    int temp = gerador.novoTemp();
+                    gerador.gerar(Operacao.porTipo(Operacao.CHAMADA_INT, Operacao.CHAMADA_BOOL, tipo),
+                            gerador.subRotina(arvore.nome(chamadas[--topoChamadas])), Operando.NENHUM, temp);
+                    empilhar(temp, tipo);
+                    break;
+                }
+                default: // E_ARG
+                    break;
+            }
+        }
+        tipoDoResultado = topoOperandos > 0 ? tiposOperandos[topoOperandos - 1] : null;
+        return topoOperandos > 0 ? operandos[topoOperandos - 1] : Operando.NENHUM;
+    }
+
+    private void empilhar(int operando, TokenType tipo) {
+        if (topoOperandos == operandos.length) {
+            operandos = Arrays.copyOf(operandos, topoOperandos * 2);
+            tiposOperandos = Arrays.copyOf(tiposOperandos, topoOperandos * 2);
+        }
+        tiposOperandos[topoOperandos] = tipo;
+        operandos[topoOperandos++] = operando;
+    }
+}
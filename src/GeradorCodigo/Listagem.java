@@ -0,0 +1,120 @@
+package GeradorCodigo;
+
+/**
+ * Escreve a listagem de um CodigoIntermediario: uma quádrupla por linha, com cada texto
+ * numa coluna de pelo menos LARGURA_COLUNA caracteres.
+ */
+final class Listagem {
+    private static final int LARGURA_COLUNA = 10;
+
+    private Listagem() {
+    }
+
+    static String comoTexto(CodigoIntermediario codigo) {
+        int quantidade = codigo.tamanho();
+        StringBuilder texto = new StringBuilder(40 * quantidade + 96);
+        cabecalho(texto);
+        for (int i = 0; i < quantidade; i++) {
+            linha(texto, codigo, i, codigo.operacao(i), codigo.arg1(i), codigo.arg2(i), codigo.resultado(i));
+        }
+        rodape(texto);
+        return texto.toString();
+    }
+
+    static void cabecalho(StringBuilder texto) {
+        texto.append("\n--- CÓDIGO INTERMEDIÁRIO GERADO ---").append(System.lineSeparator());
+    }
+
+    static void rodape(StringBuilder texto) {
+        texto.append("------------------------------------").append(System.lineSeparator());
+    }
+
+    /**
+     * A linha da quádrupla que está na posição dada do código.
+     */
+    static void linha(StringBuilder texto, CodigoIntermediario codigo, int posicao, Operacao operacao,
+                      int arg1, int arg2, int resultado) {
+        int inicio = texto.length();
+        texto.append(posicao);
+        completar(texto, inicio, 4);
+        texto.append(": ");
+        quadrupla(texto, codigo, operacao, arg1, arg2, resultado);
+        texto.append('\n');
+    }
+
+    static void quadrupla(StringBuilder texto, CodigoIntermediario codigo, Operacao operacao,
+                          int arg1, int arg2, int resultado) {
+        switch (operacao.forma) {
+            case ROTULO:
+                int inicio = texto.length();
+                escreverOperando(texto, codigo, arg1);
+                texto.append(':');
+                completar(texto, inicio, LARGURA_COLUNA);
+                break;
+            case COPIA:
+                coluna(texto, codigo, resultado).append(" := ");
+                coluna(texto, codigo, arg1);
+                break;
+            case BINARIA:
+                coluna(texto, codigo, resultado).append(" := ");
+                coluna(texto, codigo, arg1).append(' ');
+                coluna(texto, operacao.texto).append(' ');
+                coluna(texto, codigo, arg2);
+                break;
+            case UNARIA:
+                coluna(texto, codigo, resultado).append(" := ");
+                coluna(texto, operacao.texto).append(' ');
+                coluna(texto, codigo, arg1);
+                break;
+            case DESVIO:
+                coluna(texto, operacao.texto).append(' ');
+                coluna(texto, codigo, resultado);
+                break;
+            case DESVIO_SE_FALSO:
+                coluna(texto, operacao.texto).append(' ');
+                coluna(texto, codigo, arg1).append(' ');
+                coluna(texto, "goto").append(' ');
+                coluna(texto, codigo, resultado);
+                break;
+            case CHAMADA:
+                if (resultado != Operando.NENHUM) {
+                    coluna(texto, codigo, resultado).append(" := ");
+                }
+                coluna(texto, operacao.texto).append(' ');
+                coluna(texto, codigo, arg1);
+                break;
+            default: // PARAM, SAIDA
+                coluna(texto, operacao.texto).append(' ');
+                coluna(texto, codigo, arg1);
+                break;
+        }
+    }
+
+    private static StringBuilder coluna(StringBuilder texto, CodigoIntermediario codigo, int operando) {
+        int inicio = texto.length();
+        escreverOperando(texto, codigo, operando);
+        return completar(texto, inicio, LARGURA_COLUNA);
+    }
+
+    private static StringBuilder coluna(StringBuilder texto, String valor) {
+        int inicio = texto.length();
+        texto.append(valor);
+        return completar(texto, inicio, LARGURA_COLUNA);
+    }
+
+    private static void escreverOperando(StringBuilder texto, CodigoIntermediario codigo, int operando) {
+        int valor = Operando.valor(operando);
+        switch (Operando.tipo(operando)) {
+            case Operando.TEMPORARIO: texto.append('t').append(valor); break;
+            case Operando.ROTULO: texto.append('L').append(valor); break;
+            default: texto.append(codigo.texto(operando)); break;
+        }
+    }
+
+    private static StringBuilder completar(StringBuilder texto, int inicio, int largura) {
+        for (int n = texto.length() - inicio; n < largura; n++) {
+            texto.append(' ');
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,93 @@
+package GeradorCodigo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Destino que escreve a listagem (o mesmo texto de codigoComoTexto()) num canal. As linhas são
+ * juntadas num buffer grande e o canal só recebe blocos cheios, e o que sobrou em terminar():
+ * um programa pequeno sai numa única escrita, e um grande não precisa caber inteiro na memória.
+ * O canal não é fechado.
+ */
+public final class ListagemEmCanal implements DestinoDeQuadruplas {
+    private static final int TAMANHO_BLOCO = 1 << 20;
+
+    private final WritableByteChannel canal;
+    private final CharsetEncoder codificador;
+    private final String antes;
+    private final StringBuilder texto = new StringBuilder();
+    private final ByteBuffer bytes = ByteBuffer.allocate(TAMANHO_BLOCO);
+    private int posicao = 0;
+
+    public ListagemEmCanal(WritableByteChannel canal) {
+        this(canal, "", Charset.defaultCharset());
+    }
+
+    /**
+     * @param antes texto escrito antes da listagem (ao receber a primeira quádrupla, ou em terminar()).
+     */
+    public ListagemEmCanal(WritableByteChannel canal, String antes, Charset charset) {
+        this.canal = canal;
+        this.antes = antes;
+        // Como o PrintStream: o que o charset não representa sai como '?'.
+        this.codificador = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public void receber(CodigoIntermediario codigo, Operacao operacao, int arg1, int arg2, int resultado) {
+        if (posicao == 0) {
+            iniciar();
+        }
+        Listagem.linha(texto, codigo, posicao++, operacao, arg1, arg2, resultado);
+        if (texto.length() >= TAMANHO_BLOCO) {
+            codificar();
+        }
+    }
+
+    @Override
+    public void terminar(CodigoIntermediario codigo) {
+        if (posicao == 0) {
+            iniciar();
+        }
+        Listagem.rodape(texto);
+        codificar();
+        escrever();
+    }
+
+    private void iniciar() {
+        texto.append(antes);
+        Listagem.cabecalho(texto);
+    }
+
+    // Passa o texto acumulado para os bytes, escrevendo no canal cada vez que o bloco enche.
+    private void codificar() {
+        CharBuffer entrada = CharBuffer.wrap(texto);
+        codificador.reset();
+        while (codificador.encode(entrada, bytes, true).isOverflow()) {
+            escrever();
+        }
+        while (codificador.flush(bytes).isOverflow()) {
+            escrever();
+        }
+        texto.setLength(0);
+    }
+
+    private void escrever() {
+        bytes.flip();
+        try {
+            while (bytes.hasRemaining()) {
+                canal.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bytes.clear();
+    }
+}
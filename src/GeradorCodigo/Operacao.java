@@ -0,0 +1,116 @@
+package GeradorCodigo;
+
+import LexicalAnalyzer.TokenType;
+
+/**
+ * Código de operação de uma quádrupla. As operações cujo efeito depende do tipo do valor
+ * (cópia, passagem de parâmetro, chamada de função, escrita, retorno, igualdade) têm uma
+ * versão para inteiros e outra para booleanos.
+ */
+public enum Operacao {
+    ROTULO(Forma.ROTULO, null),                 // arg1 = o rótulo
+    ENTRADA(Forma.ROTULO, null),                // início de uma sub-rotina; arg1 = a sub-rotina
+    COPIA_INT(Forma.COPIA, ":="),
+    COPIA_BOOL(Forma.COPIA, ":="),
+    SOMA(Forma.BINARIA, "+"),
+    SUBTRACAO(Forma.BINARIA, "-"),
+    MULTIPLICACAO(Forma.BINARIA, "*"),
+    DIVISAO(Forma.BINARIA, "/"),
+    MENOR(Forma.BINARIA, "<"),
+    MENOR_IGUAL(Forma.BINARIA, "<="),
+    MAIOR(Forma.BINARIA, ">"),
+    MAIOR_IGUAL(Forma.BINARIA, ">="),
+    IGUAL_INT(Forma.BINARIA, "="),
+    DIFERENTE_INT(Forma.BINARIA, "<>"),
+    IGUAL_BOOL(Forma.BINARIA, "="),
+    DIFERENTE_BOOL(Forma.BINARIA, "<>"),
+    E(Forma.BINARIA, "e"),
+    OU(Forma.BINARIA, "ou"),
+    NAO(Forma.UNARIA, "nao"),
+    DESVIO(Forma.DESVIO, "goto"),               // resultado = rótulo de destino
+    DESVIO_SE_FALSO(Forma.DESVIO_SE_FALSO, "if_false"),
+    PARAM_INT(Forma.PARAM, "param"),
+    PARAM_BOOL(Forma.PARAM, "param"),
+    CHAMADA(Forma.CHAMADA, "call"),             // procedimento: sem resultado
+    CHAMADA_INT(Forma.CHAMADA, "call"),
+    CHAMADA_BOOL(Forma.CHAMADA, "call"),
+    ESCREVA_INT(Forma.SAIDA, "escreva"),
+    ESCREVA_BOOL(Forma.SAIDA, "escreva"),
+    RETORNO_INT(Forma.SAIDA, "retorno"),
+    RETORNO_BOOL(Forma.SAIDA, "retorno");
+
+    /**
+     * Como a quádrupla é escrita na listagem (e quais operandos ela usa).
+     */
+    public enum Forma { ROTULO, COPIA, BINARIA, UNARIA, DESVIO, DESVIO_SE_FALSO, PARAM, CHAMADA, SAIDA }
+
+    private static final Operacao[] VALORES = values();
+
+    public final Forma forma;
+    public final String texto;
+
+    Operacao(Forma forma, String texto) {
+        this.forma = forma;
+        this.texto = texto;
+    }
+
+    /**
+     * Se arg1 é um valor lido pela quádrupla (e não um rótulo ou uma sub-rotina).
+     */
+    public boolean leArg1() {
+        switch (forma) {
+            case COPIA: case BINARIA: case UNARIA: case DESVIO_SE_FALSO: case PARAM: case SAIDA:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public boolean leArg2() {
+        return forma == Forma.BINARIA;
+    }
+
+    /**
+     * Se o resultado é um valor escrito pela quádrupla (numa chamada de procedimento ele é NENHUM).
+     */
+    public boolean escreveResultado() {
+        switch (forma) {
+            case COPIA: case BINARIA: case UNARIA: case CHAMADA:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static Operacao deCodigo(int codigo) {
+        return VALORES[codigo];
+    }
+
+    /**
+     * A versão da operação para o tipo dado: a booleana se o tipo é BOOLEANO, a inteira caso contrário.
+     */
+    public static Operacao porTipo(Operacao inteira, Operacao booleana, TokenType tipo) {
+        return tipo == TokenType.BOOLEANO ? booleana : inteira;
+    }
+
+    /**
+     * Operação de um operador binário, dado o tipo dos operandos (que só importa em '=' e '<>').
+     */
+    public static Operacao binaria(TokenType operador, TokenType tipoDosOperandos) {
+        switch (operador) {
+            case MAIS: return SOMA;
+            case MENOS: return SUBTRACAO;
+            case MULT: return MULTIPLICACAO;
+            case DIVISAO: return DIVISAO;
+            case MENOR: return MENOR;
+            case MENOR_IGUAL: return MENOR_IGUAL;
+            case MAIOR: return MAIOR;
+            case MAIOR_IGUAL: return MAIOR_IGUAL;
+            case IGUAL: return porTipo(IGUAL_INT, IGUAL_BOOL, tipoDosOperandos);
+            case DIFERENTE: return porTipo(DIFERENTE_INT, DIFERENTE_BOOL, tipoDosOperandos);
+            case E: return E;
+            case OU: return OU;
+            default: throw new IllegalArgumentException("Operador binário desconhecido: " + operador);
+        }
+    }
+}
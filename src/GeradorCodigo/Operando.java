@@ -0,0 +1,60 @@
+package GeradorCodigo;
+
+/**
+ * Operando de uma quádrupla codificado num int: o tipo nos bits 28 a 30 e o valor nos 28 de baixo.
+ *
+ *   TEMPORARIO   valor = número do temporário (t0, t1, ...)
+ *   VARIAVEL     valor = índice na tabela de variáveis do GeradorDeCodigo (nome e Endereco)
+ *   CONSTANTE    valor = índice do texto do literal
+ *   ROTULO       valor = número do rótulo (L0, L1, ...); GeradorDeCodigo.posicaoDoRotulo dá a quádrupla
+ *   SUBROTINA    valor = índice do nome da sub-rotina
+ *
+ * NENHUM (-1) marca um operando que a quádrupla não usa.
+ */
+public final class Operando {
+    public static final int NENHUM = -1;
+
+    public static final int TEMPORARIO = 0;
+    public static final int VARIAVEL = 1;
+    public static final int CONSTANTE = 2;
+    public static final int ROTULO = 3;
+    public static final int SUBROTINA = 4;
+
+    private static final int BITS_VALOR = 28;
+    private static final int MASCARA_VALOR = (1 << BITS_VALOR) - 1;
+
+    private Operando() {
+    }
+
+    public static int de(int tipo, int valor) {
+        return tipo << BITS_VALOR | valor;
+    }
+
+    public static int temporario(int numero) {
+        return de(TEMPORARIO, numero);
+    }
+
+    public static int rotulo(int numero) {
+        return de(ROTULO, numero);
+    }
+
+    public static int tipo(int operando) {
+        return operando >>> BITS_VALOR;
+    }
+
+    public static int valor(int operando) {
+        return operando & MASCARA_VALOR;
+    }
+
+    public static boolean ehTemporario(int operando) {
+        return operando != NENHUM && tipo(operando) == TEMPORARIO;
+    }
+
+    public static boolean ehVariavel(int operando) {
+        return operando != NENHUM && tipo(operando) == VARIAVEL;
+    }
+
+    public static boolean ehConstante(int operando) {
+        return operando != NENHUM && tipo(operando) == CONSTANTE;
+    }
+}
@@ -1,46 +1,56 @@
 package GeradorCodigo;
 
+/**
+ * Uma quádrupla vista como objeto (ver GeradorDeCodigo.getQuadruplas()). Os textos são os
+ * da listagem; quando um operando é uma variável, o seu Endereco (profundidade, posição) vem
+ * no campo endereco correspondente.
+ */
 public class Quadrupla {
+    public final Operacao operacao;
     public final String operador;
     public final String arg1;
     public final String arg2;
     public final String resultado;
+    public final int endereco1;
+    public final int endereco2;
+    public final int enderecoResultado;
 
-    public Quadrupla(String operador, String arg1, String arg2, String resultado) {
+    public Quadrupla(Operacao operacao, String operador, String arg1, int endereco1, String arg2, int endereco2,
+                     String resultado, int enderecoResultado) {
+        this.operacao = operacao;
         this.operador = operador;
         this.arg1 = arg1;
         this.arg2 = arg2;
         this.resultado = resultado;
+        this.endereco1 = endereco1;
+        this.endereco2 = endereco2;
+        this.enderecoResultado = enderecoResultado;
     }
 
+    /**
+     * A quádrupla como na listagem, escolhida pela forma da operação.
+     */
     @Override
     public String toString() {
-        if (operador != null && operador.endsWith(":")) {
-            return String.format("%-10s", operador);           // rótulo
-        }
-        if (":=".equals(operador)) {
-            return String.format("%-10s := %-10s", resultado, arg1); // cópia/atr
-        }
-        if ("goto".equals(operador)) {
-            return String.format("%-10s %-10s", "goto", resultado);  // goto Lk
-        }
-        if ("if_false".equals(operador)) {
-            return String.format("%-10s %-10s %-10s %-10s", "if_false", arg1, "goto", resultado);
-        }
-        if ("param".equals(operador)) {
-            return String.format("%-10s %-10s", "param", arg1);
-        }
-        if ("call".equals(operador)) {
-            return (resultado != null)
-                    ? String.format("%-10s := %-10s %-10s", resultado, "call", arg1)
-                    : String.format("%-10s %-10s", "call", arg1);
-        }
-        if (arg2 == null) { // unária (ex.: nao) ou I/O/retorno
-            if ("escreva".equals(operador) || "retorno".equals(operador)) {
+        switch (operacao.forma) {
+            case ROTULO:
+                return String.format("%-10s", operador);
+            case COPIA:
+                return String.format("%-10s := %-10s", resultado, arg1);
+            case BINARIA:
+                return String.format("%-10s := %-10s %-10s %-10s", resultado, arg1, operador, arg2);
+            case UNARIA:
+                return String.format("%-10s := %-10s %-10s", resultado, operador, arg1);
+            case DESVIO:
+                return String.format("%-10s %-10s", operador, resultado);
+            case DESVIO_SE_FALSO:
+                return String.format("%-10s %-10s %-10s %-10s", operador, arg1, "goto", resultado);
+            case CHAMADA:
+                return (resultado != null)
+                        ? String.format("%-10s := %-10s %-10s", resultado, operador, arg1)
+                        : String.format("%-10s %-10s", operador, arg1);
+            default: // PARAM, SAIDA
                 return String.format("%-10s %-10s", operador, arg1);
-            }
-            return String.format("%-10s := %-10s %-10s", resultado, operador, arg1);
         }
-        return String.format("%-10s := %-10s %-10s %-10s", resultado, arg1, operador, arg2); // binária
     }
-}
\ No newline at end of file
+}
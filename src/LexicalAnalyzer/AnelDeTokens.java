@@ -0,0 +1,82 @@
+package LexicalAnalyzer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fila circular de tamanho fixo para exatamente um produtor e um consumidor, sem locks.
+ * Cada lado só escreve no seu próprio contador; a publicação usa lazySet (escrita com
+ * semântica de release), que basta para o outro lado enxergar o token já gravado.
+ */
+class AnelDeTokens {
+    private static final int ESPERAS_ATIVAS = 100;
+
+    private final Token[] posicoes;
+    private final int mascara;
+    private final AtomicLong proximaEscrita = new AtomicLong();
+    private final AtomicLong proximaLeitura = new AtomicLong();
+    private long leituraConhecida = 0; // só usado pelo produtor
+    private long escritaConhecida = 0; // só usado pelo consumidor
+
+    AnelDeTokens(int capacidade) {
+        if (Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("A capacidade do anel deve ser potência de 2: " + capacidade);
+        }
+        this.posicoes = new Token[capacidade];
+        this.mascara = capacidade - 1;
+    }
+
+    /**
+     * Chamado só pelo produtor. Espera enquanto o anel estiver cheio.
+     * @return false se desistiu porque o pipeline foi fechado.
+     */
+    boolean publicar(Token token, LexerEmPipeline dono) {
+        long escrita = proximaEscrita.get();
+        int tentativas = 0;
+        while (escrita - leituraConhecida == posicoes.length) {
+            leituraConhecida = proximaLeitura.get();
+            if (escrita - leituraConhecida == posicoes.length) {
+                if (dono.cancelado()) return false;
+                tentativas = esperar(tentativas);
+            }
+        }
+        posicoes[(int) escrita & mascara] = token;
+        proximaEscrita.lazySet(escrita + 1);
+        return true;
+    }
+
+    /**
+     * Chamado só pelo consumidor.
+     * @return o próximo token, ou null se o anel está vazio e o produtor terminou.
+     */
+    Token retirar(LexerEmPipeline dono) {
+        long leitura = proximaLeitura.get();
+        int tentativas = 0;
+        while (leitura == escritaConhecida) {
+            escritaConhecida = proximaEscrita.get();
+            if (leitura == escritaConhecida) {
+                if (dono.produtorTerminou()) {
+                    // O produtor pode ter publicado algo logo antes de terminar.
+                    escritaConhecida = proximaEscrita.get();
+                    if (leitura == escritaConhecida) return null;
+                    break;
+                }
+                tentativas = esperar(tentativas);
+            }
+        }
+        int posicao = (int) leitura & mascara;
+        Token token = posicoes[posicao];
+        posicoes[posicao] = null;
+        proximaLeitura.lazySet(leitura + 1);
+        return token;
+    }
+
+    private static int esperar(int tentativas) {
+        if (tentativas < ESPERAS_ATIVAS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(10_000);
+        }
+        return tentativas + 1;
+    }
+}
@@ -0,0 +1,132 @@
+package LexicalAnalyzer;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokens guardados em vetores paralelos de primitivos (tipo, início, comprimento, linha
+ * e número do nome) em vez de um objeto Token por token.
+ * O texto de um token só é criado quando pedido; palavras-chave e símbolos usam o
+ * lexema fixo do seu tipo e nunca alocam.
+ */
+public class BufferDeTokens {
+    private static final TokenType[] TIPOS = TokenType.values();
+    private static final int CAPACIDADE_INICIAL = 256;
+
+    private final Fonte fonte;
+    private final TabelaDeNomes nomes;
+    private byte[] tipos = new byte[CAPACIDADE_INICIAL];
+    private int[] inicios = new int[CAPACIDADE_INICIAL];
+    private int[] comprimentos = new int[CAPACIDADE_INICIAL];
+    private int[] linhas = new int[CAPACIDADE_INICIAL];
+    private int[] idsNome = new int[CAPACIDADE_INICIAL];
+    private int tamanho = 0;
+
+    BufferDeTokens(Fonte fonte, TabelaDeNomes nomes) {
+        this.fonte = fonte;
+        this.nomes = nomes;
+    }
+
+    void adicionar(TokenType tipo, int inicio, int comprimento, int linha, int idNome) {
+        if (tamanho == tipos.length) {
+            crescer();
+        }
+        tipos[tamanho] = (byte) tipo.ordinal();
+        inicios[tamanho] = inicio;
+        comprimentos[tamanho] = comprimento;
+        linhas[tamanho] = linha;
+        idsNome[tamanho] = idNome;
+        tamanho++;
+    }
+
+    /**
+     * Copia os tokens de outro buffer para o fim deste, somando deslocamentoLinha às linhas
+     * e traduzindo os números de nome com mapaNomes (índice: número no outro buffer).
+     */
+    void anexar(BufferDeTokens outro, int deslocamentoLinha, int[] mapaNomes) {
+        while (tamanho + outro.tamanho > tipos.length) {
+            crescer();
+        }
+        System.arraycopy(outro.tipos, 0, tipos, tamanho, outro.tamanho);
+        System.arraycopy(outro.inicios, 0, inicios, tamanho, outro.tamanho);
+        System.arraycopy(outro.comprimentos, 0, comprimentos, tamanho, outro.tamanho);
+        for (int i = 0; i < outro.tamanho; i++) {
+            linhas[tamanho + i] = outro.linhas[i] + deslocamentoLinha;
+            int idNome = outro.idsNome[i];
+            idsNome[tamanho + i] = idNome >= 0 ? mapaNomes[idNome] : -1;
+        }
+        tamanho += outro.tamanho;
+    }
+
+    private void crescer() {
+        int novaCapacidade = tipos.length * 2;
+        tipos = Arrays.copyOf(tipos, novaCapacidade);
+        inicios = Arrays.copyOf(inicios, novaCapacidade);
+        comprimentos = Arrays.copyOf(comprimentos, novaCapacidade);
+        linhas = Arrays.copyOf(linhas, novaCapacidade);
+        idsNome = Arrays.copyOf(idsNome, novaCapacidade);
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public TokenType tipo(int indice) {
+        return TIPOS[tipos[indice]];
+    }
+
+    public int inicio(int indice) {
+        return inicios[indice];
+    }
+
+    public int comprimento(int indice) {
+        return comprimentos[indice];
+    }
+
+    public int linha(int indice) {
+        return linhas[indice];
+    }
+
+    /**
+     * Número do nome na TabelaDeNomes, ou -1 se o token não é um ID.
+     */
+    public int idNome(int indice) {
+        return idsNome[indice];
+    }
+
+    public String lexema(int indice) {
+        String fixo = LexicalAnalyzer.lexemaFixo(tipo(indice));
+        if (fixo != null) {
+            return fixo;
+        }
+        if (idsNome[indice] >= 0) {
+            return nomes.nome(idsNome[indice]);
+        }
+        return fonte.trecho(inicios[indice], inicios[indice] + comprimentos[indice]);
+    }
+
+    public Token token(int indice) {
+        return new Token(tipo(indice), lexema(indice), linhas[indice], idsNome[indice]);
+    }
+
+    /**
+     * Visão somente leitura do buffer como lista de Token, criados a cada acesso.
+     */
+    public List<Token> comoLista() {
+        return new AbstractList<Token>() {
+            @Override
+            public Token get(int indice) {
+                if (indice < 0 || indice >= tamanho) {
+                    throw new IndexOutOfBoundsException(indice);
+                }
+                return token(indice);
+            }
+
+            @Override
+            public int size() {
+                return tamanho;
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package LexicalAnalyzer;
+
+/**
+ * Origem dos caracteres lidos pelo analisador léxico.
+ * Mantém a posição atual e o início do lexema em análise.
+ */
+abstract class Fonte {
+
+    abstract boolean isAtEnd();
+
+    abstract char avancar();
+
+    abstract char peek();
+
+    abstract boolean nextToken(char esperado);
+
+    /**
+     * Avança enquanto houver letras, dígitos ou '_'.
+     */
+    void pularIdentificador() {
+        while (TabelaDeCaracteres.ehParteDeIdentificador(peek())) avancar();
+    }
+
+    /**
+     * Avança enquanto houver dígitos.
+     */
+    void pularDigitos() {
+        while (TabelaDeCaracteres.ehDigito(peek())) avancar();
+    }
+
+    /**
+     * Avança sobre espaços, tabulações e quebras de linha.
+     * @return quantidade de '\n' pulados.
+     */
+    int pularEspacos() {
+        int quebras = 0;
+        while (true) {
+            char c = peek();
+            if (c == '\n') {
+                quebras++;
+            } else if (c != ' ' && c != '\r' && c != '\t') {
+                return quebras;
+            }
+            avancar();
+        }
+    }
+
+    /**
+     * Marca a posição atual como início do próximo lexema.
+     */
+    abstract void marcarInicio();
+
+    abstract int posicaoInicio();
+
+    abstract int posicaoAtual();
+
+    /**
+     * Unidade (char ou byte) na posição, que já deve ter sido lida.
+     */
+    abstract int unidadeEm(int posicao);
+
+    /**
+     * Texto entre duas posições já lidas da fonte.
+     */
+    abstract String trecho(int inicio, int fim);
+
+    /**
+     * Número do identificador entre inicio e fim na tabela de nomes.
+     */
+    int internar(TabelaDeNomes nomes, int inicio, int fim) {
+        return nomes.internar(this, inicio, fim);
+    }
+
+    /**
+     * Texto entre o início marcado e a posição atual.
+     */
+    String lexema() {
+        return trecho(posicaoInicio(), posicaoAtual());
+    }
+
+    /**
+     * Pede que a fonte mantenha todo o texto lido acessível por trecho(),
+     * necessário quando os lexemas são materializados depois da varredura.
+     */
+    void reterTudo() {
+    }
+}
@@ -0,0 +1,230 @@
+package LexicalAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fonte lida diretamente de um ByteBuffer em UTF-8 (normalmente um arquivo mapeado em memória).
+ * Bytes ASCII são devolvidos sem decodificação; só sequências não ASCII passam pelo decodificador.
+ *
+ * Sequências de espaços, dígitos e caracteres de identificador são puladas 8 bytes por vez,
+ * classificando todos os bytes de um long de uma só vez (SWAR). Um byte não ASCII
+ * interrompe esse caminho e o restante fica com a versão caractere a caractere de Fonte.
+ * Com -Dcompilador.swar=false só a versão caractere a caractere é usada.
+ */
+class FonteBytes extends Fonte implements FonteComAcessoAleatorio {
+    private static final char INVALIDO = '\uFFFD';
+    private static final boolean SWAR = !"false".equals(System.getProperty("compilador.swar"));
+
+    private static final long UNS = 0x0101010101010101L;
+    private static final long ALTOS = 0x8080808080808080L;
+    private static final long BAIXOS = 0x7F7F7F7F7F7F7F7FL;
+
+    private final ByteBuffer bytes;
+    private final ByteBuffer palavras; // mesma memória, lida em longs little-endian
+    private final int fim;
+    private int inicio;
+    private int atual;
+
+    FonteBytes(ByteBuffer bytes) {
+        this(bytes, 0, bytes.limit());
+    }
+
+    private FonteBytes(ByteBuffer bytes, int inicio, int fim) {
+        this.bytes = bytes;
+        this.palavras = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.inicio = inicio;
+        this.atual = inicio;
+        this.fim = fim;
+    }
+
+    @Override
+    boolean isAtEnd() {
+        return atual >= fim;
+    }
+
+    @Override
+    char avancar() {
+        byte b = bytes.get(atual++);
+        if (b >= 0) return (char) b;
+        return decodificar(b);
+    }
+
+    @Override
+    char peek() {
+        if (isAtEnd()) return '\0';
+        byte b = bytes.get(atual);
+        if (b >= 0) return (char) b;
+        int posicao = atual;
+        char c = avancar();
+        atual = posicao;
+        return c;
+    }
+
+    @Override
+    boolean nextToken(char esperado) {
+        if (isAtEnd()) return false;
+        if (bytes.get(atual) != (byte) esperado) return false;
+        atual++;
+        return true;
+    }
+
+    @Override
+    void pularIdentificador() {
+        if (SWAR) {
+            while (atual + 8 <= fim) {
+                long palavra = palavras.getLong(atual);
+                long v = palavra & BAIXOS;
+                long aceitos = entre(v | (0x20 * UNS), 'a', 'z') | entre(v, '0', '9') | igual(v, '_');
+                if (avancarAtePrimeiro(~aceitos & ALTOS | palavra & ALTOS)) break;
+            }
+        }
+        super.pularIdentificador();
+    }
+
+    @Override
+    void pularDigitos() {
+        if (SWAR) {
+            while (atual + 8 <= fim) {
+                long palavra = palavras.getLong(atual);
+                long aceitos = entre(palavra & BAIXOS, '0', '9');
+                if (avancarAtePrimeiro(~aceitos & ALTOS | palavra & ALTOS)) break;
+            }
+        }
+        super.pularDigitos();
+    }
+
+    @Override
+    int pularEspacos() {
+        int quebras = 0;
+        if (SWAR) {
+            while (atual + 8 <= fim) {
+                long palavra = palavras.getLong(atual);
+                long v = palavra & BAIXOS;
+                long novasLinhas = igual(v, '\n');
+                long aceitos = igual(v, ' ') | igual(v, '\t') | igual(v, '\r') | novasLinhas;
+                long parada = ~aceitos & ALTOS | palavra & ALTOS;
+                if (parada != 0) {
+                    int pulados = Long.numberOfTrailingZeros(parada) >>> 3;
+                    quebras += Long.bitCount(novasLinhas & ((1L << (pulados * 8)) - 1));
+                    atual += pulados;
+                    break;
+                }
+                quebras += Long.bitCount(novasLinhas);
+                atual += 8;
+            }
+        }
+        return quebras + super.pularEspacos();
+    }
+
+    /**
+     * Avança até o primeiro byte marcado em parada (bit alto do byte) ou 8 bytes se não houver.
+     * @return true se encontrou um byte marcado.
+     */
+    private boolean avancarAtePrimeiro(long parada) {
+        if (parada == 0) {
+            atual += 8;
+            return false;
+        }
+        atual += Long.numberOfTrailingZeros(parada) >>> 3;
+        return true;
+    }
+
+    // As funções abaixo recebem bytes de 7 bits e devolvem o bit alto de cada byte que atende à condição.
+
+    private static long maiorOuIgual(long v, int k) {
+        return (v + (0x80 - k) * UNS) & ALTOS;
+    }
+
+    private static long entre(long v, char menor, char maior) {
+        return maiorOuIgual(v, menor) & ~maiorOuIgual(v, maior + 1);
+    }
+
+    private static long igual(long v, char c) {
+        long x = v ^ (c * UNS);
+        return ~((x + BAIXOS) | x) & ALTOS;
+    }
+
+    @Override
+    void marcarInicio() {
+        inicio = atual;
+    }
+
+    @Override
+    int posicaoInicio() {
+        return inicio;
+    }
+
+    @Override
+    int posicaoAtual() {
+        return atual;
+    }
+
+    @Override
+    public int comprimento() {
+        return bytes.limit();
+    }
+
+    @Override
+    public Fonte fatia(int inicio, int fim) {
+        return new FonteBytes(bytes, inicio, fim);
+    }
+
+    @Override
+    public int unidadeNaPosicao(int posicao) {
+        return bytes.get(posicao) & 0xFF;
+    }
+
+    @Override
+    int unidadeEm(int posicao) {
+        return bytes.get(posicao) & 0xFF;
+    }
+
+    @Override
+    String trecho(int inicio, int fim) {
+        byte[] trecho = new byte[fim - inicio];
+        bytes.get(inicio, trecho);
+        return new String(trecho, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Identificadores ASCII são comparados byte a byte com a tabela; os demais precisam
+     * ser decodificados para que o mesmo nome tenha sempre o mesmo número.
+     */
+    @Override
+    int internar(TabelaDeNomes nomes, int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            if (bytes.get(i) < 0) {
+                return nomes.internar(trecho(inicio, fim));
+            }
+        }
+        return super.internar(nomes, inicio, fim);
+    }
+
+    /**
+     * Decodifica a sequência UTF-8 iniciada pelo byte b (já consumido).
+     * Sequências inválidas ou fora do BMP viram U+FFFD, que não é letra nem dígito.
+     */
+    private char decodificar(byte b) {
+        int tamanho;
+        int valor;
+        if ((b & 0xE0) == 0xC0) {
+            tamanho = 1;
+            valor = b & 0x1F;
+        } else if ((b & 0xF0) == 0xE0) {
+            tamanho = 2;
+            valor = b & 0x0F;
+        } else if ((b & 0xF8) == 0xF0) {
+            tamanho = 3;
+            valor = 0;
+        } else {
+            return INVALIDO;
+        }
+        for (int i = 0; i < tamanho; i++) {
+            if (atual >= fim || (bytes.get(atual) & 0xC0) != 0x80) return INVALIDO;
+            valor = (valor << 6) | (bytes.get(atual++) & 0x3F);
+        }
+        return tamanho == 3 ? INVALIDO : (char) valor;
+    }
+}
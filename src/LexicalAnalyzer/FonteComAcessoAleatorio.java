@@ -0,0 +1,25 @@
+package LexicalAnalyzer;
+
+/**
+ * Fonte cujo texto inteiro está disponível desde o início (em memória ou mapeado), e que por
+ * isso pode ser dividida em pedaços varridos em paralelo. Uma fonte lida sob demanda, como
+ * FonteLeitor, não implementa esta interface.
+ */
+interface FonteComAcessoAleatorio {
+
+    /**
+     * Tamanho total da fonte, nas mesmas unidades das posições.
+     */
+    int comprimento();
+
+    /**
+     * Nova fonte que lê só o trecho [inicio, fim) desta, mantendo as mesmas posições.
+     */
+    Fonte fatia(int inicio, int fim);
+
+    /**
+     * Unidade (char ou byte) em qualquer posição da fonte, lida ou não. Difere de
+     * Fonte.unidadeEm, que só vale para posições que a varredura já passou.
+     */
+    int unidadeNaPosicao(int posicao);
+}
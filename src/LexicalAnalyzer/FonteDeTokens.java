@@ -0,0 +1,9 @@
+package LexicalAnalyzer;
+
+/**
+ * Qualquer coisa que entregue tokens ao parser, um por vez.
+ * Depois do FIM_ARQUIVO, continua devolvendo FIM_ARQUIVO.
+ */
+public interface FonteDeTokens {
+    Token obterProximoToken();
+}
@@ -0,0 +1,115 @@
+package LexicalAnalyzer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Fonte lida sob demanda de um Reader.
+ * Só mantém em memória uma janela com o lexema atual e o lookahead; a janela
+ * só cresce se um único lexema for maior que ela. Com reterTudo() nada é
+ * descartado e as posições passam a valer para o texto inteiro.
+ */
+class FonteLeitor extends Fonte {
+    private static final int TAMANHO_JANELA = 8192;
+
+    private final Reader leitor;
+    private char[] janela = new char[TAMANHO_JANELA];
+    private int limite = 0;     // quantidade de caracteres válidos na janela
+    private int inicio = 0;
+    private int atual = 0;
+    private boolean fimDoLeitor = false;
+    private boolean reter = false;
+
+    FonteLeitor(Reader leitor) {
+        this.leitor = leitor;
+    }
+
+    @Override
+    boolean isAtEnd() {
+        return atual >= limite && !carregar();
+    }
+
+    @Override
+    char avancar() {
+        if (atual >= limite) carregar();
+        return janela[atual++];
+    }
+
+    @Override
+    char peek() {
+        if (isAtEnd()) return '\0';
+        return janela[atual];
+    }
+
+    @Override
+    boolean nextToken(char esperado) {
+        if (isAtEnd()) return false;
+        if (janela[atual] != esperado) return false;
+        atual++;
+        return true;
+    }
+
+    @Override
+    void marcarInicio() {
+        inicio = atual;
+    }
+
+    @Override
+    int posicaoInicio() {
+        return inicio;
+    }
+
+    @Override
+    int posicaoAtual() {
+        return atual;
+    }
+
+    @Override
+    int unidadeEm(int posicao) {
+        return janela[posicao];
+    }
+
+    @Override
+    String trecho(int inicio, int fim) {
+        return new String(janela, inicio, fim - inicio);
+    }
+
+    @Override
+    void reterTudo() {
+        reter = true;
+    }
+
+    /**
+     * Descarta o que já foi consumido antes do lexema atual e lê mais caracteres.
+     * @return false se o leitor chegou ao fim.
+     */
+    private boolean carregar() {
+        if (fimDoLeitor) return false;
+        if (inicio > 0 && !reter) {
+            System.arraycopy(janela, inicio, janela, 0, limite - inicio);
+            limite -= inicio;
+            atual -= inicio;
+            inicio = 0;
+        }
+        if (limite == janela.length) {
+            char[] maior = new char[janela.length * 2];
+            System.arraycopy(janela, 0, maior, 0, limite);
+            janela = maior;
+        }
+        try {
+            int lidos;
+            do {
+                lidos = leitor.read(janela, limite, janela.length - limite);
+            } while (lidos == 0);
+            if (lidos < 0) {
+                fimDoLeitor = true;
+                return false;
+            }
+            limite += lidos;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
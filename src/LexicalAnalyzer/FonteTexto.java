@@ -0,0 +1,86 @@
+package LexicalAnalyzer;
+
+/**
+ * Fonte que já está inteira em memória (String, CharBuffer, ...).
+ */
+class FonteTexto extends Fonte implements FonteComAcessoAleatorio {
+    private final CharSequence texto;
+    private final int fim;
+    private int inicio;
+    private int atual;
+
+    FonteTexto(CharSequence texto) {
+        this(texto, 0, texto.length());
+    }
+
+    private FonteTexto(CharSequence texto, int inicio, int fim) {
+        this.texto = texto;
+        this.inicio = inicio;
+        this.atual = inicio;
+        this.fim = fim;
+    }
+
+    @Override
+    boolean isAtEnd() {
+        return atual >= fim;
+    }
+
+    @Override
+    char avancar() {
+        return texto.charAt(atual++);
+    }
+
+    @Override
+    char peek() {
+        if (isAtEnd()) return '\0';
+        return texto.charAt(atual);
+    }
+
+    @Override
+    boolean nextToken(char esperado) {
+        if (isAtEnd()) return false;
+        if (texto.charAt(atual) != esperado) return false;
+        atual++;
+        return true;
+    }
+
+    @Override
+    void marcarInicio() {
+        inicio = atual;
+    }
+
+    @Override
+    int posicaoInicio() {
+        return inicio;
+    }
+
+    @Override
+    int posicaoAtual() {
+        return atual;
+    }
+
+    @Override
+    public int comprimento() {
+        return texto.length();
+    }
+
+    @Override
+    public Fonte fatia(int inicio, int fim) {
+        return new FonteTexto(texto, inicio, fim);
+    }
+
+    @Override
+    public int unidadeNaPosicao(int posicao) {
+        return texto.charAt(posicao);
+    }
+
+    @Override
+    int unidadeEm(int posicao) {
+        return texto.charAt(posicao);
+    }
+
+    @Override
+    String trecho(int inicio, int fim) {
+        return texto.subSequence(inicio, fim).toString();
+    }
+}
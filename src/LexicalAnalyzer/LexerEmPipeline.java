@@ -0,0 +1,78 @@
+package LexicalAnalyzer;
+
+/**
+ * Roda o analisador léxico em outra thread, que deposita os tokens em um AnelDeTokens
+ * enquanto o parser os consome nesta. A varredura se sobrepõe à análise sintática e
+ * semântica, e a memória fica limitada ao tamanho do anel.
+ */
+public class LexerEmPipeline implements FonteDeTokens, AutoCloseable {
+    private static final int CAPACIDADE_ANEL = 1024;
+
+    private final LexicalAnalyzer lexer;
+    private final AnelDeTokens anel = new AnelDeTokens(CAPACIDADE_ANEL);
+    private final Thread produtor;
+    private volatile boolean cancelado = false;
+    private volatile boolean terminou = false;
+    private volatile RuntimeException falha = null;
+    private Token fimDeArquivo = null;
+
+    public LexerEmPipeline(LexicalAnalyzer lexer) {
+        this.lexer = lexer;
+        this.produtor = new Thread(this::produzir, "lexer-pipeline");
+        this.produtor.setDaemon(true);
+        this.produtor.start();
+    }
+
+    private void produzir() {
+        try {
+            Token token;
+            do {
+                token = lexer.obterProximoToken();
+                if (!anel.publicar(token, this)) return;
+            } while (token.type != TokenType.FIM_ARQUIVO);
+        } catch (RuntimeException e) {
+            falha = e;
+        } finally {
+            terminou = true;
+        }
+    }
+
+    @Override
+    public Token obterProximoToken() {
+        if (fimDeArquivo != null) {
+            return fimDeArquivo;
+        }
+        Token token = anel.retirar(this);
+        if (token == null) {
+            if (falha != null) throw falha;
+            throw new IllegalStateException("O léxico terminou sem produzir FIM_ARQUIVO");
+        }
+        if (token.type == TokenType.FIM_ARQUIVO) {
+            fimDeArquivo = token;
+        }
+        return token;
+    }
+
+    /**
+     * O léxico depois de terminado, para consultar erros e a tabela de nomes.
+     */
+    public LexicalAnalyzer getLexer() {
+        return lexer;
+    }
+
+    boolean cancelado() {
+        return cancelado;
+    }
+
+    boolean produtorTerminou() {
+        return terminou;
+    }
+
+    /**
+     * Libera a thread do léxico se o parser parou antes do fim do arquivo.
+     */
+    @Override
+    public void close() {
+        cancelado = true;
+    }
+}
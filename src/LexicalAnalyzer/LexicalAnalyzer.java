@@ -1,72 +1,248 @@
 package LexicalAnalyzer;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
 
-public class LexicalAnalyzer {
-    private final String fonte;
-    private final List<Token> tokens = new ArrayList<>();
-    private int inicio = 0;
-    private int atual = 0;
+public class LexicalAnalyzer implements FonteDeTokens {
+    private final Fonte fonte;
+    private final boolean streaming;
+    private final TabelaDeNomes nomes;
+    private BufferDeTokens buffer = null;   // usado fora do modo streaming
+    private Token tokenLido = null;         // usado no modo streaming
     private int linha = 1;
     private boolean hasErrors = false;
+    private List<Integer> linhasComErro = null; // quando não é null, erros léxicos são guardados em vez de impressos
+    private IntConsumer ouvinteDeErros = null;   // quando não é null, recebe a linha de cada erro léxico
 
-    private static final Map<String, TokenType> palavrasReservadas;
+    // Abaixo deste tamanho por pedaço não compensa dividir a varredura entre threads.
+    private static final int TAMANHO_MINIMO_PEDACO = 1 << 20;
+
+    // Texto de cada tipo de token que sempre tem o mesmo lexema (palavras-chave e símbolos).
+    private static final String[] lexemasFixos = new String[TokenType.values().length];
     static {
-        palavrasReservadas = new HashMap<>();
-        palavrasReservadas.put("programa", TokenType.PROGRAMA);
-        palavrasReservadas.put("var", TokenType.VAR);
-        palavrasReservadas.put("inteiro", TokenType.INTEIRO);
-        palavrasReservadas.put("booleano", TokenType.BOOLEANO);
-        palavrasReservadas.put("procedimento", TokenType.PROCEDIMENTO);
-        palavrasReservadas.put("funcao", TokenType.FUNCAO);
-        palavrasReservadas.put("inicio", TokenType.INICIO);
-        palavrasReservadas.put("fim", TokenType.FIM);
-        palavrasReservadas.put("se", TokenType.SE);
-        palavrasReservadas.put("entao", TokenType.ENTAO);
-        palavrasReservadas.put("senao", TokenType.SENAO);
-        palavrasReservadas.put("enquanto", TokenType.ENQUANTO);
-        palavrasReservadas.put("faca", TokenType.FACA);
-        palavrasReservadas.put("escreva", TokenType.ESCREVA);
-        palavrasReservadas.put("retorno", TokenType.RETORNO);
-        palavrasReservadas.put("break", TokenType.BREAK);
-        palavrasReservadas.put("continue", TokenType.CONTINUE);
-        palavrasReservadas.put("verdadeiro", TokenType.VERDADEIRO);
-        palavrasReservadas.put("falso", TokenType.FALSO);
-        palavrasReservadas.put("nao", TokenType.NAO);
-        palavrasReservadas.put("ou", TokenType.OU);
-        palavrasReservadas.put("e", TokenType.E);
+        for (TokenType tipo : TokenType.values()) {
+            lexemasFixos[tipo.ordinal()] = PalavrasReservadas.palavra(tipo);
+        }
+        lexemasFixos[TokenType.ATRIBUICAO.ordinal()] = ":=";
+        lexemasFixos[TokenType.IGUAL.ordinal()] = "=";
+        lexemasFixos[TokenType.DIFERENTE.ordinal()] = "<>";
+        lexemasFixos[TokenType.MENOR.ordinal()] = "<";
+        lexemasFixos[TokenType.MENOR_IGUAL.ordinal()] = "<=";
+        lexemasFixos[TokenType.MAIOR.ordinal()] = ">";
+        lexemasFixos[TokenType.MAIOR_IGUAL.ordinal()] = ">=";
+        lexemasFixos[TokenType.MAIS.ordinal()] = "+";
+        lexemasFixos[TokenType.MENOS.ordinal()] = "-";
+        lexemasFixos[TokenType.MULT.ordinal()] = "*";
+        lexemasFixos[TokenType.PONTO_E_VIRGULA.ordinal()] = ";";
+        lexemasFixos[TokenType.VIRGULA.ordinal()] = ",";
+        lexemasFixos[TokenType.ABRE_PAREN.ordinal()] = "(";
+        lexemasFixos[TokenType.FECHA_PAREN.ordinal()] = ")";
+        lexemasFixos[TokenType.PONTO.ordinal()] = ".";
+        lexemasFixos[TokenType.DOIS_PONTOS.ordinal()] = ":";
+        lexemasFixos[TokenType.DIVISAO.ordinal()] = "/";
+        lexemasFixos[TokenType.FIM_ARQUIVO.ordinal()] = "";
+    }
+
+    /**
+     * Lexema fixo do tipo, ou null se o texto varia (ID, NUMERO).
+     */
+    static String lexemaFixo(TokenType tipo) {
+        return lexemasFixos[tipo.ordinal()];
     }
 
     public LexicalAnalyzer(String fonte) {
+        this(new FonteTexto(fonte), false);
+    }
+
+    /**
+     * Modo streaming: cada chamada a obterProximoToken() lê um único token do leitor,
+     * sem montar a lista de tokens. A memória usada não depende do tamanho do programa.
+     */
+    public LexicalAnalyzer(Reader leitor) {
+        this(new FonteLeitor(leitor), true);
+    }
+
+    /**
+     * Lê um programa UTF-8 direto de um buffer de bytes, sem convertê-lo para String.
+     * Os tokens são produzidos sob demanda, como no modo streaming.
+     */
+    public LexicalAnalyzer(ByteBuffer bytes) {
+        this(new FonteBytes(bytes), true);
+    }
+
+    /**
+     * Analisa um trecho de um programa maior, sob demanda: as linhas são contadas a partir de
+     * primeiraLinha e os identificadores são numerados na tabela dada, compartilhada com os
+     * léxicos dos outros trechos, para que um mesmo nome tenha o mesmo número em todos eles.
+     */
+    public LexicalAnalyzer(CharSequence trecho, int primeiraLinha, TabelaDeNomes nomes) {
+        this(new FonteTexto(trecho), true, nomes);
+        this.linha = primeiraLinha;
+    }
+
+    private LexicalAnalyzer(Fonte fonte, boolean streaming) {
+        this(fonte, streaming, new TabelaDeNomes());
+    }
+
+    private LexicalAnalyzer(Fonte fonte, boolean streaming, TabelaDeNomes nomes) {
         this.fonte = fonte;
+        this.streaming = streaming;
+        this.nomes = nomes;
+    }
+
+    /**
+     * Mapeia o arquivo em memória e analisa seus bytes diretamente.
+     */
+    public static LexicalAnalyzer deArquivo(Path caminho) throws IOException {
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo grande demais para ser mapeado: " + caminho);
+            }
+            return new LexicalAnalyzer(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
     }
 
     public List<Token> escanearTokens() {
+        return escanearBuffer().comoLista();
+    }
+
+    /**
+     * Varre a fonte inteira guardando os tokens em um BufferDeTokens.
+     */
+    public BufferDeTokens escanearBuffer() {
+        if (buffer != null) {
+            return buffer;
+        }
+        fonte.reterTudo();
+        buffer = new BufferDeTokens(fonte, nomes);
+        varrer();
+        buffer.adicionar(TokenType.FIM_ARQUIVO, fonte.posicaoAtual(), 0, linha, -1);
+        return buffer;
+    }
+
+    private void varrer() {
         while (!isAtEnd()) {
-            inicio = atual;
+            fonte.marcarInicio();
             escanearToken();
         }
-        tokens.add(new Token(TokenType.FIM_ARQUIVO, "", linha));
-        return tokens;
+    }
+
+    public BufferDeTokens escanearBufferParalelo() {
+        return escanearBufferParalelo(TAMANHO_MINIMO_PEDACO);
+    }
+
+    /**
+     * Mesmo resultado de escanearBuffer(), mas a fonte é dividida em pedaços nas quebras de linha
+     * (nenhum token ocupa mais de uma linha) e cada pedaço é varrido em uma tarefa do ForkJoinPool,
+     * com contador de linhas e tabela de nomes próprios. Depois os pedaços são emendados em ordem,
+     * corrigindo as linhas e os números de nome.
+     * Fontes pequenas, já lidas em parte ou sem acesso aleatório, assim como máquinas com um só
+     * processador, ficam com a varredura sequencial.
+     */
+    public BufferDeTokens escanearBufferParalelo(int tamanhoMinimoPedaco) {
+        if (buffer != null) {
+            return buffer;
+        }
+        if (!(fonte instanceof FonteComAcessoAleatorio)) {
+            return escanearBuffer();
+        }
+        FonteComAcessoAleatorio inteira = (FonteComAcessoAleatorio) fonte;
+        int comprimento = inteira.comprimento();
+        int processadores = Runtime.getRuntime().availableProcessors();
+        int quantidadePedacos = processadores < 2 ? 1
+                : Math.min(processadores * 4, comprimento / Math.max(1, tamanhoMinimoPedaco));
+        if (quantidadePedacos < 2 || fonte.posicaoAtual() != 0) {
+            return escanearBuffer();
+        }
+
+        List<ForkJoinTask<LexicalAnalyzer>> tarefas = new ArrayList<>();
+        int inicioPedaco = 0;
+        for (int k = 1; k <= quantidadePedacos; k++) {
+            int fimPedaco = k == quantidadePedacos ? comprimento : proximoInicioDeLinha(inteira, (int) ((long) comprimento * k / quantidadePedacos));
+            if (fimPedaco <= inicioPedaco) {
+                continue;
+            }
+            Fonte pedaco = inteira.fatia(inicioPedaco, fimPedaco);
+            tarefas.add(ForkJoinTask.adapt(() -> {
+                LexicalAnalyzer lexer = new LexicalAnalyzer(pedaco, false);
+                lexer.linhasComErro = new ArrayList<>();
+                lexer.buffer = new BufferDeTokens(pedaco, lexer.nomes);
+                lexer.varrer();
+                return lexer;
+            }));
+            inicioPedaco = fimPedaco;
+        }
+        ForkJoinTask.invokeAll(tarefas);
+
+        buffer = new BufferDeTokens(fonte, nomes);
+        for (ForkJoinTask<LexicalAnalyzer> tarefa : tarefas) {
+            LexicalAnalyzer pedaco = tarefa.join();
+            int[] mapaNomes = new int[pedaco.nomes.quantidade()];
+            for (int id = 0; id < mapaNomes.length; id++) {
+                mapaNomes[id] = nomes.internar(pedaco.nomes.nome(id));
+            }
+            buffer.anexar(pedaco.buffer, linha - 1, mapaNomes);
+            for (int linhaComErro : pedaco.linhasComErro) {
+                reportarErroLexico(linhaComErro + linha - 1);
+            }
+            linha += pedaco.linha - 1;
+        }
+        buffer.adicionar(TokenType.FIM_ARQUIVO, comprimento, 0, linha, -1);
+        return buffer;
+    }
+
+    /**
+     * Posição logo após o primeiro '\n' a partir de posicao (ou o fim da fonte).
+     */
+    private static int proximoInicioDeLinha(FonteComAcessoAleatorio fonte, int posicao) {
+        int comprimento = fonte.comprimento();
+        while (posicao < comprimento) {
+            if (fonte.unidadeNaPosicao(posicao++) == '\n') {
+                return posicao;
+            }
+        }
+        return comprimento;
     }
 
     private int indiceAtualToken = 0;
 
+    @Override
     public Token obterProximoToken() {
-        if (tokens.isEmpty()) {
-            escanearTokens();
+        if (buffer == null) {
+            if (streaming) {
+                return escanearProximoToken();
+            }
+            escanearBuffer();
+        }
+        if (indiceAtualToken < buffer.tamanho()) {
+            return buffer.token(indiceAtualToken++);
         }
-        if (indiceAtualToken < tokens.size()) {
-            return tokens.get(indiceAtualToken++);
+        return buffer.token(buffer.tamanho() - 1);
+    }
+
+    private Token escanearProximoToken() {
+        while (!isAtEnd()) {
+            fonte.marcarInicio();
+            escanearToken();
+            if (tokenLido != null) {
+                Token token = tokenLido;
+                tokenLido = null;
+                return token;
+            }
         }
-        return tokens.get(tokens.size() - 1);
+        return new Token(TokenType.FIM_ARQUIVO, "", linha);
     }
 
     private boolean isAtEnd() {
-        return atual >= fonte.length();
+        return fonte.isAtEnd();
     }
 
     private void escanearToken() {
@@ -95,15 +271,17 @@ public class LexicalAnalyzer {
             case ' ':
             case '\r':
             case '\t':
-                break; // ignorar espaços
+                linha += fonte.pularEspacos(); // ignorar espaços
+                break;
             case '\n':
                 linha++;
+                linha += fonte.pularEspacos();
                 break;
             case '/': adicionarToken(TokenType.DIVISAO); break;
             default:
-                if (Character.isDigit(c)) {
+                if (TabelaDeCaracteres.ehDigito(c)) {
                     numero();
-                } else if (Character.isLetter(c)) {
+                } else if (TabelaDeCaracteres.ehLetra(c)) {
                     identificador();
                 } else {
                     adicionarToken(TokenType.ERRO);
@@ -112,12 +290,10 @@ public class LexicalAnalyzer {
     }
 
     private void numero() {
-        while (Character.isDigit(peek())) avancar();
+        fonte.pularDigitos();
 
-        if (Character.isLetter(peek()) || peek() == '_') {
-            while (Character.isLetterOrDigit(peek()) || peek() == '_') {
-                avancar();
-            }
+        if (TabelaDeCaracteres.ehLetra(peek()) || peek() == '_') {
+            fonte.pularIdentificador();
             adicionarToken(TokenType.ERRO);
         } else {
             adicionarToken(TokenType.NUMERO);
@@ -125,36 +301,65 @@ public class LexicalAnalyzer {
     }
 
     private void identificador() {
-        while (Character.isLetterOrDigit(peek()) || peek() == '_') avancar();
-        String texto = fonte.substring(inicio, atual);
-        TokenType tipo = palavrasReservadas.getOrDefault(texto, TokenType.ID);
+        fonte.pularIdentificador();
+        TokenType tipo = PalavrasReservadas.buscar(fonte, fonte.posicaoInicio(), fonte.posicaoAtual());
         adicionarToken(tipo);
     }
 
     private char avancar() {
-        return fonte.charAt(atual++);
+        return fonte.avancar();
     }
 
     private boolean nextToken(char esperado) {
-        if (isAtEnd()) return false;
-        if (fonte.charAt(atual) != esperado) return false;
-        atual++;
-        return true;
+        return fonte.nextToken(esperado);
     }
 
     private char peek() {
-        if (isAtEnd()) return '\0';
-        return fonte.charAt(atual);
+        return fonte.peek();
     }
 
     private void adicionarToken(TokenType tipo) {
         if (tipo == null || tipo == TokenType.ERRO) {
-            System.err.println("Erro léxico na linha " + linha);
-            hasErrors = true;
+            reportarErroLexico(linha);
             return;
         }
-        String texto = fonte.substring(inicio, atual);
-        tokens.add(new Token(tipo, texto, linha));
+        int inicio = fonte.posicaoInicio();
+        int idNome = tipo == TokenType.ID ? fonte.internar(nomes, inicio, fonte.posicaoAtual()) : -1;
+        if (buffer != null) {
+            buffer.adicionar(tipo, inicio, fonte.posicaoAtual() - inicio, linha, idNome);
+            return;
+        }
+        String lexema = lexemaFixo(tipo);
+        if (lexema == null) {
+            lexema = idNome >= 0 ? nomes.nome(idNome) : fonte.lexema();
+        }
+        tokenLido = new Token(tipo, lexema, linha, idNome);
+    }
+
+    private void reportarErroLexico(int linhaDoErro) {
+        hasErrors = true;
+        if (linhasComErro != null) {
+            linhasComErro.add(linhaDoErro);
+        } else if (ouvinteDeErros != null) {
+            ouvinteDeErros.accept(linhaDoErro);
+        } else {
+            System.err.println("Erro léxico na linha " + linhaDoErro);
+        }
+    }
+
+    /**
+     * Faz os erros léxicos serem entregues ao ouvinte (com a linha do erro) em vez de impressos.
+     * No modo pipeline o ouvinte é chamado na thread do léxico.
+     */
+    public void setOuvinteDeErros(IntConsumer ouvinte) {
+        this.ouvinteDeErros = ouvinte;
+    }
+
+    /**
+     * Nomes dos identificadores encontrados até agora.
+     */
+    public TabelaDeNomes getNomes() {
+        return nomes;
     }
 
     public boolean getHasErrors() {
@@ -0,0 +1,95 @@
+package LexicalAnalyzer;
+
+/**
+ * Reconhecimento de palavras reservadas por hash perfeito sobre (primeiro caractere,
+ * último caractere, comprimento), comparando direto com o texto da fonte, sem criar String.
+ */
+final class PalavrasReservadas {
+    private static final int TAMANHO_TABELA = 32;
+
+    private static final String[] palavras = new String[TAMANHO_TABELA];
+    private static final TokenType[] tipos = new TokenType[TAMANHO_TABELA];
+    private static final int maiorComprimento;
+
+    static {
+        registrar("programa", TokenType.PROGRAMA);
+        registrar("var", TokenType.VAR);
+        registrar("inteiro", TokenType.INTEIRO);
+        registrar("booleano", TokenType.BOOLEANO);
+        registrar("procedimento", TokenType.PROCEDIMENTO);
+        registrar("funcao", TokenType.FUNCAO);
+        registrar("inicio", TokenType.INICIO);
+        registrar("fim", TokenType.FIM);
+        registrar("se", TokenType.SE);
+        registrar("entao", TokenType.ENTAO);
+        registrar("senao", TokenType.SENAO);
+        registrar("enquanto", TokenType.ENQUANTO);
+        registrar("faca", TokenType.FACA);
+        registrar("escreva", TokenType.ESCREVA);
+        registrar("retorno", TokenType.RETORNO);
+        registrar("break", TokenType.BREAK);
+        registrar("continue", TokenType.CONTINUE);
+        registrar("verdadeiro", TokenType.VERDADEIRO);
+        registrar("falso", TokenType.FALSO);
+        registrar("nao", TokenType.NAO);
+        registrar("ou", TokenType.OU);
+        registrar("e", TokenType.E);
+
+        int maior = 0;
+        for (String palavra : palavras) {
+            if (palavra != null) maior = Math.max(maior, palavra.length());
+        }
+        maiorComprimento = maior;
+    }
+
+    private PalavrasReservadas() {
+    }
+
+    private static void registrar(String palavra, TokenType tipo) {
+        int h = hash(palavra.charAt(0), palavra.charAt(palavra.length() - 1), palavra.length());
+        if (palavras[h] != null) {
+            // A função de hash precisa ser ajustada se uma palavra nova colidir.
+            throw new IllegalStateException("Colisão entre as palavras reservadas '" + palavras[h] + "' e '" + palavra + "'");
+        }
+        palavras[h] = palavra;
+        tipos[h] = tipo;
+    }
+
+    private static int hash(int primeiro, int ultimo, int comprimento) {
+        return (primeiro * 26 + ultimo * 3 + comprimento) & (TAMANHO_TABELA - 1);
+    }
+
+    /**
+     * Tipo do token formado pelo texto da fonte entre inicio e fim: a palavra reservada
+     * correspondente ou TokenType.ID.
+     */
+    static TokenType buscar(Fonte fonte, int inicio, int fim) {
+        int comprimento = fim - inicio;
+        if (comprimento > maiorComprimento) {
+            return TokenType.ID;
+        }
+        int h = hash(fonte.unidadeEm(inicio), fonte.unidadeEm(fim - 1), comprimento);
+        String palavra = palavras[h];
+        if (palavra == null || palavra.length() != comprimento) {
+            return TokenType.ID;
+        }
+        for (int i = 0; i < comprimento; i++) {
+            if (fonte.unidadeEm(inicio + i) != palavra.charAt(i)) {
+                return TokenType.ID;
+            }
+        }
+        return tipos[h];
+    }
+
+    /**
+     * Texto da palavra reservada do tipo, ou null se o tipo não é uma palavra reservada.
+     */
+    static String palavra(TokenType tipo) {
+        for (int i = 0; i < TAMANHO_TABELA; i++) {
+            if (tipos[i] == tipo) {
+                return palavras[i];
+            }
+        }
+        return null;
+    }
+}
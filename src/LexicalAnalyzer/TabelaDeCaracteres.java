@@ -0,0 +1,41 @@
+package LexicalAnalyzer;
+
+/**
+ * Classificação de caracteres por tabela para o caso ASCII.
+ * Caracteres fora do ASCII continuam sendo classificados por Character.
+ */
+final class TabelaDeCaracteres {
+    static final byte OUTRO = 0;
+    static final byte DIGITO = 1;
+    static final byte LETRA = 2;
+    static final byte SUBLINHADO = 3;
+
+    private static final byte[] CLASSES = new byte[256];
+    static {
+        for (int c = '0'; c <= '9'; c++) CLASSES[c] = DIGITO;
+        for (int c = 'a'; c <= 'z'; c++) CLASSES[c] = LETRA;
+        for (int c = 'A'; c <= 'Z'; c++) CLASSES[c] = LETRA;
+        CLASSES['_'] = SUBLINHADO;
+    }
+
+    private TabelaDeCaracteres() {
+    }
+
+    static boolean ehDigito(char c) {
+        if (c < 128) return CLASSES[c] == DIGITO;
+        return Character.isDigit(c);
+    }
+
+    static boolean ehLetra(char c) {
+        if (c < 128) return CLASSES[c] == LETRA;
+        return Character.isLetter(c);
+    }
+
+    /**
+     * Letra, dígito ou '_'.
+     */
+    static boolean ehParteDeIdentificador(char c) {
+        if (c < 128) return CLASSES[c] != OUTRO;
+        return Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,107 @@
+package LexicalAnalyzer;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto dos identificadores distintos do programa.
+ * Cada nome é guardado uma única vez e recebe um número sequencial (0, 1, 2, ...),
+ * usado no lugar do texto pelo léxico, pelo parser e pela tabela de símbolos.
+ */
+public class TabelaDeNomes {
+    private static final int VAZIO = -1;
+
+    private String[] nomes = new String[64];
+    private int[] hashes = new int[64];
+    private int quantidade = 0;
+
+    // Endereçamento aberto: cada posição guarda o número do nome ou VAZIO.
+    private int[] tabela = novaTabela(128);
+
+    private static int[] novaTabela(int tamanho) {
+        int[] tabela = new int[tamanho];
+        Arrays.fill(tabela, VAZIO);
+        return tabela;
+    }
+
+    public int quantidade() {
+        return quantidade;
+    }
+
+    public String nome(int id) {
+        return nomes[id];
+    }
+
+    /**
+     * Número do nome, inserindo-o se ainda não existir.
+     */
+    public int internar(String nome) {
+        int hash = nome.hashCode();
+        int posicao = posicaoInicial(hash);
+        while (tabela[posicao] != VAZIO) {
+            int id = tabela[posicao];
+            if (hashes[id] == hash && nomes[id].equals(nome)) {
+                return id;
+            }
+            posicao = (posicao + 1) & (tabela.length - 1);
+        }
+        return inserir(nome, hash, posicao);
+    }
+
+    /**
+     * Número do nome entre as posições inicio e fim da fonte, comparando direto
+     * com o texto da fonte; só cria a String na primeira vez que o nome aparece.
+     */
+    int internar(Fonte fonte, int inicio, int fim) {
+        int hash = 0;
+        for (int i = inicio; i < fim; i++) {
+            hash = 31 * hash + fonte.unidadeEm(i);
+        }
+        int posicao = posicaoInicial(hash);
+        while (tabela[posicao] != VAZIO) {
+            int id = tabela[posicao];
+            if (hashes[id] == hash && mesmoTexto(nomes[id], fonte, inicio, fim)) {
+                return id;
+            }
+            posicao = (posicao + 1) & (tabela.length - 1);
+        }
+        return inserir(fonte.trecho(inicio, fim), hash, posicao);
+    }
+
+    private int posicaoInicial(int hash) {
+        return (hash ^ (hash >>> 16)) & (tabela.length - 1);
+    }
+
+    private static boolean mesmoTexto(String nome, Fonte fonte, int inicio, int fim) {
+        if (nome.length() != fim - inicio) return false;
+        for (int i = 0; i < nome.length(); i++) {
+            if (nome.charAt(i) != fonte.unidadeEm(inicio + i)) return false;
+        }
+        return true;
+    }
+
+    private int inserir(String nome, int hash, int posicao) {
+        if (quantidade == nomes.length) {
+            nomes = Arrays.copyOf(nomes, quantidade * 2);
+            hashes = Arrays.copyOf(hashes, quantidade * 2);
+        }
+        int id = quantidade++;
+        nomes[id] = nome;
+        hashes[id] = hash;
+        tabela[posicao] = id;
+        if (quantidade * 2 > tabela.length) {
+            redimensionar();
+        }
+        return id;
+    }
+
+    private void redimensionar() {
+        tabela = novaTabela(tabela.length * 2);
+        for (int id = 0; id < quantidade; id++) {
+            int posicao = posicaoInicial(hashes[id]);
+            while (tabela[posicao] != VAZIO) {
+                posicao = (posicao + 1) & (tabela.length - 1);
+            }
+            tabela[posicao] = id;
+        }
+    }
+}
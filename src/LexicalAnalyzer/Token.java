@@ -4,11 +4,17 @@ public class Token {
     public final TokenType type;
     public final String lexeme;
     public final int line;
+    public final int nameId; // número do nome na TabelaDeNomes (só para ID; -1 nos demais)
 
     public Token(TokenType type, String lexeme, int line) {
+        this(type, lexeme, line, -1);
+    }
+
+    public Token(TokenType type, String lexeme, int line, int nameId) {
         this.type = type;
         this.lexeme = lexeme;
         this.line = line;
+        this.nameId = nameId;
     }
 
     @Override
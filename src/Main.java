@@ -1,34 +1,309 @@
-import LexicalAnalyzer.LexicalAnalyzer;
-import SintaticoAnalyzer.ErroSemanticoException;
-import SintaticoAnalyzer.ErroSintaticoException;
-import SintaticoAnalyzer.Parser;
+import Compilador.CacheDeCompilacao;
+import Compilador.ClienteDeCompilacao;
+import Compilador.Compilador;
+import Compilador.CompiladorEmLote;
+import Compilador.ObservadorDeArquivo;
+import Compilador.ResultadoDaCompilacao;
+import Compilador.ServidorDeCompilacao;
+import GeradorCodigo.CodigoBinario;
+import GeradorCodigo.DestinoDeQuadruplas;
+import GeradorCodigo.ListagemEmCanal;
+import Otimizacao.GrafoDeFluxo;
+import Otimizacao.Otimizador;
+import SintaticoAnalyzer.Diagnosticos;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
-        String caminhoArquivo = "testes/exemplo.txt";
+        List<String> entradas = new ArrayList<>();
+        boolean pipeline = false;
+        boolean paralelo = false;
+        boolean lote = false;
+        boolean verificar = false;
+        boolean servidor = false;
+        boolean cliente = false;
+        boolean observar = false;
+        boolean fluxo = false;
+        boolean otimizar = false;
+        Path arquivoDeSaida = null;
+        Path binarioGerado = null;
+        Path binarioLido = null;
+        Path grafo = null;
+        Path socket = ServidorDeCompilacao.socketPadrao();
+        Path diretorioCache = null;
+        long tamanhoCache = 256L * 1024 * 1024;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxErros = Diagnosticos.LIMITE_PADRAO;
+        for (String arg : args) {
+            if (arg.equals("--pipeline")) {
+                pipeline = true;
+            } else if (arg.equals("--paralelo")) {
+                paralelo = true;
+            } else if (arg.equals("--lote")) {
+                lote = true;
+            } else if (arg.equals("--verificar")) {
+                verificar = true;
+            } else if (arg.equals("--servidor")) {
+                servidor = true;
+            } else if (arg.equals("--cliente")) {
+                cliente = true;
+            } else if (arg.equals("--observar")) {
+                observar = true;
+            } else if (arg.equals("--fluxo")) {
+                fluxo = true;
+            } else if (arg.equals("-O")) {
+                otimizar = true;
+            } else if (arg.startsWith("--saida=")) {
+                arquivoDeSaida = Paths.get(arg.substring("--saida=".length()));
+            } else if (arg.startsWith("--gerar-binario=")) {
+                binarioGerado = Paths.get(arg.substring("--gerar-binario=".length()));
+            } else if (arg.startsWith("--grafo=")) {
+                grafo = Paths.get(arg.substring("--grafo=".length()));
+            } else if (arg.startsWith("--ler-binario=")) {
+                binarioLido = Paths.get(arg.substring("--ler-binario=".length()));
+            } else if (arg.startsWith("--socket=")) {
+                socket = Paths.get(arg.substring("--socket=".length()));
+            } else if (arg.equals("--cache")) {
+                diretorioCache = CacheDeCompilacao.diretorioPadrao();
+            } else if (arg.startsWith("--cache=")) {
+                diretorioCache = Paths.get(arg.substring("--cache=".length()));
+            } else if (arg.startsWith("--cache-max-mb=")) {
+                tamanhoCache = numeroDaOpcao(arg, "--cache-max-mb=", 1, Long.MAX_VALUE / (1024 * 1024)) * 1024 * 1024;
+            } else if (arg.startsWith("--threads=")) {
+                threads = (int) numeroDaOpcao(arg, "--threads=", 1, Integer.MAX_VALUE);
+            } else if (arg.startsWith("--max-erros=")) {
+                maxErros = (int) numeroDaOpcao(arg, "--max-erros=", 1, Integer.MAX_VALUE);
+            } else {
+                entradas.add(arg);
+            }
+        }
+        Compilador compilador = new Compilador(maxErros, pipeline, paralelo);
+        CacheDeCompilacao cache = null;
+        if (diretorioCache != null) {
+            // Resultados já compilados são lidos do disco, sem passar pelas fases de análise.
+            try {
+                cache = new CacheDeCompilacao(diretorioCache, tamanhoCache);
+                compilador.setCache(cache);
+            } catch (IOException e) {
+                System.err.println("Cache desativado: " + e.getMessage());
+            }
+        }
 
-        try {
-            String codigoFonte = new String(Files.readAllBytes(Paths.get(caminhoArquivo)));
+        if (binarioLido != null) {
+            // Lista um código já compilado, mapeando o arquivo binário em vez de compilar.
+            if (otimizar) {
+                System.err.println("-O ignorado com --ler-binario: o código é listado como foi gravado");
+            }
+            System.exit(listarBinario(binarioLido));
+        }
+        if (lote) {
+            // Vários arquivos (diretórios, globs ou @lista) compilados ao mesmo tempo.
+            if (otimizar) {
+                System.err.println("-O ignorado com --lote: a compilação em lote não otimiza o código");
+            }
+            System.exit(compilarEmLote(compilador, cache, entradas, threads, verificar));
+        }
+        if (servidor) {
+            // JVM de longa duração que atende pedidos de compilação pelo socket.
+            if (otimizar) {
+                System.err.println("-O ignorado com --servidor: o servidor responde com o código sem otimizar");
+            }
+            System.exit(executarServidor(socket, cache, pipeline, paralelo, threads));
+        }
 
+        String caminhoArquivo = entradas.isEmpty() ? "testes/exemplo.txt" : entradas.get(entradas.size() - 1);
+        if (observar) {
+            // Recompila a cada vez que o arquivo muda, só as sub-rotinas alteradas.
+            if (otimizar) {
+                System.err.println("-O ignorado com --observar: a recompilação incremental não otimiza o código");
+            }
+            System.exit(observar(Paths.get(caminhoArquivo), arquivoDeSaida, compilador, verificar));
+        }
+        try {
+            if (cliente) {
+                // Usa o servidor de compilação se houver um no ar; senão compila aqui mesmo.
+                if (otimizar) {
+                    System.err.println("-O ignorado com --cliente: o servidor responde com o código sem otimizar");
+                }
+                compilarNoServidor(compilador, Paths.get(caminhoArquivo), socket, maxErros);
+                return;
+            }
+            if (fluxo) {
+                // O código é escrito enquanto é gerado, sem ficar inteiro na memória.
+                if (otimizar) {
+                    System.err.println("-O ignorado com --fluxo: o código não fica na memória para ser otimizado");
+                }
+                compilarEmFluxo(compilador, Paths.get(caminhoArquivo), binarioGerado);
+                return;
+            }
             // Fases de Análise e Geração de Código Intermediário
-            LexicalAnalyzer lexer = new LexicalAnalyzer(codigoFonte);
-            Parser parser = new Parser(lexer);
-            parser.parse();
-            System.out.println("Análise concluída com sucesso!");
+            ResultadoDaCompilacao resultado = compilador.compilar(Paths.get(caminhoArquivo));
+            if (resultado.sucesso() && otimizar) {
+                Otimizador.otimizar(resultado.gerador);
+            }
+            if (resultado.sucesso()) {
+                resultado.gerador.enviar(ResultadoDaCompilacao.listagem(saidaPadrao()));
+            } else {
+                System.err.print(resultado.comoTexto());
+            }
+            if (resultado.sucesso() && binarioGerado != null) {
+                CodigoBinario.gravar(resultado.gerador, binarioGerado);
+            }
+            if (resultado.sucesso() && grafo != null) {
+                // O grafo de fluxo de controle, para o Graphviz (dot -Tsvg).
+                Files.writeString(grafo, new GrafoDeFluxo(resultado.gerador).comoDot(), StandardCharsets.UTF_8);
+            }
+        } catch (Exception e) {
+            System.err.println("Ocorreu um erro inesperado: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * O código gerado vai para a saída padrão; os erros, para a saída de erros.
+     */
+    private static void imprimir(boolean sucesso, String texto) {
+        if (sucesso) {
+            System.out.print(texto);
+        } else {
+            System.err.print(texto);
+        }
+    }
+
+    /**
+     * A saída padrão como canal: a listagem vai em blocos grandes direto para o descritor, sem
+     * passar pelo buffer do System.out (que é esvaziado antes).
+     */
+    private static WritableByteChannel saidaPadrao() {
+        System.out.flush();
+        return new FileOutputStream(FileDescriptor.out).getChannel();
+    }
+
+    private static void compilarEmFluxo(Compilador compilador, Path arquivo, Path binario) throws IOException {
+        DestinoDeQuadruplas listagem = ResultadoDaCompilacao.listagem(saidaPadrao());
+        try (CodigoBinario.Gravador gravador = binario == null ? null : CodigoBinario.gravador(binario)) {
+            ResultadoDaCompilacao resultado = compilador.compilar(arquivo,
+                    gravador == null ? listagem : DestinoDeQuadruplas.emSerie(listagem, gravador));
+            if (!resultado.sucesso()) {
+                System.err.print(resultado.comoTexto());
+            }
+        }
+    }
+
+    /**
+     * O valor numérico de uma opção "--nome=valor". Um valor que não é número ou está fora de
+     * [minimo, maximo] termina o programa com erro de uso.
+     */
+    private static long numeroDaOpcao(String arg, String prefixo, long minimo, long maximo) {
+        String texto = arg.substring(prefixo.length());
+        try {
+            long valor = Long.parseLong(texto);
+            if (valor >= minimo && valor <= maximo) {
+                return valor;
+            }
+        } catch (NumberFormatException e) {
+            // Cai no erro de uso abaixo.
+        }
+        System.err.println("Valor inválido para " + prefixo.substring(0, prefixo.length() - 1) + ": '" + texto
+                + "' (esperado um inteiro de " + minimo + " a " + maximo + ")");
+        System.exit(2);
+        return minimo;
+    }
 
-            parser.getGerador().imprimirCodigo();
+    private static int listarBinario(Path arquivo) {
+        try {
+            CodigoBinario.abrir(arquivo).enviar(new ListagemEmCanal(saidaPadrao()));
+            return 0;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            return 1;
+        }
+    }
 
+    private static void compilarNoServidor(Compilador compilador, Path arquivo, Path socket, int maxErros) {
+        byte[] programa;
+        try {
+            programa = Files.readAllBytes(arquivo);
         } catch (IOException e) {
             System.err.println("Erro ao ler o arquivo: " + e.getMessage());
-        } catch (ErroSintaticoException | ErroSemanticoException e) {
-            System.err.println(e.getMessage());
+            return;
+        }
+        try (ClienteDeCompilacao conexao = ClienteDeCompilacao.conectar(socket)) {
+            if (conexao != null) {
+                ClienteDeCompilacao.Resposta resposta = conexao.compilar(programa, maxErros);
+                imprimir(resposta.sucesso, resposta.texto);
+                return;
+            }
+        } catch (IOException e) {
+            // O servidor caiu no meio do pedido: compila no próprio processo.
+        }
+        ResultadoDaCompilacao resultado = compilador.compilar(arquivo.toString(), ByteBuffer.wrap(programa));
+        imprimir(resultado.sucesso(), resultado.comoTexto());
+    }
+
+    private static int observar(Path arquivo, Path saida, Compilador compilador, boolean verificar) {
+        try {
+            new ObservadorDeArquivo(arquivo, saida, compilador, verificar).executar();
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Não foi possível observar o arquivo: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            return 0;
+        }
+    }
+
+    private static int executarServidor(Path socket, CacheDeCompilacao cache, boolean pipeline, boolean paralelo,
+                                        int threads) {
+        ServidorDeCompilacao servidor = new ServidorDeCompilacao(socket, pipeline, paralelo, threads);
+        servidor.setCache(cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(servidor::close));
+        try {
+            servidor.abrir();
+            servidor.aquecer(500);
+            System.out.println("Servidor de compilação ouvindo em " + socket);
+            servidor.executar();
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Não foi possível iniciar o servidor: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int compilarEmLote(Compilador compilador, CacheDeCompilacao cache, List<String> entradas,
+                                      int threads, boolean verificar) {
+        try {
+            List<Path> arquivos = CompiladorEmLote.coletarArquivos(entradas);
+            CompiladorEmLote lote = new CompiladorEmLote(compilador, threads);
+            if (verificar) {
+                return lote.verificarContraSerial(arquivos, System.out) == 0 ? 0 : 1;
+            }
+            long inicio = System.nanoTime();
+            List<ResultadoDaCompilacao> resultados = lote.compilar(arquivos);
+            CompiladorEmLote.relatar(resultados, System.nanoTime() - inicio, threads, System.out);
+            if (cache != null) {
+                System.out.printf("cache: %d acertos, %d faltas%n", cache.getAcertos(), cache.getFaltas());
+            }
+            for (ResultadoDaCompilacao resultado : resultados) {
+                if (!resultado.sucesso()) return 1;
+            }
+            return 0;
         } catch (Exception e) {
             System.err.println("Ocorreu um erro inesperado: " + e.getMessage());
             e.printStackTrace();
+            return 2;
         }
     }
-}
\ No newline at end of file
+}
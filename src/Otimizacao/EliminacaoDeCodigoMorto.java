@@ -0,0 +1,335 @@
+package Otimizacao;
+
+import GeradorCodigo.GeradorDeCodigo;
+import GeradorCodigo.Operacao;
+import GeradorCodigo.Operando;
+import SemanticsAnalyzer.Endereco;
+
+import java.util.Arrays;
+
+/**
+ * Tira do código o que nunca executa ou não muda nada: os blocos inalcançáveis (o que vem
+ * depois de um break, continue ou retorno, e os ramos que a propagação de constantes fechou),
+ * os desvios para a quádrupla seguinte, os rótulos que nenhum desvio usa e as quádruplas sem
+ * efeito colateral cujo resultado ninguém lê. O resultado não lido de uma chamada é descartado,
+ * mas a chamada fica.
+ *
+ * As atribuições a variáveis usam uma análise de vivacidade em cada sub-rotina: ao sair dela
+ * só as variáveis que não são do seu quadro podem ser lidas, e uma chamada pode ler qualquer
+ * variável. Os temporários só são lidos no bloco em que são calculados. Uma divisão só sai se
+ * o divisor é uma constante diferente de zero, para não sumir com uma divisão por zero.
+ */
+public class EliminacaoDeCodigoMorto {
+    // Acima disso (blocos × variáveis de uma sub-rotina), as atribuições a variáveis da sub-rotina ficam.
+    private static final long LIMITE_DO_ESTADO = 1L << 26;
+
+    private final GeradorDeCodigo codigo;
+    private GrafoDeFluxo grafo;
+    private boolean[] retiradas;
+    private int alteradas = 0;
+
+    private int[] indiceDaVariavel;             // variável -> bit no conjunto da sub-rotina, ou -1
+    private int palavras;                       // longs por conjunto
+    private long[] vivasNaEntrada;              // por bloco local
+    private long[] vivasNaSaidaDaSubRotina;
+    private long[] vivas;
+    private int[] localDoBloco;
+    private int[] subRotinaDoBloco;             // -1 nos blocos inalcançáveis
+    private boolean[] pendentes;                // sub-rotinas a analisar (de novo)
+    private int[] leituraDoTemporario;          // o temporário é lido mais adiante se igual à visita atual
+    private int visita = 0;
+
+    public EliminacaoDeCodigoMorto(GeradorDeCodigo codigo) {
+        this.codigo = codigo;
+    }
+
+    /**
+     * Otimiza o código no lugar. Devolve quantas quádruplas foram alteradas ou retiradas.
+     */
+    public int otimizar() {
+        grafo = new GrafoDeFluxo(codigo);
+        int quantidade = codigo.tamanho();
+        retiradas = new boolean[quantidade];
+        int maiorVariavel = -1;
+        int maiorTemporario = -1;
+        for (int i = 0; i < quantidade; i++) {
+            for (int operando : new int[]{codigo.arg1(i), codigo.arg2(i), codigo.resultado(i)}) {
+                if (operando == Operando.NENHUM) continue;
+                if (Operando.ehVariavel(operando)) maiorVariavel = Math.max(maiorVariavel, Operando.valor(operando));
+                if (Operando.ehTemporario(operando)) maiorTemporario = Math.max(maiorTemporario, Operando.valor(operando));
+            }
+        }
+        indiceDaVariavel = new int[maiorVariavel + 1];
+        Arrays.fill(indiceDaVariavel, -1);
+        leituraDoTemporario = new int[maiorTemporario + 1];
+        localDoBloco = new int[grafo.quantidadeBlocos()];
+
+        for (int b = 0; b < grafo.quantidadeBlocos(); b++) {
+            if (!grafo.alcancavel(b)) {
+                for (int i = grafo.inicio(b); i < grafo.fim(b); i++) {
+                    retirar(i);
+                }
+            }
+        }
+
+        // Os blocos de cada sub-rotina são contíguos na ordem do grafo, começando pela raiz.
+        int alcancaveis = grafo.quantidadeAlcancaveis();
+        int[] inicioDaSubRotina = new int[grafo.quantidadeRaizes() + 1];
+        int subRotinas = 0;
+        subRotinaDoBloco = new int[grafo.quantidadeBlocos()];
+        Arrays.fill(subRotinaDoBloco, -1);
+        for (int k = 0; k < alcancaveis; k++) {
+            if (grafo.ehRaiz(grafo.naOrdem(k))) {
+                inicioDaSubRotina[subRotinas++] = k;
+            }
+            subRotinaDoBloco[grafo.naOrdem(k)] = subRotinas - 1;
+        }
+        inicioDaSubRotina[subRotinas] = alcancaveis;
+        pendentes = new boolean[subRotinas];
+        Arrays.fill(pendentes, true);
+        retirarDesviosParaASeguinte();
+
+        // Tirar um if_false deixa de ler a condição, e tirar atribuições pode deixar um desvio
+        // apontando para a quádrupla seguinte: repete nas sub-rotinas onde isso acontecer.
+        // Esses desvios não mudam o fluxo, então o grafo continua valendo.
+        int[] profundidadeDaEntrada = profundidadesDasSubRotinas();
+        do {
+            for (int s = 0; s < subRotinas; s++) {
+                if (pendentes[s]) {
+                    pendentes[s] = false;
+                    int raiz = grafo.inicio(grafo.naOrdem(inicioDaSubRotina[s]));
+                    int profundidade = codigo.operacao(raiz) == Operacao.ENTRADA ? profundidadeDaEntrada[raiz] : 0;
+                    analisar(inicioDaSubRotina[s], inicioDaSubRotina[s + 1], profundidade);
+                }
+            }
+        } while (retirarDesviosParaASeguinte());
+
+        retirarRotulosSemUso();
+        codigo.compactar();
+        return alteradas;
+    }
+
+    // Um desvio cujo destino é a próxima quádrupla que fica (passando só por rótulos) não faz nada.
+    private boolean retirarDesviosParaASeguinte() {
+        boolean retirou = false;
+        int quantidade = codigo.tamanho();
+        for (int i = 0; i < quantidade; i++) {
+            Operacao operacao = codigo.operacao(i);
+            if (retiradas[i] || (operacao != Operacao.DESVIO && operacao != Operacao.DESVIO_SE_FALSO)) {
+                continue;
+            }
+            int destino = codigo.destino(i);
+            int j = i + 1;
+            while (j < destino && (retiradas[j] || codigo.operacao(j) == Operacao.ROTULO)) {
+                j++;
+            }
+            if (j == destino) {
+                retirar(i);
+                int subRotina = subRotinaDoBloco[grafo.bloco(i)];
+                if (subRotina >= 0) {
+                    pendentes[subRotina] = true;
+                }
+                retirou = true;
+            }
+        }
+        return retirou;
+    }
+
+    // Profundidade do quadro de cada sub-rotina, indexada pela posição da sua ENTRADA.
+    private int[] profundidadesDasSubRotinas() {
+        int[] profundidade = new int[codigo.tamanho()];
+        long[] subRotinas = new long[codigo.quantidadeCorpos()];   // entrada << 32 | início do corpo
+        int quantidade = 0;
+        for (int k = 0; k < codigo.quantidadeCorpos(); k++) {
+            if (codigo.entradaDoCorpo(k) >= 0) {
+                subRotinas[quantidade++] = (long) codigo.entradaDoCorpo(k) << 32 | codigo.inicioDoCorpo(k);
+            }
+        }
+        Arrays.sort(subRotinas, 0, quantidade);
+        // As sub-rotinas aninhadas ficam entre a ENTRADA e o corpo da que as contém.
+        int[] pilha = new int[quantidade];
+        int topo = 0;
+        for (int k = 0; k < quantidade; k++) {
+            int entrada = (int) (subRotinas[k] >>> 32);
+            while (topo > 0 && (int) subRotinas[pilha[topo - 1]] <= entrada) {
+                topo--;
+            }
+            profundidade[entrada] = topo + 1;
+            pilha[topo++] = k;
+        }
+        return profundidade;
+    }
+
+    private void analisar(int inicio, int fim, int profundidade) {
+        int blocos = fim - inicio;
+        int[] rastreadas = new int[16];
+        int quantidadeRastreadas = 0;
+        for (int k = inicio; k < fim; k++) {
+            int b = grafo.naOrdem(k);
+            localDoBloco[b] = k - inicio;
+            for (int i = grafo.inicio(b); i < grafo.fim(b); i++) {
+                for (int operando : new int[]{codigo.arg1(i), codigo.arg2(i), codigo.resultado(i)}) {
+                    if (operando != Operando.NENHUM && Operando.ehVariavel(operando)
+                            && indiceDaVariavel[Operando.valor(operando)] < 0) {
+                        if (quantidadeRastreadas == rastreadas.length) {
+                            rastreadas = Arrays.copyOf(rastreadas, quantidadeRastreadas * 2);
+                        }
+                        rastreadas[quantidadeRastreadas] = Operando.valor(operando);
+                        indiceDaVariavel[Operando.valor(operando)] = quantidadeRastreadas++;
+                    }
+                }
+            }
+        }
+        palavras = (quantidadeRastreadas + 63) >>> 6;
+        boolean todasVivas = (long) blocos * palavras * 64 > LIMITE_DO_ESTADO;
+        vivasNaSaidaDaSubRotina = new long[palavras];
+        for (int v = 0; v < quantidadeRastreadas; v++) {
+            int endereco = codigo.endereco(Operando.de(Operando.VARIAVEL, rastreadas[v]));
+            if (todasVivas || Endereco.profundidade(endereco) != profundidade) {
+                vivasNaSaidaDaSubRotina[v >>> 6] |= 1L << v;
+            }
+        }
+        vivas = new long[palavras];
+        vivasNaEntrada = new long[todasVivas ? 0 : blocos * palavras];
+
+        // Vivacidade até estabilizar, partindo de nada vivo; depois uma passada retirando. Como
+        // o que uma quádrupla morta lê não conta como lido, uma passada basta.
+        if (!todasVivas) {
+            boolean mudou = true;
+            while (mudou) {
+                mudou = false;
+                for (int k = fim - 1; k >= inicio; k--) {
+                    passar(grafo.naOrdem(k), false);
+                    mudou |= guardar(k - inicio);
+                }
+            }
+        }
+        for (int k = inicio; k < fim; k++) {
+            passar(grafo.naOrdem(k), true);
+        }
+        for (int v = 0; v < quantidadeRastreadas; v++) {
+            indiceDaVariavel[rastreadas[v]] = -1;
+        }
+    }
+
+    private boolean guardar(int local) {
+        boolean mudou = false;
+        for (int w = 0, base = local * palavras; w < palavras; w++) {
+            if (vivasNaEntrada[base + w] != vivas[w]) {
+                vivasNaEntrada[base + w] = vivas[w];
+                mudou = true;
+            }
+        }
+        return mudou;
+    }
+
+    // Percorre o bloco de trás para frente a partir das variáveis vivas na saída (as da saída da
+    // sub-rotina, se ele não tem sucessores), deixando em vivas as da entrada; com retirar, também
+    // tira as quádruplas mortas.
+    private void passar(int b, boolean retirar) {
+        System.arraycopy(vivasNaSaidaDaSubRotina, 0, vivas, 0, palavras);
+        if (vivasNaEntrada.length > 0 && grafo.quantidadeSucessores(b) > 0) {
+            Arrays.fill(vivas, 0);
+            for (int k = 0; k < grafo.quantidadeSucessores(b); k++) {
+                int base = localDoBloco[grafo.sucessor(b, k)] * palavras;
+                for (int w = 0; w < palavras; w++) {
+                    vivas[w] |= vivasNaEntrada[base + w];
+                }
+            }
+        }
+        visita++;
+        for (int i = grafo.fim(b) - 1; i >= grafo.inicio(b); i--) {
+            if (retiradas[i]) {
+                continue;
+            }
+            Operacao operacao = codigo.operacao(i);
+            int resultado = codigo.resultado(i);
+            if (operacao.escreveResultado() && resultado != Operando.NENHUM && !lido(resultado)) {
+                if (semEfeitoColateral(i)) {
+                    if (retirar) {
+                        retirar(i);
+                    }
+                    continue;
+                }
+                if (retirar && operacao.forma == Operacao.Forma.CHAMADA && Operando.ehTemporario(resultado)) {
+                    alterar(i, Operacao.CHAMADA, codigo.arg1(i), codigo.arg2(i), Operando.NENHUM);
+                }
+            }
+            if (operacao.escreveResultado() && resultado != Operando.NENHUM && Operando.ehVariavel(resultado)) {
+                int v = indiceDaVariavel[Operando.valor(resultado)];
+                vivas[v >>> 6] &= ~(1L << v);
+            }
+            if (operacao.forma == Operacao.Forma.CHAMADA) {
+                Arrays.fill(vivas, -1L);        // a sub-rotina chamada pode ler qualquer variável
+            }
+            if (operacao.leArg1()) ler(codigo.arg1(i));
+            if (operacao.leArg2()) ler(codigo.arg2(i));
+        }
+    }
+
+    private boolean lido(int operando) {
+        if (Operando.ehTemporario(operando)) {
+            return leituraDoTemporario[Operando.valor(operando)] == visita;
+        }
+        if (Operando.ehVariavel(operando)) {
+            int v = indiceDaVariavel[Operando.valor(operando)];
+            return (vivas[v >>> 6] & 1L << v) != 0;
+        }
+        return true;
+    }
+
+    private void ler(int operando) {
+        if (operando == Operando.NENHUM) {
+            return;
+        }
+        if (Operando.ehTemporario(operando)) {
+            leituraDoTemporario[Operando.valor(operando)] = visita;
+        } else if (Operando.ehVariavel(operando)) {
+            int v = indiceDaVariavel[Operando.valor(operando)];
+            vivas[v >>> 6] |= 1L << v;
+        }
+    }
+
+    private boolean semEfeitoColateral(int i) {
+        switch (codigo.operacao(i).forma) {
+            case COPIA:
+            case UNARIA:
+                return true;
+            case BINARIA:
+                if (codigo.operacao(i) != Operacao.DIVISAO) {
+                    return true;
+                }
+                int divisor = codigo.arg2(i);
+                return Operando.ehConstante(divisor) && codigo.valorDaConstante(divisor) != 0;
+            default:
+                return false;
+        }
+    }
+
+    private void retirarRotulosSemUso() {
+        int quantidade = codigo.tamanho();
+        boolean[] usado = new boolean[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            Operacao operacao = codigo.operacao(i);
+            if (!retiradas[i] && (operacao == Operacao.DESVIO || operacao == Operacao.DESVIO_SE_FALSO)) {
+                usado[codigo.destino(i)] = true;
+            }
+        }
+        for (int i = 0; i < quantidade; i++) {
+            if (!retiradas[i] && codigo.operacao(i) == Operacao.ROTULO && !usado[i]) {
+                retirar(i);
+            }
+        }
+    }
+
+    private void alterar(int i, Operacao operacao, int arg1, int arg2, int resultado) {
+        codigo.substituir(i, operacao, arg1, arg2, resultado);
+        alteradas++;
+    }
+
+    private void retirar(int i) {
+        codigo.remover(i);
+        retiradas[i] = true;
+        alteradas++;
+    }
+}
@@ -0,0 +1,596 @@
+package Otimizacao;
+
+import GeradorCodigo.CodigoIntermediario;
+import GeradorCodigo.Operacao;
+
+import java.util.Arrays;
+
+/**
+ * Grafo de fluxo de controle do código intermediário: os blocos básicos, as arestas entre eles,
+ * os dominadores e os laços, tudo em vetores de int. Os blocos são numerados na ordem do código.
+ *
+ * Cada quádrupla ENTRADA é um bloco sozinho, com uma aresta para o primeiro bloco do corpo da sua
+ * sub-rotina; esses blocos e o primeiro bloco do corpo do programa são as raízes do grafo.
+ * Chamadas não são arestas, então cada sub-rotina é um grafo à parte. Um bloco que termina em
+ * 'retorno' ou no fim do corpo não tem sucessores.
+ *
+ * Blocos, arestas e ordem são montados em tempo linear no número de quádruplas. Os dominadores
+ * saem do algoritmo de Lengauer e Tarjan (versão com compressão de caminhos), O(m log n) nas m
+ * arestas e n blocos qualquer que seja a forma do código; os laços, de um union-find, também.
+ */
+public final class GrafoDeFluxo {
+    private final CodigoIntermediario codigo;
+    private final int quantidadeBlocos;
+    private final int[] inicios;                   // o bloco b vai de inicios[b] a inicios[b + 1] - 1
+    private final int[] blocoDaQuadrupla;
+
+    // Arestas em listas compactas: os sucessores de b são sucessores[inicioSucessores[b] .. inicioSucessores[b + 1] - 1].
+    private final int[] inicioSucessores;
+    private final int[] sucessores;
+    private final int[] inicioPredecessores;
+    private final int[] predecessores;
+
+    private final int[] raizes;
+    private final int[] ordem;                     // blocos alcançáveis em pós-ordem reversa
+    private final int[] posicaoNaOrdem;            // -1 se o bloco é inalcançável
+    private final int[] dominadorImediato;         // -1 nas raízes e nos inalcançáveis
+    private final int[] preOrdem;                  // numeração da árvore de dominadores, para domina()
+    private final int[] posOrdem;
+    private final int[] laco;                      // cabeça do laço mais interno que contém o bloco, ou -1
+    private final int[] lacoPai;                   // numa cabeça, a cabeça do laço que contém o seu
+    private final int[] profundidade;              // quantos laços contêm o bloco
+
+    public GrafoDeFluxo(CodigoIntermediario codigo) {
+        this.codigo = codigo;
+        int quantidade = codigo.tamanho();
+
+        // 1. Regiões: o corpo de cada quádrupla; cada ENTRADA é uma região sozinha. O fluxo só
+        //    passa de um bloco para o seguinte dentro da mesma região.
+        int[] regiao = new int[quantidade];
+        Arrays.fill(regiao, -1);
+        for (int k = 0; k < codigo.quantidadeCorpos(); k++) {
+            Arrays.fill(regiao, codigo.inicioDoCorpo(k), codigo.fimDoCorpo(k), k);
+        }
+        boolean[] lider = new boolean[quantidade + 1];
+        for (int i = 0; i < quantidade; i++) {
+            Operacao operacao = codigo.operacao(i);
+            if (operacao == Operacao.ENTRADA) {
+                regiao[i] = -2 - i;
+                lider[i] = true;
+                lider[i + 1] = true;
+            } else if (operacao == Operacao.ROTULO || i == 0 || regiao[i] != regiao[i - 1]) {
+                lider[i] = true;
+            }
+            if (terminaOBloco(operacao)) {
+                lider[i + 1] = true;
+            }
+        }
+
+        // 2. Blocos.
+        int blocos = 0;
+        for (int i = 0; i < quantidade; i++) {
+            if (lider[i]) blocos++;
+        }
+        quantidadeBlocos = blocos;
+        inicios = new int[blocos + 1];
+        blocoDaQuadrupla = new int[quantidade];
+        for (int i = 0, b = -1; i < quantidade; i++) {
+            if (lider[i]) {
+                inicios[++b] = i;
+            }
+            blocoDaQuadrupla[i] = b;
+        }
+        inicios[blocos] = quantidade;
+
+        // 3. Arestas: no máximo duas por bloco (a que segue e a do desvio).
+        int[] corpoDaEntrada = new int[blocos];
+        Arrays.fill(corpoDaEntrada, -1);
+        for (int k = 0; k < codigo.quantidadeCorpos(); k++) {
+            int entrada = codigo.entradaDoCorpo(k);
+            if (entrada >= 0 && codigo.inicioDoCorpo(k) < codigo.fimDoCorpo(k)) {
+                corpoDaEntrada[blocoDaQuadrupla[entrada]] = blocoDaQuadrupla[codigo.inicioDoCorpo(k)];
+            }
+        }
+        int[] seguinte = new int[blocos];
+        int[] desvio = new int[blocos];
+        inicioSucessores = new int[blocos + 1];
+        for (int b = 0; b < blocos; b++) {
+            int ultima = inicios[b + 1] - 1;
+            Operacao operacao = codigo.operacao(ultima);
+            boolean segue = b + 1 < blocos && regiao[ultima] == regiao[inicios[b + 1]];
+            seguinte[b] = -1;
+            desvio[b] = -1;
+            if (operacao == Operacao.ENTRADA) {
+                seguinte[b] = corpoDaEntrada[b];
+            } else if (operacao == Operacao.DESVIO || operacao == Operacao.DESVIO_SE_FALSO) {
+                int destino = codigo.destino(ultima);
+                if (operacao == Operacao.DESVIO_SE_FALSO && segue) {
+                    seguinte[b] = b + 1;
+                }
+                if (destino >= 0 && blocoDaQuadrupla[destino] != seguinte[b]) {
+                    desvio[b] = blocoDaQuadrupla[destino];
+                }
+            } else if (!terminaOBloco(operacao) && segue) {
+                seguinte[b] = b + 1;
+            }
+            inicioSucessores[b + 1] = inicioSucessores[b] + (seguinte[b] >= 0 ? 1 : 0) + (desvio[b] >= 0 ? 1 : 0);
+        }
+        sucessores = new int[inicioSucessores[blocos]];
+        int[] quantidadePredecessores = new int[blocos + 1];
+        for (int b = 0; b < blocos; b++) {
+            int j = inicioSucessores[b];
+            if (seguinte[b] >= 0) {
+                sucessores[j++] = seguinte[b];
+                quantidadePredecessores[seguinte[b] + 1]++;
+            }
+            if (desvio[b] >= 0) {
+                sucessores[j] = desvio[b];
+                quantidadePredecessores[desvio[b] + 1]++;
+            }
+        }
+        inicioPredecessores = quantidadePredecessores;
+        for (int b = 0; b < blocos; b++) {
+            inicioPredecessores[b + 1] += inicioPredecessores[b];
+        }
+        predecessores = new int[sucessores.length];
+        int[] proximo = Arrays.copyOf(inicioPredecessores, blocos);
+        for (int b = 0; b < blocos; b++) {
+            for (int j = inicioSucessores[b]; j < inicioSucessores[b + 1]; j++) {
+                predecessores[proximo[sucessores[j]]++] = b;
+            }
+        }
+
+        // 4. Raízes: as ENTRADA e o começo de cada região que não é corpo de sub-rotina.
+        int quantidadeRaizes = 0;
+        int[] candidatas = new int[blocos];
+        for (int b = 0; b < blocos; b++) {
+            int primeira = inicios[b];
+            boolean comecaRegiao = primeira == 0 || regiao[primeira] != regiao[primeira - 1];
+            boolean corpoDeSubRotina = regiao[primeira] >= 0 && codigo.entradaDoCorpo(regiao[primeira]) >= 0;
+            if (comecaRegiao && !corpoDeSubRotina) {
+                candidatas[quantidadeRaizes++] = b;
+            }
+        }
+        raizes = Arrays.copyOf(candidatas, quantidadeRaizes);
+
+        // 5. Pós-ordem reversa, por busca em profundidade a partir das raízes (da última para a
+        //    primeira, para que a ordem final comece pela primeira).
+        posicaoNaOrdem = new int[blocos];
+        Arrays.fill(posicaoNaOrdem, -1);
+        int[] posOrdemDaBusca = new int[blocos];
+        int[] numeroNaBusca = new int[blocos];    // pré-ordem da busca; 0 é a raiz virtual
+        int[] blocoDoNumero = new int[blocos + 1];
+        int[] paiNaBusca = new int[blocos + 1];   // por número, o número do pai na árvore da busca
+        int visitados = buscaEmProfundidade(posOrdemDaBusca, numeroNaBusca, blocoDoNumero, paiNaBusca);
+        ordem = new int[visitados];
+        for (int k = 0; k < visitados; k++) {
+            ordem[k] = posOrdemDaBusca[visitados - 1 - k];
+            posicaoNaOrdem[ordem[k]] = k;
+        }
+
+        // 6. Dominadores, com uma raiz virtual (o índice blocos) acima de todas as raízes.
+        dominadorImediato = dominadores(visitados + 1, numeroNaBusca, blocoDoNumero, paiNaBusca);
+        preOrdem = new int[blocos + 1];
+        posOrdem = new int[blocos + 1];
+        numerarArvoreDeDominadores();
+
+        // 7. Laços naturais e o seu aninhamento.
+        laco = new int[blocos];
+        lacoPai = new int[blocos];
+        profundidade = new int[blocos];
+        encontrarLacos();
+    }
+
+    private static boolean terminaOBloco(Operacao operacao) {
+        return operacao == Operacao.DESVIO || operacao == Operacao.DESVIO_SE_FALSO
+                || operacao == Operacao.RETORNO_INT || operacao == Operacao.RETORNO_BOOL;
+    }
+
+    // Preenche a pós-ordem dos alcançáveis, a pré-ordem (numerada a partir de 1, abaixo da raiz
+    // virtual) e o pai de cada um na árvore da busca; devolve quantos são.
+    private int buscaEmProfundidade(int[] posOrdemDaBusca, int[] numero, int[] blocoDoNumero, int[] pai) {
+        boolean[] visto = new boolean[quantidadeBlocos];
+        int[] pilha = new int[quantidadeBlocos];
+        int[] proximaAresta = new int[quantidadeBlocos];
+        int visitados = 0;
+        int numerados = 1;
+        for (int r = raizes.length - 1; r >= 0; r--) {
+            if (visto[raizes[r]]) {
+                continue;
+            }
+            int topo = 0;
+            pilha[topo++] = raizes[r];
+            visto[raizes[r]] = true;
+            numero[raizes[r]] = numerados;
+            blocoDoNumero[numerados] = raizes[r];
+            pai[numerados++] = 0;
+            proximaAresta[raizes[r]] = inicioSucessores[raizes[r]];
+            while (topo > 0) {
+                int b = pilha[topo - 1];
+                if (proximaAresta[b] < inicioSucessores[b + 1]) {
+                    int s = sucessores[proximaAresta[b]++];
+                    if (!visto[s]) {
+                        visto[s] = true;
+                        numero[s] = numerados;
+                        blocoDoNumero[numerados] = s;
+                        pai[numerados++] = numero[b];
+                        proximaAresta[s] = inicioSucessores[s];
+                        pilha[topo++] = s;
+                    }
+                } else {
+                    posOrdemDaBusca[visitados++] = b;
+                    topo--;
+                }
+            }
+        }
+        return visitados;
+    }
+
+    // Lengauer e Tarjan sobre a pré-ordem da busca: o semidominador de cada bloco, do último
+    // número para o primeiro, com a floresta dos já processados avaliada por compressão de
+    // caminhos; depois o dominador imediato sai do semidominador. Tudo indexado por número.
+    private int[] dominadores(int n, int[] numeroNaBusca, int[] blocoDoNumero, int[] pai) {
+        boolean[] ehRaiz = new boolean[quantidadeBlocos];
+        for (int raiz : raizes) {
+            ehRaiz[raiz] = true;
+        }
+        int[] semi = new int[n];
+        int[] idom = new int[n];
+        int[] ancestral = new int[n];
+        int[] rotulo = new int[n];
+        int[] balde = new int[n];                  // primeiro número cujo semidominador é este, ou -1
+        int[] proximoNoBalde = new int[n];
+        int[] pilha = new int[n];
+        for (int v = 0; v < n; v++) {
+            semi[v] = v;
+            rotulo[v] = v;
+            ancestral[v] = -1;
+            balde[v] = -1;
+        }
+        for (int w = n - 1; w >= 1; w--) {
+            int b = blocoDoNumero[w];
+            if (ehRaiz[b]) {
+                semi[w] = 0;                       // a aresta da raiz virtual
+            }
+            for (int j = inicioPredecessores[b]; j < inicioPredecessores[b + 1]; j++) {
+                int p = predecessores[j];
+                if (posicaoNaOrdem[p] < 0) {
+                    continue;                      // predecessor inalcançável
+                }
+                int u = avaliar(numeroNaBusca[p], ancestral, rotulo, semi, pilha);
+                if (semi[u] < semi[w]) {
+                    semi[w] = semi[u];
+                }
+            }
+            proximoNoBalde[w] = balde[semi[w]];
+            balde[semi[w]] = w;
+            ancestral[w] = pai[w];
+            for (int v = balde[pai[w]]; v >= 0; v = proximoNoBalde[v]) {
+                int u = avaliar(v, ancestral, rotulo, semi, pilha);
+                idom[v] = semi[u] < semi[v] ? u : pai[w];
+            }
+            balde[pai[w]] = -1;
+        }
+        for (int w = 1; w < n; w++) {
+            if (idom[w] != semi[w]) {
+                idom[w] = idom[idom[w]];
+            }
+        }
+
+        int[] resultado = new int[quantidadeBlocos + 1];
+        Arrays.fill(resultado, -1);
+        resultado[quantidadeBlocos] = quantidadeBlocos;
+        for (int w = 1; w < n; w++) {
+            resultado[blocoDoNumero[w]] = idom[w] == 0 ? -1 : blocoDoNumero[idom[w]];
+        }
+        return resultado;
+    }
+
+    // O número de menor semidominador no caminho de v até a raiz da sua árvore na floresta,
+    // comprimindo o caminho (sem recursão: o caminho é empilhado e percorrido de cima para baixo).
+    private static int avaliar(int v, int[] ancestral, int[] rotulo, int[] semi, int[] pilha) {
+        if (ancestral[v] < 0) {
+            return v;
+        }
+        int topo = 0;
+        for (int x = v; ancestral[ancestral[x]] >= 0; x = ancestral[x]) {
+            pilha[topo++] = x;
+        }
+        while (topo > 0) {
+            int x = pilha[--topo];
+            int a = ancestral[x];
+            if (semi[rotulo[a]] < semi[rotulo[x]]) {
+                rotulo[x] = rotulo[a];
+            }
+            ancestral[x] = ancestral[a];
+        }
+        return rotulo[v];
+    }
+
+    // Pré e pós-ordem da árvore de dominadores (raiz virtual incluída): a domina b se e só se
+    // o intervalo de b está dentro do de a.
+    private void numerarArvoreDeDominadores() {
+        int virtual = quantidadeBlocos;
+        int[] inicioFilhos = new int[quantidadeBlocos + 2];
+        for (int b : ordem) {
+            int pai = dominadorImediato[b] < 0 ? virtual : dominadorImediato[b];
+            inicioFilhos[pai + 1]++;
+        }
+        for (int b = 0; b <= quantidadeBlocos; b++) {
+            inicioFilhos[b + 1] += inicioFilhos[b];
+        }
+        int[] filhos = new int[ordem.length];
+        int[] proximo = Arrays.copyOf(inicioFilhos, quantidadeBlocos + 1);
+        for (int b : ordem) {
+            int pai = dominadorImediato[b] < 0 ? virtual : dominadorImediato[b];
+            filhos[proximo[pai]++] = b;
+        }
+        Arrays.fill(preOrdem, -1);
+        Arrays.fill(posOrdem, -1);
+        int[] pilha = new int[quantidadeBlocos + 1];
+        int[] proximoFilho = new int[quantidadeBlocos + 1];
+        int contador = 0;
+        int topo = 0;
+        pilha[topo++] = virtual;
+        preOrdem[virtual] = contador++;
+        proximoFilho[virtual] = inicioFilhos[virtual];
+        while (topo > 0) {
+            int b = pilha[topo - 1];
+            if (proximoFilho[b] < inicioFilhos[b + 1]) {
+                int filho = filhos[proximoFilho[b]++];
+                preOrdem[filho] = contador++;
+                proximoFilho[filho] = inicioFilhos[filho];
+                pilha[topo++] = filho;
+            } else {
+                posOrdem[b] = contador++;
+                topo--;
+            }
+        }
+    }
+
+    // As cabeças são visitadas da última para a primeira na pós-ordem reversa, então um laço interno
+    // é achado antes do que o contém; blocos já atribuídos a um laço interno são pulados de uma vez
+    // pela cabeça mais externa já achada (union-find com compressão de caminho).
+    private void encontrarLacos() {
+        Arrays.fill(laco, -1);
+        Arrays.fill(lacoPai, -1);
+        int[] representante = new int[quantidadeBlocos];
+        int[] visto = new int[quantidadeBlocos];
+        for (int b = 0; b < quantidadeBlocos; b++) {
+            representante[b] = b;
+            visto[b] = -1;
+        }
+        int[] pilha = new int[quantidadeBlocos + predecessores.length];
+        for (int k = ordem.length - 1; k >= 0; k--) {
+            int cabeca = ordem[k];
+            int topo = 0;
+            boolean ehCabeca = false;
+            for (int j = inicioPredecessores[cabeca]; j < inicioPredecessores[cabeca + 1]; j++) {
+                int p = predecessores[j];
+                if (domina(cabeca, p)) {
+                    ehCabeca = true;
+                    if (p != cabeca) {
+                        pilha[topo++] = p;
+                    }
+                }
+            }
+            if (!ehCabeca) {
+                continue;
+            }
+            laco[cabeca] = cabeca;
+            visto[cabeca] = cabeca;
+            while (topo > 0) {
+                int b = encontrar(representante, pilha[--topo]);
+                if (visto[b] == cabeca) {
+                    continue;
+                }
+                visto[b] = cabeca;
+                if (laco[b] < 0) {
+                    laco[b] = cabeca;
+                } else {
+                    lacoPai[b] = cabeca;    // b é a cabeça de um laço interno
+                }
+                representante[b] = cabeca;
+                for (int j = inicioPredecessores[b]; j < inicioPredecessores[b + 1]; j++) {
+                    if (posicaoNaOrdem[predecessores[j]] >= 0) {
+                        pilha[topo++] = predecessores[j];
+                    }
+                }
+            }
+        }
+        for (int b : ordem) {
+            if (laco[b] == b) {
+                profundidade[b] = lacoPai[b] < 0 ? 1 : profundidade[lacoPai[b]] + 1;
+            }
+        }
+        for (int b : ordem) {
+            if (laco[b] >= 0 && laco[b] != b) {
+                profundidade[b] = profundidade[laco[b]];
+            }
+        }
+    }
+
+    private static int encontrar(int[] representante, int b) {
+        int raiz = b;
+        while (representante[raiz] != raiz) {
+            raiz = representante[raiz];
+        }
+        while (representante[b] != raiz) {
+            int seguinte = representante[b];
+            representante[b] = raiz;
+            b = seguinte;
+        }
+        return raiz;
+    }
+
+    // --- Consultas ---
+
+    public CodigoIntermediario getCodigo() {
+        return codigo;
+    }
+
+    public int quantidadeBlocos() {
+        return quantidadeBlocos;
+    }
+
+    /**
+     * O bloco b são as quádruplas das posições inicio(b) até fim(b) - 1.
+     */
+    public int inicio(int b) {
+        return inicios[b];
+    }
+
+    public int fim(int b) {
+        return inicios[b + 1];
+    }
+
+    /**
+     * O bloco que contém a quádrupla da posição dada.
+     */
+    public int bloco(int posicao) {
+        return blocoDaQuadrupla[posicao];
+    }
+
+    /**
+     * Sucessores de b: sucessor(b, 0) é o bloco seguinte quando o fluxo segue em frente
+     * (num if_false, quando a condição é verdadeira), e o último é o destino do desvio.
+     */
+    public int quantidadeSucessores(int b) {
+        return inicioSucessores[b + 1] - inicioSucessores[b];
+    }
+
+    public int sucessor(int b, int k) {
+        return sucessores[inicioSucessores[b] + k];
+    }
+
+    public int quantidadePredecessores(int b) {
+        return inicioPredecessores[b + 1] - inicioPredecessores[b];
+    }
+
+    public int predecessor(int b, int k) {
+        return predecessores[inicioPredecessores[b] + k];
+    }
+
+    public int quantidadeRaizes() {
+        return raizes.length;
+    }
+
+    public int raiz(int k) {
+        return raizes[k];
+    }
+
+    public boolean ehRaiz(int b) {
+        return Arrays.binarySearch(raizes, b) >= 0;
+    }
+
+    /**
+     * Quantos blocos são alcançáveis a partir das raízes; naOrdem(k) os dá em pós-ordem reversa
+     * (cada bloco vem antes dos seus sucessores, exceto nas arestas de volta dos laços).
+     */
+    public int quantidadeAlcancaveis() {
+        return ordem.length;
+    }
+
+    public int naOrdem(int k) {
+        return ordem[k];
+    }
+
+    public boolean alcancavel(int b) {
+        return posicaoNaOrdem[b] >= 0;
+    }
+
+    /**
+     * O dominador imediato de b, ou -1 se b é uma raiz ou é inalcançável.
+     */
+    public int dominadorImediato(int b) {
+        return dominadorImediato[b];
+    }
+
+    /**
+     * Se todo caminho de uma raiz até b passa por a (todo bloco alcançável domina a si mesmo).
+     */
+    public boolean domina(int a, int b) {
+        return preOrdem[a] >= 0 && preOrdem[b] >= 0 && preOrdem[a] <= preOrdem[b] && posOrdem[b] <= posOrdem[a];
+    }
+
+    public boolean ehCabecaDeLaco(int b) {
+        return laco[b] == b;
+    }
+
+    /**
+     * A cabeça do laço mais interno que contém b (b mesmo, se for uma cabeça), ou -1.
+     */
+    public int laco(int b) {
+        return laco[b];
+    }
+
+    /**
+     * Para a cabeça de um laço, a cabeça do laço que o contém, ou -1.
+     */
+    public int lacoPai(int cabeca) {
+        return lacoPai[cabeca];
+    }
+
+    public int profundidadeDoLaco(int b) {
+        return profundidade[b];
+    }
+
+    // --- Graphviz ---
+
+    /**
+     * O grafo no formato DOT do Graphviz: um nó por bloco com as suas quádruplas, a aresta do
+     * desvio de um if_false marcada "falso" e as arestas de volta dos laços tracejadas.
+     */
+    public String comoDot() {
+        StringBuilder dot = new StringBuilder();
+        dot.append("digraph fluxo {\n");
+        dot.append("  node [shape=box, fontname=\"monospace\"];\n");
+        for (int b = 0; b < quantidadeBlocos; b++) {
+            dot.append("  B").append(b).append(" [label=\"B").append(b);
+            if (ehCabecaDeLaco(b)) {
+                dot.append(" (laço, profundidade ").append(profundidade[b]).append(')');
+            }
+            if (!alcancavel(b)) {
+                dot.append(" (inalcançável)");
+            }
+            dot.append("\\l");
+            for (int i = inicios[b]; i < inicios[b + 1]; i++) {
+                escaparParaDot(dot, i + ": " + codigo.quadruplaComoTexto(i).stripTrailing());
+                dot.append("\\l");
+            }
+            dot.append('"');
+            if (!alcancavel(b)) {
+                dot.append(", style=dotted");
+            }
+            dot.append("];\n");
+        }
+        for (int b = 0; b < quantidadeBlocos; b++) {
+            for (int k = 0; k < quantidadeSucessores(b); k++) {
+                int s = sucessor(b, k);
+                dot.append("  B").append(b).append(" -> B").append(s);
+                boolean falso = k == 1 && codigo.operacao(inicios[b + 1] - 1) == Operacao.DESVIO_SE_FALSO;
+                boolean volta = alcancavel(b) && domina(s, b);
+                if (falso || volta) {
+                    dot.append(" [");
+                    if (falso) dot.append("label=\"falso\"");
+                    if (falso && volta) dot.append(", ");
+                    if (volta) dot.append("style=dashed");
+                    dot.append(']');
+                }
+                dot.append(";\n");
+            }
+        }
+        dot.append("}\n");
+        return dot.toString();
+    }
+
+    private static void escaparParaDot(StringBuilder dot, String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                dot.append('\\');
+            }
+            dot.append(c);
+        }
+    }
+}
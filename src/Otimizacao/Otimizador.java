@@ -0,0 +1,21 @@
+package Otimizacao;
+
+import GeradorCodigo.GeradorDeCodigo;
+
+/**
+ * As otimizações do código intermediário (opção -O), na ordem em que são aplicadas.
+ */
+public final class Otimizador {
+    private Otimizador() {
+    }
+
+    /**
+     * Otimiza o código no lugar. Devolve quantas quádruplas foram alteradas ou retiradas.
+     */
+    public static int otimizar(GeradorDeCodigo codigo) {
+        int alteradas = new PropagacaoDeConstantes(codigo).otimizar();
+        alteradas += new PropagacaoDeCopias(codigo).otimizar();
+        alteradas += new EliminacaoDeCodigoMorto(codigo).otimizar();
+        return alteradas;
+    }
+}
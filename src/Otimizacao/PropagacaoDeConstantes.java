@@ -0,0 +1,410 @@
+package Otimizacao;
+
+import GeradorCodigo.GeradorDeCodigo;
+import GeradorCodigo.Operacao;
+import GeradorCodigo.Operando;
+
+import java.util.Arrays;
+
+/**
+ * Dobra as operações cujos operandos são constantes e propaga as constantes atribuídas a
+ * variáveis, dentro de cada bloco e entre os blocos: uma análise de fluxo de dados sobre o
+ * GrafoDeFluxo, feita em cada sub-rotina, que só segue os desvios que podem ser tomados.
+ * Um if_false com condição constante vira goto ou sai; os temporários que ficaram com valor
+ * constante e não são mais lidos também saem.
+ *
+ * Uma chamada pode alterar qualquer variável (as globais e as locais das sub-rotinas que contêm
+ * a chamada), então depois dela nada se sabe das variáveis; os temporários só vivem no bloco em
+ * que são calculados. Só se dobra o que dá um inteiro de 32 bits, sem divisão por zero, para o
+ * resultado não depender de como o programa trataria esses casos ao rodar.
+ */
+public class PropagacaoDeConstantes {
+    // Acima disso (blocos × variáveis de uma sub-rotina), a sub-rotina só é otimizada bloco a bloco.
+    private static final long LIMITE_DO_ESTADO = 1 << 22;
+
+    private static final byte INDEFINIDO = 0;   // nenhum caminho até o bloco foi visto ainda
+    private static final byte CONSTANTE = 1;
+    private static final byte VARIA = 2;
+
+    private final GeradorDeCodigo codigo;
+    private GrafoDeFluxo grafo;
+
+    private int[] indiceDaVariavel;             // variável -> índice no estado da sub-rotina, ou -1
+    private int quantidadeRastreadas;
+    private int[] localDoBloco;                 // bloco -> posição na sub-rotina em análise
+
+    // Estado na entrada de cada bloco da sub-rotina (bloco local × variável rastreada).
+    private byte[] estadoNaEntrada;
+    private long[] valorNaEntrada;
+    private boolean[] executavel;
+
+    // Estado durante a passagem por um bloco.
+    private boolean[] conhecida;
+    private long[] valorDaVariavel;
+    private long[] valorDoTemporario;
+    private int[] visitaDoTemporario;           // o temporário tem valor constante se igual à visita atual
+    private int visita = 0;
+    private byte[] literais = new byte[64];     // texto -> 0 (ainda não lido), CONSTANTE ou VARIA
+    private long[] valoresDosLiterais = new long[64];
+    private long valor;                         // de avaliar()
+    private int condicao;                       // -1: não constante; 0 ou 1: valor do último if_false
+
+    private boolean[] retiradas;
+    private int alteradas = 0;
+
+    public PropagacaoDeConstantes(GeradorDeCodigo codigo) {
+        this.codigo = codigo;
+    }
+
+    /**
+     * Otimiza o código no lugar. Devolve quantas quádruplas foram alteradas ou retiradas.
+     */
+    public int otimizar() {
+        grafo = new GrafoDeFluxo(codigo);
+        int quantidade = codigo.tamanho();
+        int maiorVariavel = -1;
+        int maiorTemporario = -1;
+        for (int i = 0; i < quantidade; i++) {
+            for (int operando : new int[]{codigo.arg1(i), codigo.arg2(i), codigo.resultado(i)}) {
+                if (operando == Operando.NENHUM) continue;
+                if (Operando.ehVariavel(operando)) maiorVariavel = Math.max(maiorVariavel, Operando.valor(operando));
+                if (Operando.ehTemporario(operando)) maiorTemporario = Math.max(maiorTemporario, Operando.valor(operando));
+            }
+        }
+        indiceDaVariavel = new int[maiorVariavel + 1];
+        Arrays.fill(indiceDaVariavel, -1);
+        valorDoTemporario = new long[maiorTemporario + 1];
+        visitaDoTemporario = new int[maiorTemporario + 1];
+        localDoBloco = new int[grafo.quantidadeBlocos()];
+        retiradas = new boolean[quantidade];
+
+        // Os blocos de cada sub-rotina são contíguos na ordem do grafo, começando pela raiz.
+        int alcancaveis = grafo.quantidadeAlcancaveis();
+        for (int inicio = 0, fim; inicio < alcancaveis; inicio = fim) {
+            fim = inicio + 1;
+            while (fim < alcancaveis && !grafo.ehRaiz(grafo.naOrdem(fim))) {
+                fim++;
+            }
+            analisar(inicio, fim);
+        }
+        retirarTemporariosSemUso();
+        codigo.compactar();
+        return alteradas;
+    }
+
+    private void analisar(int inicio, int fim) {
+        int blocos = fim - inicio;
+        int[] rastreadas = new int[16];
+        quantidadeRastreadas = 0;
+        for (int k = inicio; k < fim; k++) {
+            int b = grafo.naOrdem(k);
+            localDoBloco[b] = k - inicio;
+            for (int i = grafo.inicio(b); i < grafo.fim(b); i++) {
+                int resultado = codigo.resultado(i);
+                if (codigo.operacao(i).escreveResultado() && resultado != Operando.NENHUM
+                        && Operando.ehVariavel(resultado) && indiceDaVariavel[Operando.valor(resultado)] < 0) {
+                    if (quantidadeRastreadas == rastreadas.length) {
+                        rastreadas = Arrays.copyOf(rastreadas, quantidadeRastreadas * 2);
+                    }
+                    rastreadas[quantidadeRastreadas] = Operando.valor(resultado);
+                    indiceDaVariavel[Operando.valor(resultado)] = quantidadeRastreadas++;
+                }
+            }
+        }
+        if ((long) blocos * quantidadeRastreadas > LIMITE_DO_ESTADO) {
+            for (int v = 0; v < quantidadeRastreadas; v++) {
+                indiceDaVariavel[rastreadas[v]] = -1;
+            }
+            quantidadeRastreadas = 0;
+        }
+
+        int tamanho = blocos * quantidadeRastreadas;
+        estadoNaEntrada = new byte[tamanho];
+        valorNaEntrada = new long[tamanho];
+        executavel = new boolean[blocos];
+        conhecida = new boolean[quantidadeRastreadas];
+        valorDaVariavel = new long[quantidadeRastreadas];
+        executavel[0] = true;
+        Arrays.fill(estadoNaEntrada, 0, quantidadeRastreadas, VARIA);   // na raiz nada se sabe
+
+        boolean mudou = true;
+        while (mudou) {
+            mudou = false;
+            for (int k = inicio; k < fim; k++) {
+                int b = grafo.naOrdem(k);
+                if (executavel[k - inicio]) {
+                    passar(b, false);
+                    mudou |= propagar(b);
+                }
+            }
+        }
+        for (int k = inicio; k < fim; k++) {
+            if (executavel[k - inicio]) {
+                passar(grafo.naOrdem(k), true);
+            }
+        }
+        for (int v = 0; v < quantidadeRastreadas; v++) {
+            indiceDaVariavel[rastreadas[v]] = -1;
+        }
+    }
+
+    // Leva o estado da saída de b para a entrada dos sucessores que podem ser alcançados.
+    private boolean propagar(int b) {
+        int alvo = -2;                          // -2: todos os sucessores
+        int ultima = grafo.fim(b) - 1;
+        if (codigo.operacao(ultima) == Operacao.DESVIO_SE_FALSO && condicao >= 0) {
+            int destino = codigo.destino(ultima);
+            alvo = condicao == 0 ? (destino >= 0 ? grafo.bloco(destino) : -1) : b + 1;
+        }
+        boolean mudou = false;
+        for (int k = 0; k < grafo.quantidadeSucessores(b); k++) {
+            int s = grafo.sucessor(b, k);
+            if (alvo == -2 || s == alvo) {
+                mudou |= juntar(localDoBloco[s]);
+            }
+        }
+        return mudou;
+    }
+
+    private boolean juntar(int local) {
+        int base = local * quantidadeRastreadas;
+        boolean mudou = false;
+        if (!executavel[local]) {
+            executavel[local] = true;
+            mudou = true;
+        }
+        for (int v = 0; v < quantidadeRastreadas; v++) {
+            byte estado = estadoNaEntrada[base + v];
+            if (estado == INDEFINIDO) {
+                estadoNaEntrada[base + v] = conhecida[v] ? CONSTANTE : VARIA;
+                valorNaEntrada[base + v] = valorDaVariavel[v];
+                mudou = true;
+            } else if (estado == CONSTANTE && (!conhecida[v] || valorDaVariavel[v] != valorNaEntrada[base + v])) {
+                estadoNaEntrada[base + v] = VARIA;
+                mudou = true;
+            }
+        }
+        return mudou;
+    }
+
+    // Percorre o bloco a partir do estado de entrada; com reescrever, também altera as quádruplas.
+    private void passar(int b, boolean reescrever) {
+        int base = localDoBloco[b] * quantidadeRastreadas;
+        for (int v = 0; v < quantidadeRastreadas; v++) {
+            conhecida[v] = estadoNaEntrada[base + v] == CONSTANTE;
+            valorDaVariavel[v] = valorNaEntrada[base + v];
+        }
+        visita++;
+        condicao = -1;
+        for (int i = grafo.inicio(b); i < grafo.fim(b); i++) {
+            Operacao operacao = codigo.operacao(i);
+            int arg1 = codigo.arg1(i);
+            int arg2 = codigo.arg2(i);
+            int resultado = codigo.resultado(i);
+            switch (operacao.forma) {
+                case COPIA: {
+                    boolean constante = avaliar(arg1);
+                    if (reescrever && constante && !Operando.ehConstante(arg1)) {
+                        alterar(i, operacao, constante(valor, booleanos(operacao)), arg2, resultado);
+                    }
+                    definir(resultado, constante);
+                    break;
+                }
+                case BINARIA:
+                case UNARIA: {
+                    boolean constante1 = avaliar(arg1);
+                    long valor1 = valor;
+                    boolean constante2 = operacao.forma == Operacao.Forma.UNARIA || avaliar(arg2);
+                    long valor2 = valor;
+                    boolean dobrada = constante1 && constante2 && dobrar(operacao, valor1, valor2);
+                    if (reescrever) {
+                        if (dobrada) {
+                            boolean booleano = resultadoBooleano(operacao);
+                            alterar(i, booleano ? Operacao.COPIA_BOOL : Operacao.COPIA_INT,
+                                    constante(valor, booleano), Operando.NENHUM, resultado);
+                        } else if ((constante1 && !Operando.ehConstante(arg1))
+                                || (operacao.forma == Operacao.Forma.BINARIA && constante2 && !Operando.ehConstante(arg2))) {
+                            boolean booleanos = booleanos(operacao);
+                            alterar(i, operacao,
+                                    constante1 ? constante(valor1, booleanos) : arg1,
+                                    operacao.forma == Operacao.Forma.BINARIA && constante2 ? constante(valor2, booleanos) : arg2,
+                                    resultado);
+                        }
+                    }
+                    definir(resultado, dobrada);
+                    break;
+                }
+                case PARAM:
+                case SAIDA: {
+                    boolean constante = avaliar(arg1);
+                    if (reescrever && constante && !Operando.ehConstante(arg1)) {
+                        alterar(i, operacao, constante(valor, booleanos(operacao)), arg2, resultado);
+                    }
+                    break;
+                }
+                case DESVIO_SE_FALSO: {
+                    boolean constante = avaliar(arg1);
+                    condicao = constante ? (valor != 0 ? 1 : 0) : -1;
+                    if (reescrever && constante) {
+                        if (valor != 0) {
+                            retirar(i);
+                        } else {
+                            alterar(i, Operacao.DESVIO, Operando.NENHUM, Operando.NENHUM, resultado);
+                        }
+                    }
+                    break;
+                }
+                case CHAMADA:
+                    Arrays.fill(conhecida, false);
+                    if (resultado != Operando.NENHUM) {
+                        definir(resultado, false);
+                    }
+                    break;
+                default: // ROTULO, DESVIO
+                    break;
+            }
+        }
+    }
+
+    // Se o operando tem valor constante agora; o valor fica em this.valor.
+    private boolean avaliar(int operando) {
+        if (operando == Operando.NENHUM) {
+            return false;
+        }
+        int numero = Operando.valor(operando);
+        switch (Operando.tipo(operando)) {
+            case Operando.CONSTANTE:
+                return literal(operando);
+            case Operando.TEMPORARIO:
+                valor = valorDoTemporario[numero];
+                return visitaDoTemporario[numero] == visita;
+            case Operando.VARIAVEL: {
+                int v = indiceDaVariavel[numero];
+                valor = v >= 0 ? valorDaVariavel[v] : 0;
+                return v >= 0 && conhecida[v];
+            }
+            default:
+                return false;
+        }
+    }
+
+    // Valor do literal, lido do texto só na primeira vez; false se ele não cabe em 32 bits.
+    private boolean literal(int operando) {
+        int numero = Operando.valor(operando);
+        if (numero >= literais.length) {
+            literais = Arrays.copyOf(literais, Math.max(numero + 1, literais.length * 2));
+            valoresDosLiterais = Arrays.copyOf(valoresDosLiterais, literais.length);
+        }
+        if (literais[numero] == 0) {
+            String texto = codigo.texto(operando);
+            literais[numero] = CONSTANTE;
+            if (texto.equals("verdadeiro") || texto.equals("falso")) {
+                valoresDosLiterais[numero] = texto.equals("verdadeiro") ? 1 : 0;
+            } else {
+                try {
+                    valoresDosLiterais[numero] = Integer.parseInt(texto);
+                } catch (NumberFormatException e) {
+                    literais[numero] = VARIA;
+                }
+            }
+        }
+        valor = valoresDosLiterais[numero];
+        return literais[numero] == CONSTANTE;
+    }
+
+    // O resultado recebe this.valor (se constante) ou passa a ser desconhecido.
+    private void definir(int operando, boolean constante) {
+        int numero = Operando.valor(operando);
+        if (Operando.ehTemporario(operando)) {
+            visitaDoTemporario[numero] = constante ? visita : 0;
+            valorDoTemporario[numero] = valor;
+        } else if (Operando.ehVariavel(operando) && indiceDaVariavel[numero] >= 0) {
+            conhecida[indiceDaVariavel[numero]] = constante;
+            valorDaVariavel[indiceDaVariavel[numero]] = valor;
+        }
+    }
+
+    // Calcula a operação em this.valor; false se o resultado não deve ser dobrado.
+    private boolean dobrar(Operacao operacao, long a, long b) {
+        long resultado;
+        switch (operacao) {
+            case SOMA: resultado = a + b; break;
+            case SUBTRACAO: resultado = a - b; break;
+            case MULTIPLICACAO: resultado = a * b; break;
+            case DIVISAO:
+                if (b == 0) return false;
+                resultado = a / b;
+                break;
+            case MENOR: resultado = a < b ? 1 : 0; break;
+            case MENOR_IGUAL: resultado = a <= b ? 1 : 0; break;
+            case MAIOR: resultado = a > b ? 1 : 0; break;
+            case MAIOR_IGUAL: resultado = a >= b ? 1 : 0; break;
+            case IGUAL_INT: case IGUAL_BOOL: resultado = a == b ? 1 : 0; break;
+            case DIFERENTE_INT: case DIFERENTE_BOOL: resultado = a != b ? 1 : 0; break;
+            case E: resultado = a & b; break;
+            case OU: resultado = a | b; break;
+            case NAO: resultado = a ^ 1; break;
+            default: return false;
+        }
+        if (resultado != (int) resultado) {
+            return false;
+        }
+        valor = resultado;
+        return true;
+    }
+
+    // Se os operandos lidos pela operação são booleanos.
+    private static boolean booleanos(Operacao operacao) {
+        switch (operacao) {
+            case COPIA_BOOL: case IGUAL_BOOL: case DIFERENTE_BOOL: case E: case OU: case NAO:
+            case DESVIO_SE_FALSO: case PARAM_BOOL: case ESCREVA_BOOL: case RETORNO_BOOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean resultadoBooleano(Operacao operacao) {
+        switch (operacao) {
+            case SOMA: case SUBTRACAO: case MULTIPLICACAO: case DIVISAO:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private int constante(long valor, boolean booleano) {
+        return codigo.constante(booleano ? (valor != 0 ? "verdadeiro" : "falso") : Long.toString(valor));
+    }
+
+    private void alterar(int i, Operacao operacao, int arg1, int arg2, int resultado) {
+        codigo.substituir(i, operacao, arg1, arg2, resultado);
+        alteradas++;
+    }
+
+    private void retirar(int i) {
+        codigo.remover(i);
+        retiradas[i] = true;
+        alteradas++;
+    }
+
+    // Cópias de constantes para temporários que ninguém mais lê (o valor foi propagado).
+    private void retirarTemporariosSemUso() {
+        int quantidade = codigo.tamanho();
+        int[] leituras = new int[valorDoTemporario.length];
+        for (int i = 0; i < quantidade; i++) {
+            if (retiradas[i]) continue;
+            Operacao operacao = codigo.operacao(i);
+            if (operacao.leArg1() && Operando.ehTemporario(codigo.arg1(i))) leituras[Operando.valor(codigo.arg1(i))]++;
+            if (operacao.leArg2() && Operando.ehTemporario(codigo.arg2(i))) leituras[Operando.valor(codigo.arg2(i))]++;
+        }
+        for (int i = 0; i < quantidade; i++) {
+            Operacao operacao = codigo.operacao(i);
+            int resultado = codigo.resultado(i);
+            if (!retiradas[i] && operacao.forma == Operacao.Forma.COPIA && Operando.ehConstante(codigo.arg1(i))
+                    && Operando.ehTemporario(resultado) && leituras[Operando.valor(resultado)] == 0) {
+                retirar(i);
+            }
+        }
+    }
+}
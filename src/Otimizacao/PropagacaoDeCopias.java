@@ -0,0 +1,276 @@
+package Otimizacao;
+
+import GeradorCodigo.GeradorDeCodigo;
+import GeradorCodigo.Operacao;
+import GeradorCodigo.Operando;
+
+import java.util.Arrays;
+
+/**
+ * Tira as cópias que a geração de código deixa. Todo resultado de expressão passa por um
+ * temporário e é copiado para a variável: 't5 := a + b; x := t5' vira 'x := a + b' quando t5 só
+ * é lido nessa cópia e x não é lido nem escrito (nem há chamada) entre as duas. Depois, onde
+ * 'x := y' ainda vale, as leituras de x passam a ler y: uma análise de fluxo de dados em cada
+ * sub-rotina, como a da PropagacaoDeConstantes. As cópias que ficarem sem leitor saem na
+ * EliminacaoDeCodigoMorto.
+ *
+ * Uma chamada pode alterar qualquer variável, então desfaz todas as cópias conhecidas; uma cópia
+ * de temporário só vale até o fim do bloco, que é onde o temporário vive.
+ */
+public class PropagacaoDeCopias {
+    // Acima disso (blocos × variáveis de uma sub-rotina), as cópias só são seguidas dentro do bloco.
+    private static final long LIMITE_DO_ESTADO = 1 << 22;
+
+    private static final int INDEFINIDA = -2;   // nenhum caminho até o bloco foi visto ainda
+
+    private final GeradorDeCodigo codigo;
+    private GrafoDeFluxo grafo;
+    private boolean[] retiradas;
+    private int alteradas = 0;
+
+    private int[] indiceDaVariavel;             // variável -> índice no estado da sub-rotina, ou -1
+    private boolean[] ehOrigem;                 // variável copiada para outra em alguma cópia
+    private int quantidadeRastreadas;
+    private int[] localDoBloco;
+    // Por variável, o operando lido pela cópia que a definiu por último (se a cópia ainda vale).
+    // Guardar o operando original, e não a origem da cadeia, mantém a análise monótona.
+    private int[] copiaNaEntrada;               // por bloco local × variável: o operando, NENHUM ou INDEFINIDA
+    private int[] copia;                        // durante a passagem por um bloco
+
+    public PropagacaoDeCopias(GeradorDeCodigo codigo) {
+        this.codigo = codigo;
+    }
+
+    /**
+     * Otimiza o código no lugar. Devolve quantas quádruplas foram alteradas ou retiradas.
+     */
+    public int otimizar() {
+        grafo = new GrafoDeFluxo(codigo);
+        int quantidade = codigo.tamanho();
+        retiradas = new boolean[quantidade];
+        int maiorVariavel = -1;
+        int maiorTemporario = -1;
+        for (int i = 0; i < quantidade; i++) {
+            for (int operando : new int[]{codigo.arg1(i), codigo.arg2(i), codigo.resultado(i)}) {
+                if (operando == Operando.NENHUM) continue;
+                if (Operando.ehVariavel(operando)) maiorVariavel = Math.max(maiorVariavel, Operando.valor(operando));
+                if (Operando.ehTemporario(operando)) maiorTemporario = Math.max(maiorTemporario, Operando.valor(operando));
+            }
+        }
+        indiceDaVariavel = new int[maiorVariavel + 1];
+        Arrays.fill(indiceDaVariavel, -1);
+        ehOrigem = new boolean[maiorVariavel + 1];
+        localDoBloco = new int[grafo.quantidadeBlocos()];
+
+        juntarTemporarios(maiorTemporario + 1);
+
+        int alcancaveis = grafo.quantidadeAlcancaveis();
+        for (int inicio = 0, fim; inicio < alcancaveis; inicio = fim) {
+            fim = inicio + 1;
+            while (fim < alcancaveis && !grafo.ehRaiz(grafo.naOrdem(fim))) {
+                fim++;
+            }
+            analisar(inicio, fim);
+        }
+        codigo.compactar();
+        return alteradas;
+    }
+
+    // 't := expressão; x := t' vira 'x := expressão' quando isso não muda o que é lido no meio.
+    private void juntarTemporarios(int temporarios) {
+        int quantidade = codigo.tamanho();
+        int[] leituras = new int[temporarios];
+        int[] definicao = new int[temporarios];
+        for (int i = 0; i < quantidade; i++) {
+            Operacao operacao = codigo.operacao(i);
+            if (operacao.leArg1() && Operando.ehTemporario(codigo.arg1(i))) leituras[Operando.valor(codigo.arg1(i))]++;
+            if (operacao.leArg2() && Operando.ehTemporario(codigo.arg2(i))) leituras[Operando.valor(codigo.arg2(i))]++;
+            if (operacao.escreveResultado() && Operando.ehTemporario(codigo.resultado(i))) {
+                definicao[Operando.valor(codigo.resultado(i))] = i;
+            }
+        }
+        for (int j = 0; j < quantidade; j++) {
+            int temporario = codigo.arg1(j);
+            int variavel = codigo.resultado(j);
+            if (codigo.operacao(j).forma != Operacao.Forma.COPIA || !Operando.ehTemporario(temporario)
+                    || !Operando.ehVariavel(variavel) || leituras[Operando.valor(temporario)] != 1) {
+                continue;
+            }
+            int i = definicao[Operando.valor(temporario)];
+            if (i >= j || grafo.bloco(i) != grafo.bloco(j) || !livreEntre(i, j, variavel)) {
+                continue;
+            }
+            alterar(i, codigo.operacao(i), codigo.arg1(i), codigo.arg2(i), variavel);
+            retirar(j);
+        }
+    }
+
+    private boolean livreEntre(int i, int j, int variavel) {
+        for (int k = i + 1; k < j; k++) {
+            if (retiradas[k]) continue;
+            Operacao operacao = codigo.operacao(k);
+            if (operacao.forma == Operacao.Forma.CHAMADA
+                    || (operacao.leArg1() && codigo.arg1(k) == variavel)
+                    || (operacao.leArg2() && codigo.arg2(k) == variavel)
+                    || (operacao.escreveResultado() && codigo.resultado(k) == variavel)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void analisar(int inicio, int fim) {
+        int blocos = fim - inicio;
+        int[] rastreadas = new int[16];
+        quantidadeRastreadas = 0;
+        for (int k = inicio; k < fim; k++) {
+            int b = grafo.naOrdem(k);
+            localDoBloco[b] = k - inicio;
+            for (int i = grafo.inicio(b); i < grafo.fim(b); i++) {
+                Operacao operacao = codigo.operacao(i);
+                int resultado = codigo.resultado(i);
+                if (retiradas[i] || !operacao.escreveResultado() || resultado == Operando.NENHUM
+                        || !Operando.ehVariavel(resultado)) {
+                    continue;
+                }
+                if (indiceDaVariavel[Operando.valor(resultado)] < 0) {
+                    if (quantidadeRastreadas == rastreadas.length) {
+                        rastreadas = Arrays.copyOf(rastreadas, quantidadeRastreadas * 2);
+                    }
+                    rastreadas[quantidadeRastreadas] = Operando.valor(resultado);
+                    indiceDaVariavel[Operando.valor(resultado)] = quantidadeRastreadas++;
+                }
+                if (operacao.forma == Operacao.Forma.COPIA && Operando.ehVariavel(codigo.arg1(i))) {
+                    ehOrigem[Operando.valor(codigo.arg1(i))] = true;
+                }
+            }
+        }
+        copia = new int[quantidadeRastreadas];
+        boolean entreBlocos = quantidadeRastreadas > 0 && (long) blocos * quantidadeRastreadas <= LIMITE_DO_ESTADO;
+        copiaNaEntrada = new int[entreBlocos ? blocos * quantidadeRastreadas : 0];
+        if (entreBlocos) {
+            Arrays.fill(copiaNaEntrada, INDEFINIDA);
+            Arrays.fill(copiaNaEntrada, 0, quantidadeRastreadas, Operando.NENHUM);   // na raiz não há cópias
+            boolean mudou = true;
+            while (mudou) {
+                mudou = false;
+                for (int k = inicio; k < fim; k++) {
+                    int b = grafo.naOrdem(k);
+                    if (copiaNaEntrada[(k - inicio) * quantidadeRastreadas] == INDEFINIDA) {
+                        continue;                   // nenhum predecessor visto ainda
+                    }
+                    passar(b, false);
+                    for (int s = 0; s < grafo.quantidadeSucessores(b); s++) {
+                        mudou |= juntar(localDoBloco[grafo.sucessor(b, s)]);
+                    }
+                }
+            }
+        }
+        for (int k = inicio; k < fim; k++) {
+            passar(grafo.naOrdem(k), true);
+        }
+        for (int v = 0; v < quantidadeRastreadas; v++) {
+            indiceDaVariavel[rastreadas[v]] = -1;
+        }
+    }
+
+    private boolean juntar(int local) {
+        boolean mudou = false;
+        for (int v = 0, base = local * quantidadeRastreadas; v < quantidadeRastreadas; v++) {
+            int atual = copiaNaEntrada[base + v];
+            int nova = atual == INDEFINIDA || atual == copia[v] ? copia[v] : Operando.NENHUM;
+            if (nova != atual) {
+                copiaNaEntrada[base + v] = nova;
+                mudou = true;
+            }
+        }
+        return mudou;
+    }
+
+    // Percorre o bloco a partir das cópias que valem na entrada, deixando em copia as da saída;
+    // com reescrever, troca as leituras pelas origens e tira as cópias de uma variável nela mesma.
+    private void passar(int b, boolean reescrever) {
+        int base = localDoBloco[b] * quantidadeRastreadas;
+        for (int v = 0; v < quantidadeRastreadas; v++) {
+            int entrada = copiaNaEntrada.length > 0 ? copiaNaEntrada[base + v] : Operando.NENHUM;
+            copia[v] = entrada == INDEFINIDA ? Operando.NENHUM : entrada;
+        }
+        for (int i = grafo.inicio(b); i < grafo.fim(b); i++) {
+            if (retiradas[i]) {
+                continue;
+            }
+            Operacao operacao = codigo.operacao(i);
+            int lido = codigo.arg1(i);
+            int arg1 = operacao.leArg1() ? origem(lido) : lido;
+            int arg2 = operacao.leArg2() ? origem(codigo.arg2(i)) : codigo.arg2(i);
+            int resultado = codigo.resultado(i);
+            if (operacao.forma == Operacao.Forma.COPIA && arg1 == resultado) {
+                if (reescrever) {
+                    retirar(i);
+                }
+                continue;
+            }
+            if (reescrever) {
+                if (arg1 != codigo.arg1(i) || arg2 != codigo.arg2(i)) {
+                    alterar(i, operacao, arg1, arg2, resultado);
+                }
+            }
+            if (operacao.forma == Operacao.Forma.CHAMADA) {
+                Arrays.fill(copia, Operando.NENHUM);
+            }
+            if (operacao.escreveResultado() && resultado != Operando.NENHUM) {
+                desfazer(resultado);
+                if (operacao.forma == Operacao.Forma.COPIA && Operando.ehVariavel(resultado)) {
+                    copia[indiceDaVariavel[Operando.valor(resultado)]] = lido;
+                }
+            }
+        }
+        for (int v = 0; v < quantidadeRastreadas; v++) {
+            if (copia[v] != Operando.NENHUM && Operando.ehTemporario(copia[v])) {
+                copia[v] = Operando.NENHUM;
+            }
+        }
+    }
+
+    // O que o operando vale agora, seguindo as cópias (x := y; z := x: z vale y). Todas as cópias
+    // da cadeia continuam valendo, porque escrever uma variável desfaz as cópias que a leem.
+    private int origem(int operando) {
+        for (int passos = 0; passos < quantidadeRastreadas; passos++) {
+            if (operando == Operando.NENHUM || !Operando.ehVariavel(operando)) {
+                break;
+            }
+            int v = indiceDaVariavel[Operando.valor(operando)];
+            if (v < 0 || copia[v] == Operando.NENHUM) {
+                break;
+            }
+            operando = copia[v];
+        }
+        return operando;
+    }
+
+    // O operando foi escrito: deixa de ser cópia de algo e deixa de ser a origem de outras.
+    private void desfazer(int operando) {
+        if (!Operando.ehVariavel(operando)) {
+            return;
+        }
+        copia[indiceDaVariavel[Operando.valor(operando)]] = Operando.NENHUM;
+        if (ehOrigem[Operando.valor(operando)]) {
+            for (int v = 0; v < quantidadeRastreadas; v++) {
+                if (copia[v] == operando) {
+                    copia[v] = Operando.NENHUM;
+                }
+            }
+        }
+    }
+
+    private void alterar(int i, Operacao operacao, int arg1, int arg2, int resultado) {
+        codigo.substituir(i, operacao, arg1, arg2, resultado);
+        alteradas++;
+    }
+
+    private void retirar(int i) {
+        codigo.remover(i);
+        retiradas[i] = true;
+        alteradas++;
+    }
+}
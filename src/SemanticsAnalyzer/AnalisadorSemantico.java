@@ -0,0 +1,598 @@
+package SemanticsAnalyzer;
+
+import LexicalAnalyzer.TokenType;
+import SintaticoAnalyzer.ArvoreSintatica;
+import SintaticoAnalyzer.Diagnostico;
+import SintaticoAnalyzer.Diagnosticos;
+import SintaticoAnalyzer.ErroSemanticoException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Passo de análise semântica sobre a ArvoreSintatica: resolve os nomes na TabelaDeSimbolos,
+ * confere os tipos e anota nas chamadas usadas como comando se a sub-rotina é uma função.
+ *
+ * Cada variável e parâmetro recebe uma posição no quadro de quem o declara (o programa ou a
+ * sub-rotina), e os usos de variáveis (E_ID e ATRIBUICAO) são anotados com o seu Endereco.
+ * Os nós de expressão são anotados com o tipo do seu valor (ArvoreSintatica.tipoAnotado).
+ *
+ * Sem diagnosticos, lança o primeiro erro. Com diagnosticos, registra os erros; um erro que
+ * impede de continuar (ex.: identificador não declarado) abandona só o comando em que ocorreu.
+ *
+ * analisarEmParalelo() dá o mesmo resultado, mas analisa o corpo de cada sub-rotina (e o do
+ * programa) em uma tarefa do ForkJoinPool.
+ */
+public class AnalisadorSemantico {
+    private final ArvoreSintatica arvore;
+    private final Diagnosticos diagnosticos;
+    private final TabelaDeSimbolos tabelaDeSimbolos;
+
+    // Variáveis de estado para controle semântico contextual.
+    private int lacosAbertos = 0;
+    private enum CategoriaSubRotina { NENHUMA, FUNCAO, PROCEDIMENTO }
+    private CategoriaSubRotina subRotinaAtual = CategoriaSubRotina.NENHUMA;
+    private Simbolo funcaoAtual = null;
+    private int profundidade = 0;          // do quadro das declarações sendo lidas
+    private Simbolo donoDoQuadro = null;   // o programa ou a sub-rotina dona desse quadro
+
+    // Pilhas da avaliação de tipos das expressões (pós-fixas).
+    private TokenType[] tipos = new TokenType[16];
+    private int topoTipos = 0;
+    private Simbolo[] chamadas = new Simbolo[8];
+    private int[] argumentosLidos = new int[8];
+    private int topoChamadas = 0;
+
+    // MODO PARALELO: o percurso das declarações guarda cada corpo numa unidade em vez de analisá-lo,
+    // e os erros de cada passo são coletados aqui para depois serem reportados em ordem.
+    private List<Unidade> unidades = null;
+    private List<ErroSemanticoException> errosColetados = null;
+
+    /**
+     * Corpo (lista de comandos) de uma sub-rotina ou do programa, com uma cópia dos escopos
+     * visíveis nele: comandos não declaram nada, então só leem a cópia.
+     */
+    private static final class Unidade {
+        final int comandos;
+        final TabelaDeSimbolos escopos;
+        final CategoriaSubRotina subRotina;
+        final Simbolo funcao;
+        final List<ErroSemanticoException> errosAntes; // das declarações lidas antes deste corpo
+        List<ErroSemanticoException> erros;
+
+        Unidade(int comandos, TabelaDeSimbolos escopos, CategoriaSubRotina subRotina, Simbolo funcao,
+                List<ErroSemanticoException> errosAntes) {
+            this.comandos = comandos;
+            this.escopos = escopos;
+            this.subRotina = subRotina;
+            this.funcao = funcao;
+            this.errosAntes = errosAntes;
+        }
+    }
+
+    // Interrompe a análise quando o limite de erros é atingido.
+    private static class LimiteDeErrosAtingido extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LimiteDeErrosAtingido() {
+            super(null, null, false, false);
+        }
+    }
+
+    public AnalisadorSemantico(ArvoreSintatica arvore, Diagnosticos diagnosticos) {
+        this.arvore = arvore;
+        this.diagnosticos = diagnosticos;
+        this.tabelaDeSimbolos = new TabelaDeSimbolos();
+    }
+
+    /**
+     * Analisador de um trecho do programa (ver analisarTrecho()). A tabela dada já tem os símbolos
+     * globais declarados pelos trechos anteriores, e o trecho acrescenta os seus a ela.
+     */
+    public AnalisadorSemantico(ArvoreSintatica arvore, Diagnosticos diagnosticos, TabelaDeSimbolos tabelaDeSimbolos) {
+        this.arvore = arvore;
+        this.diagnosticos = diagnosticos;
+        this.tabelaDeSimbolos = tabelaDeSimbolos;
+    }
+
+    // Analisador de uma unidade, numa tarefa do modo paralelo.
+    private AnalisadorSemantico(ArvoreSintatica arvore, Unidade unidade) {
+        this.arvore = arvore;
+        this.diagnosticos = null;
+        this.tabelaDeSimbolos = unidade.escopos;
+        this.subRotinaAtual = unidade.subRotina;
+        this.funcaoAtual = unidade.funcao;
+        this.errosColetados = new ArrayList<>();
+    }
+
+    public void analisar() {
+        int programa = arvore.raiz();
+        if (programa < 0) {
+            return;
+        }
+        try {
+            declararPrograma(programa);
+            if (arvore.b(programa) >= 0) {
+                bloco(arvore.b(programa));
+            }
+        } catch (LimiteDeErrosAtingido e) {
+            // Os erros já estão em diagnosticos.
+        }
+    }
+
+    /**
+     * Analisa uma árvore lida por Parser.parseCabecalho(), parseSubRotina() ou parseCorpo():
+     * o cabeçalho declara o programa e as variáveis globais; uma sub-rotina declara a si mesma.
+     */
+    public void analisarTrecho() {
+        int raiz = arvore.raiz();
+        if (raiz < 0) {
+            return;
+        }
+        try {
+            if (arvore.tipo(raiz) == ArvoreSintatica.PROGRAMA) {
+                declararPrograma(raiz);
+                if (arvore.b(raiz) >= 0) {
+                    for (int decl = arvore.a(arvore.b(raiz)); decl >= 0; decl = arvore.proximo(decl)) {
+                        declaracao(decl);
+                    }
+                }
+            } else {
+                bloco(raiz);
+            }
+        } catch (LimiteDeErrosAtingido e) {
+            // Os erros já estão em diagnosticos.
+        }
+    }
+
+    /**
+     * Mesmo resultado de analisar(): um percurso sequencial das declarações insere os símbolos
+     * e tira uma cópia dos escopos no ponto de cada corpo; depois os corpos são analisados em
+     * paralelo e seus erros reportados na ordem em que a análise sequencial os encontraria.
+     * Com um só processador, faz a análise sequencial.
+     */
+    public void analisarEmParalelo() {
+        int programa = arvore.raiz();
+        if (programa < 0) {
+            return;
+        }
+        if (Runtime.getRuntime().availableProcessors() < 2) {
+            analisar();
+            return;
+        }
+        unidades = new ArrayList<>();
+        errosColetados = new ArrayList<>();
+        declararPrograma(programa);
+        if (arvore.b(programa) >= 0) {
+            bloco(arvore.b(programa));
+        }
+        List<ErroSemanticoException> errosFinais = errosColetados;
+        errosColetados = null;
+
+        List<ForkJoinTask<?>> tarefas = new ArrayList<>();
+        for (Unidade unidade : unidades) {
+            tarefas.add(ForkJoinTask.adapt(() -> {
+                AnalisadorSemantico analisador = new AnalisadorSemantico(arvore, unidade);
+                analisador.comandos(unidade.comandos);
+                unidade.erros = analisador.errosColetados;
+            }));
+        }
+        ForkJoinTask.invokeAll(tarefas);
+
+        try {
+            for (Unidade unidade : unidades) {
+                unidade.errosAntes.forEach(this::reportar);
+                unidade.erros.forEach(this::reportar);
+            }
+            errosFinais.forEach(this::reportar);
+        } catch (LimiteDeErrosAtingido e) {
+            // Os erros já estão em diagnosticos.
+        }
+    }
+
+    private void declararPrograma(int programa) {
+        int idNome = arvore.a(programa);
+        donoDoQuadro = new Simbolo(arvore.nome(idNome), idNome, TipoSimbolo.PROGRAMA, null);
+        tabelaDeSimbolos.inserir(donoDoQuadro);
+    }
+
+    /**
+     * Dá à variável ou parâmetro a próxima posição livre do quadro atual.
+     */
+    private void alocar(Simbolo variavel, int linha) {
+        if (profundidade > Endereco.MAX_PROFUNDIDADE || donoDoQuadro.tamanhoDoQuadro > Endereco.MAX_POSICAO) {
+            erro("Limite de sub-rotinas aninhadas ou de variáveis por sub-rotina excedido.", linha);
+            return;
+        }
+        variavel.endereco = Endereco.de(profundidade, donoDoQuadro.tamanhoDoQuadro++);
+    }
+
+    /**
+     * Erro que não impede a análise de continuar: no modo de recuperação é só registrado;
+     * caso contrário é lançado.
+     */
+    private void erro(String mensagem, int linha) {
+        reportar(new ErroSemanticoException(mensagem, linha));
+    }
+
+    private void reportar(ErroSemanticoException erro) {
+        if (errosColetados != null) {
+            errosColetados.add(erro);
+        } else if (diagnosticos == null) {
+            throw erro;
+        } else {
+            registrar(erro);
+        }
+    }
+
+    private void registrar(ErroSemanticoException erro) {
+        diagnosticos.adicionar(new Diagnostico(Diagnostico.Tipo.SEMANTICO, erro.linha, erro.getMessage()));
+        if (diagnosticos.limiteAtingido(Diagnostico.Tipo.SEMANTICO)) {
+            throw new LimiteDeErrosAtingido();
+        }
+    }
+
+    private void bloco(int bloco) {
+        for (int decl = arvore.a(bloco); decl >= 0; decl = arvore.proximo(decl)) {
+            declaracao(decl);
+        }
+        for (int sub = arvore.b(bloco); sub >= 0; sub = arvore.proximo(sub)) {
+            subRotina(sub);
+        }
+        if (arvore.c(bloco) < 0) {
+            return;
+        }
+        if (unidades == null) {
+            comandos(arvore.c(bloco));
+        } else {
+            unidades.add(new Unidade(arvore.c(bloco), tabelaDeSimbolos.copia(), subRotinaAtual, funcaoAtual, errosColetados));
+            errosColetados = new ArrayList<>();
+        }
+    }
+
+    private void declaracao(int decl) {
+        TokenType tipoVariavel = ArvoreSintatica.tipoDoCampo(arvore.b(decl));
+        if (tipoVariavel == null) {
+            return; // declaração interrompida por um erro sintático
+        }
+        for (int id = arvore.a(decl); id >= 0; id = arvore.proximo(id)) {
+            int idNome = arvore.a(id);
+            Simbolo variavel = new Simbolo(arvore.nome(idNome), idNome, TipoSimbolo.VARIAVEL, tipoVariavel);
+            try {
+                tabelaDeSimbolos.inserir(variavel);
+            } catch (RuntimeException e) {
+                erro(e.getMessage(), arvore.linha(id));
+                continue;
+            }
+            alocar(variavel, arvore.linha(id));
+        }
+    }
+
+    private void subRotina(int sub) {
+        boolean ehFuncao = arvore.tipo(sub) == ArvoreSintatica.FUNCAO;
+        int idNome = arvore.a(sub);
+        int linha = arvore.linha(sub);
+
+        // 1. Cria o símbolo, com os parâmetros e o tipo de retorno.
+        Simbolo simbolo = new Simbolo(arvore.nome(idNome), idNome,
+                ehFuncao ? TipoSimbolo.FUNCAO : TipoSimbolo.PROCEDIMENTO, null);
+        for (int grupo = arvore.b(sub); grupo >= 0; grupo = arvore.proximo(grupo)) {
+            TokenType tipoParametro = ArvoreSintatica.tipoDoCampo(arvore.b(grupo));
+            if (tipoParametro == null) {
+                continue;
+            }
+            for (int id = arvore.a(grupo); id >= 0; id = arvore.proximo(id)) {
+                int idParametro = arvore.a(id);
+                simbolo.parametros.add(new Simbolo(arvore.nome(idParametro), idParametro, TipoSimbolo.VARIAVEL, tipoParametro));
+            }
+        }
+        if (ehFuncao) {
+            simbolo.tipo = ArvoreSintatica.tipoDoCampo(arvore.d(sub));
+        }
+
+        // 2. Insere o símbolo na tabela do escopo PAI.
+        try {
+            tabelaDeSimbolos.inserir(simbolo);
+        } catch (RuntimeException e) {
+            erro(e.getMessage(), linha);
+        }
+
+        // 3. ABRE o escopo e o quadro do corpo e insere os parâmetros como variáveis locais.
+        tabelaDeSimbolos.abrirEscopo();
+        Simbolo donoAnterior = this.donoDoQuadro;
+        this.donoDoQuadro = simbolo;
+        this.profundidade++;
+        for (Simbolo param : simbolo.parametros) {
+            try {
+                tabelaDeSimbolos.inserir(param);
+            } catch (RuntimeException e) {
+                erro("Parâmetro '" + param.nome + "' já declarado " + (ehFuncao ? "nesta função." : "neste procedimento."), linha);
+                continue;
+            }
+            alocar(param, linha);
+        }
+
+        CategoriaSubRotina estadoAnteriorSub = this.subRotinaAtual;
+        Simbolo estadoAnteriorFunc = this.funcaoAtual;
+        try {
+            this.subRotinaAtual = ehFuncao ? CategoriaSubRotina.FUNCAO : CategoriaSubRotina.PROCEDIMENTO;
+            if (ehFuncao) {
+                this.funcaoAtual = simbolo;
+            }
+            if (arvore.c(sub) >= 0) {
+                bloco(arvore.c(sub));
+            }
+        } finally {
+            this.subRotinaAtual = estadoAnteriorSub;
+            this.funcaoAtual = estadoAnteriorFunc;
+            this.donoDoQuadro = donoAnterior;
+            this.profundidade--;
+            tabelaDeSimbolos.fecharEscopo();
+        }
+    }
+
+    private void comandos(int lista) {
+        for (int cmd = arvore.a(lista); cmd >= 0; cmd = arvore.proximo(cmd)) {
+            comando(cmd);
+        }
+    }
+
+    private void comando(int no) {
+        try {
+            comando_sem_recuperacao(no);
+        } catch (ErroSemanticoException e) {
+            reportar(e);
+        }
+    }
+
+    private void comando_sem_recuperacao(int no) {
+        int linha = arvore.linha(no);
+        switch (arvore.tipo(no)) {
+            case ArvoreSintatica.CMD_BLOCO:
+                comandos(no);
+                break;
+
+            case ArvoreSintatica.ATRIBUICAO: {
+                Simbolo simbolo = buscarDeclarado(no);
+                arvore.anotar(no, simbolo.endereco);
+                if (arvore.c(no) < 0) break;
+                TokenType tipoExpr = expressao(arvore.b(no), arvore.c(no));
+                if (simbolo.tipo != tipoExpr) {
+                    erro("Tipos incompatíveis para atribuição. Esperado '" + simbolo.tipo + "' mas encontrado '" + tipoExpr + "'.", linha);
+                }
+                break;
+            }
+
+            case ArvoreSintatica.CHAMADA:
+            case ArvoreSintatica.CHAMADA_SIMPLES: {
+                Simbolo simbolo = buscarDeclarado(no);
+                if (simbolo.categoria != TipoSimbolo.PROCEDIMENTO && simbolo.categoria != TipoSimbolo.FUNCAO) {
+                    throw new ErroSemanticoException("'" + simbolo.nome + "' não é uma sub-rotina e não pode ser chamado.", linha);
+                }
+                arvore.anotar(no, simbolo.categoria == TipoSimbolo.FUNCAO ? 1 : 0);
+                arvore.anotarTipo(no, simbolo.categoria == TipoSimbolo.FUNCAO ? simbolo.tipo : null);
+                if (arvore.tipo(no) == ArvoreSintatica.CHAMADA_SIMPLES) {
+                    if (!simbolo.parametros.isEmpty()) {
+                        erro("Esperado " + simbolo.parametros.size() + " argumentos para '" + simbolo.nome + "', mas 0 foi fornecido.", arvore.d(no));
+                    }
+                } else if (arvore.c(no) >= 0) {
+                    topoTipos = 0;
+                    topoChamadas = 0;
+                    empilharChamada(simbolo);
+                    avaliar(arvore.b(no), arvore.c(no));
+                    verificarFaltaDeArgumentos(simbolo, argumentosLidos[0], arvore.d(no));
+                }
+                break;
+            }
+
+            case ArvoreSintatica.SE:
+                if (arvore.b(no) < 0) break;
+                if (expressao(arvore.a(no), arvore.b(no)) != TokenType.BOOLEANO) {
+                    erro("Condição do 'se' deve ser booleana.", linha);
+                }
+                if (arvore.c(no) >= 0) comando(arvore.c(no));
+                if (arvore.d(no) >= 0) comando(arvore.d(no));
+                break;
+
+            case ArvoreSintatica.ENQUANTO:
+                if (arvore.b(no) < 0) break;
+                if (expressao(arvore.a(no), arvore.b(no)) != TokenType.BOOLEANO) {
+                    erro("Condição do 'enquanto' deve ser booleana.", linha);
+                }
+                if (arvore.c(no) >= 0) {
+                    lacosAbertos++;
+                    try {
+                        comando(arvore.c(no));
+                    } finally {
+                        lacosAbertos--;
+                    }
+                }
+                break;
+
+            case ArvoreSintatica.ESCREVA:
+                if (arvore.b(no) >= 0) expressao(arvore.a(no), arvore.b(no));
+                break;
+
+            case ArvoreSintatica.RETORNO:
+                if (this.subRotinaAtual != CategoriaSubRotina.FUNCAO) {
+                    erro("Comando 'retorno' só pode ser usado dentro de uma função.", linha);
+                }
+                if (arvore.b(no) < 0) break;
+                TokenType tipoExpr = expressao(arvore.a(no), arvore.b(no));
+                if (this.subRotinaAtual == CategoriaSubRotina.FUNCAO && funcaoAtual.tipo != tipoExpr) {
+                    erro("Tipo de retorno incompatível. Esperado " + funcaoAtual.tipo + " mas encontrado " + tipoExpr + ".", arvore.d(no));
+                }
+                break;
+
+            case ArvoreSintatica.BREAK:
+                if (lacosAbertos == 0) {
+                    erro("'break' fora de um laço 'enquanto'", linha);
+                }
+                break;
+
+            case ArvoreSintatica.CONTINUE:
+                if (lacosAbertos == 0) {
+                    erro("'continue' fora de um laço 'enquanto'", linha);
+                }
+                break;
+
+            default: // VAZIO
+                break;
+        }
+    }
+
+    private Simbolo buscarDeclarado(int no) {
+        int idNome = arvore.a(no);
+        Simbolo simbolo = tabelaDeSimbolos.buscar(idNome);
+        if (simbolo == null) {
+            throw new ErroSemanticoException("Identificador '" + arvore.nome(idNome) + "' não foi declarado.", arvore.linha(no));
+        }
+        return simbolo;
+    }
+
+    /**
+     * Tipo de uma expressão completa [inicio, fim).
+     */
+    private TokenType expressao(int inicio, int fim) {
+        topoTipos = 0;
+        topoChamadas = 0;
+        avaliar(inicio, fim);
+        return tipos[topoTipos - 1];
+    }
+
+    /**
+     * Avalia os tipos dos nós pós-fixos [inicio, fim) com pilhas explícitas, na mesma ordem
+     * em que as quádruplas são geradas.
+     */
+    private void avaliar(int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            int linha = arvore.linha(i);
+            switch (arvore.tipo(i)) {
+                case ArvoreSintatica.E_ID: {
+                    Simbolo s = tabelaDeSimbolos.buscar(arvore.a(i));
+                    if (s == null) throw new ErroSemanticoException("Identificador não declarado: " + arvore.nome(arvore.a(i)), linha);
+                    arvore.anotar(i, s.endereco);
+                    empilhar(i, s.tipo);
+                    break;
+                }
+                case ArvoreSintatica.E_LITERAL:
+                    empilhar(i, ArvoreSintatica.tipoDoCampo(arvore.b(i)));
+                    break;
+                case ArvoreSintatica.E_BINARIO: {
+                    TokenType dir = tipos[--topoTipos];
+                    TokenType esq = tipos[--topoTipos];
+                    empilhar(i, operacaoBinaria(i, esq, dir));
+                    break;
+                }
+                case ArvoreSintatica.E_NAO:
+                    if (tipos[--topoTipos] != TokenType.BOOLEANO) {
+                        erro("Operador 'nao' só pode ser aplicado a booleanos.", linha);
+                    }
+                    empilhar(i, TokenType.BOOLEANO);
+                    break;
+                case ArvoreSintatica.E_CHAMADA: {
+                    Simbolo s = tabelaDeSimbolos.buscar(arvore.a(i));
+                    if (s == null) throw new ErroSemanticoException("Identificador não declarado: " + arvore.nome(arvore.a(i)), linha);
+                    if (s.categoria != TipoSimbolo.FUNCAO) {
+                        throw new ErroSemanticoException("'" + s.nome + "' não é uma função.", linha);
+                    }
+                    empilharChamada(s);
+                    break;
+                }
+                case ArvoreSintatica.E_ARG: {
+                    Simbolo subRotina = chamadas[topoChamadas - 1];
+                    if (argumentosLidos[topoChamadas - 1] >= subRotina.parametros.size()) {
+                        throw new ErroSemanticoException("Número excessivo de argumentos para a chamada de '" + subRotina.nome + "'.", linha);
+                    }
+                    break;
+                }
+                case ArvoreSintatica.E_ARG_FIM: {
+                    Simbolo subRotina = chamadas[topoChamadas - 1];
+                    int indiceArgumento = argumentosLidos[topoChamadas - 1]++;
+                    TokenType tipoArgumento = tipos[--topoTipos];
+                    Simbolo parametroEsperado = subRotina.parametros.get(indiceArgumento);
+                    if (tipoArgumento != parametroEsperado.tipo) {
+                        erro("Tipo de argumento incompatível na chamada de '" + subRotina.nome +
+                                        "'. Parâmetro " + (indiceArgumento + 1) + " espera " + parametroEsperado.tipo +
+                                        " mas recebeu " + tipoArgumento + ".",
+                                linha);
+                    }
+                    break;
+                }
+                case ArvoreSintatica.E_CHAMADA_FIM: {
+                    topoChamadas--;
+                    Simbolo funcao = chamadas[topoChamadas];
+                    verificarFaltaDeArgumentos(funcao, argumentosLidos[topoChamadas], linha);
+                    empilhar(i, funcao.tipo);
+                    break;
+                }
+            }
+        }
+    }
+
+    private TokenType operacaoBinaria(int no, TokenType esq, TokenType dir) {
+        TokenType op = ArvoreSintatica.tipoDoCampo(arvore.a(no));
+        int linha = arvore.linha(no);
+        switch (op) {
+            case IGUAL:
+            case DIFERENTE:
+                if (esq != dir) {
+                    erro("Os operadores '=' e '!=' exigem operandos do mesmo tipo ("
+                            + esq + " vs " + dir + ").", linha);
+                }
+                return TokenType.BOOLEANO;
+
+            case MENOR:
+            case MENOR_IGUAL:
+            case MAIOR:
+            case MAIOR_IGUAL:
+                if (esq != TokenType.INTEIRO || dir != TokenType.INTEIRO) {
+                    erro("O operador '" + arvore.texto(arvore.b(no)) + "' exige operandos inteiros.", linha);
+                }
+                return TokenType.BOOLEANO;
+
+            case OU:
+                if (esq != TokenType.BOOLEANO || dir != TokenType.BOOLEANO) erro("Operador 'ou' exige operandos booleanos.", linha);
+                return TokenType.BOOLEANO;
+
+            case MAIS:
+            case MENOS:
+                if (esq != TokenType.INTEIRO || dir != TokenType.INTEIRO) erro("Operadores '+' e '-' exigem operandos inteiros.", linha);
+                return TokenType.INTEIRO;
+
+            case E:
+                if (esq != TokenType.BOOLEANO || dir != TokenType.BOOLEANO) erro("Operador 'e' exige operandos booleanos.", linha);
+                return TokenType.BOOLEANO;
+
+            default: // MULT, DIVISAO
+                if (esq != TokenType.INTEIRO || dir != TokenType.INTEIRO) erro("Operadores '*' e '/' exigem operandos inteiros.", linha);
+                return TokenType.INTEIRO;
+        }
+    }
+
+    private void verificarFaltaDeArgumentos(Simbolo subRotina, int argumentosFornecidos, int linha) {
+        if (argumentosFornecidos < subRotina.parametros.size()) {
+            erro("Faltam argumentos para a chamada de '" + subRotina.nome + "'. Esperado " + subRotina.parametros.size() + ", mas fornecido " + argumentosFornecidos + ".", linha);
+        }
+    }
+
+    // Empilha o tipo do valor da expressão que termina no nó, e o anota nele para a geração de código.
+    private void empilhar(int no, TokenType tipo) {
+        if (topoTipos == tipos.length) {
+            tipos = Arrays.copyOf(tipos, topoTipos * 2);
+        }
+        tipos[topoTipos++] = tipo;
+        arvore.anotarTipo(no, tipo);
+    }
+
+    private void empilharChamada(Simbolo subRotina) {
+        if (topoChamadas == chamadas.length) {
+            chamadas = Arrays.copyOf(chamadas, topoChamadas * 2);
+            argumentosLidos = Arrays.copyOf(argumentosLidos, topoChamadas * 2);
+        }
+        chamadas[topoChamadas] = subRotina;
+        argumentosLidos[topoChamadas++] = 0;
+    }
+}
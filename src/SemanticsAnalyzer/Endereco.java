@@ -0,0 +1,35 @@
+package SemanticsAnalyzer;
+
+/**
+ * Endereço de uma variável, resolvido na análise semântica: (profundidade, posição) num só int.
+ *
+ * A profundidade é a do quadro onde a variável foi declarada (0 para as globais, 1 para uma
+ * sub-rotina do programa, 2 para uma sub-rotina dentro dela...). A posição é o índice dentro
+ * do quadro: primeiro os parâmetros, na ordem, depois as variáveis locais, na ordem.
+ */
+public final class Endereco {
+    public static final int NENHUM = -1;
+
+    private static final int BITS_POSICAO = 21;
+    public static final int MAX_PROFUNDIDADE = (1 << (31 - BITS_POSICAO)) - 1;
+    public static final int MAX_POSICAO = (1 << BITS_POSICAO) - 1;
+
+    private Endereco() {
+    }
+
+    public static int de(int profundidade, int posicao) {
+        return profundidade << BITS_POSICAO | posicao;
+    }
+
+    public static int profundidade(int endereco) {
+        return endereco >>> BITS_POSICAO;
+    }
+
+    public static int posicao(int endereco) {
+        return endereco & MAX_POSICAO;
+    }
+
+    public static String comoTexto(int endereco) {
+        return endereco == NENHUM ? "-" : "[" + profundidade(endereco) + "," + posicao(endereco) + "]";
+    }
+}
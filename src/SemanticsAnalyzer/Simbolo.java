@@ -6,13 +6,20 @@ import java.util.List;
 
 public class Simbolo {
     public final String nome;
+    public final int idNome; // número do nome na TabelaDeNomes do léxico
     public final TipoSimbolo categoria;
     public TokenType tipo;
 
+    // Variáveis e parâmetros: onde ficam no quadro (ver Endereco).
+    public int endereco = Endereco.NENHUM;
+    // Sub-rotinas e o programa: quantas posições o seu quadro tem.
+    public int tamanhoDoQuadro = 0;
+
     public final List<Simbolo> parametros = new ArrayList<>();
 
-    public Simbolo(String nome, TipoSimbolo categoria, TokenType tipo) {
+    public Simbolo(String nome, int idNome, TipoSimbolo categoria, TokenType tipo) {
         this.nome = nome;
+        this.idNome = idNome;
         this.categoria = categoria;
         this.tipo = tipo;
     }
@@ -23,6 +30,7 @@ public class Simbolo {
                 "nome='" + nome + '\'' +
                 ", categoria=" + categoria +
                 ", tipo=" + tipo +
+                (endereco != Endereco.NENHUM ? ", endereco=" + Endereco.comoTexto(endereco) : "") +
                 ", parametros=" + parametros.size() +
                 '}';
     }
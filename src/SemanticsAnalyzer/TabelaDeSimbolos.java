@@ -1,43 +1,104 @@
 package SemanticsAnalyzer;
 
-import LexicalAnalyzer.Token;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.Collection;
 
+/**
+ * Escopos aninhados indexados pelo número do nome (TabelaDeNomes), não pelo texto.
+ *
+ * Uma tabela só para todos os escopos: atual[idNome] aponta para a declaração mais interna do
+ * nome, e cada declaração guarda a que ela esconde. As declarações ficam em ordem de inserção
+ * num vetor que serve de registro para desfazer: fecharEscopo volta até a marca do escopo,
+ * restaurando as declarações escondidas. Buscar é um acesso ao vetor, em qualquer profundidade.
+ */
 public class TabelaDeSimbolos {
-    private final Stack<Map<String, Simbolo>> tabela;
+    private static final int NENHUM = -1;
+
+    private int[] atual = vazio(64);                        // por número de nome: declaração visível
+    private Simbolo[] simbolos = new Simbolo[64];           // declarações, em ordem de inserção
+    private int[] escondidas = new int[64];                 // declaração do mesmo nome escondida por esta
+    private int[] escopos = new int[64];                    // profundidade do escopo de cada declaração
+    private int quantidade = 0;
+    private int[] marcas = new int[8];                      // quantidade ao abrir cada escopo
+    private int profundidade = -1;
 
     public TabelaDeSimbolos() {
-        this.tabela = new Stack<>();
         abrirEscopo(); // Abre o escopo global
     }
 
+    private static int[] vazio(int tamanho) {
+        int[] vetor = new int[tamanho];
+        Arrays.fill(vetor, NENHUM);
+        return vetor;
+    }
+
+    /**
+     * Cópia dos escopos abertos, que não muda com inserções feitas depois nesta tabela.
+     */
+    public TabelaDeSimbolos copia() {
+        TabelaDeSimbolos copia = new TabelaDeSimbolos();
+        copia.atual = atual.clone();
+        copia.simbolos = Arrays.copyOf(simbolos, Math.max(quantidade, 1));
+        copia.escondidas = Arrays.copyOf(escondidas, Math.max(quantidade, 1));
+        copia.escopos = Arrays.copyOf(escopos, Math.max(quantidade, 1));
+        copia.quantidade = quantidade;
+        copia.marcas = marcas.clone();
+        copia.profundidade = profundidade;
+        return copia;
+    }
+
+    /**
+     * Símbolos do escopo global, em ordem de declaração.
+     */
+    public Collection<Simbolo> globais() {
+        return Arrays.asList(Arrays.copyOf(simbolos, profundidade > 0 ? marcas[1] : quantidade));
+    }
+
     public void abrirEscopo() {
-        tabela.push(new HashMap<>());
+        if (++profundidade == marcas.length) {
+            marcas = Arrays.copyOf(marcas, marcas.length * 2);
+        }
+        marcas[profundidade] = quantidade;
     }
 
     public void fecharEscopo() {
-        if (!tabela.isEmpty()) {
-            tabela.pop();
+        if (profundidade < 0) {
+            return;
+        }
+        int marca = marcas[profundidade--];
+        while (quantidade > marca) {
+            quantidade--;
+            atual[simbolos[quantidade].idNome] = escondidas[quantidade];
+            simbolos[quantidade] = null;
         }
     }
 
     public void inserir(Simbolo simbolo) {
-        Map<String, Simbolo> escopoAtual = tabela.peek();
-        if (escopoAtual.containsKey(simbolo.nome)) {
+        int idNome = simbolo.idNome;
+        if (idNome >= atual.length) {
+            int tamanho = Math.max(idNome + 1, atual.length * 2);
+            int antigo = atual.length;
+            atual = Arrays.copyOf(atual, tamanho);
+            Arrays.fill(atual, antigo, tamanho, NENHUM);
+        }
+        int visivel = atual[idNome];
+        if (visivel != NENHUM && escopos[visivel] == profundidade) {
             // Lançaria um erro de dupla declaração
             throw new RuntimeException("Erro Semântico: Identificador '" + simbolo.nome + "' já declarado neste escopo.");
         }
-        escopoAtual.put(simbolo.nome, simbolo);
+        if (quantidade == simbolos.length) {
+            simbolos = Arrays.copyOf(simbolos, quantidade * 2);
+            escondidas = Arrays.copyOf(escondidas, quantidade * 2);
+            escopos = Arrays.copyOf(escopos, quantidade * 2);
+        }
+        simbolos[quantidade] = simbolo;
+        escondidas[quantidade] = visivel;
+        escopos[quantidade] = profundidade;
+        atual[idNome] = quantidade++;
     }
 
-    public Simbolo buscar(String nome) {
-        for (int i = tabela.size() - 1; i >= 0; i--) {
-            if (tabela.get(i).containsKey(nome)) {
-                return tabela.get(i).get(nome);
-            }
-        }
-        return null; // Não encontrado
+    public Simbolo buscar(int idNome) {
+        int indice = idNome < atual.length ? atual[idNome] : NENHUM;
+        return indice == NENHUM ? null : simbolos[indice]; // null: não encontrado
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,187 @@
+package SintaticoAnalyzer;
+
+import LexicalAnalyzer.TokenType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Árvore sintática em arena: um nó é só um índice nos vetores abaixo, sem um objeto por nó.
+ *
+ * Listas (declarações, sub-rotinas, comandos, identificadores) são encadeadas por proximo(no).
+ * Expressões ficam em ordem pós-fixa num intervalo contíguo [inicio, fim) de nós, na mesma ordem
+ * em que a análise e a geração de código precisam visitá-las, então nenhum passo precisa de recursão.
+ * Um campo -1 indica uma parte que não foi lida (o parser parou ou se recuperou de um erro ali).
+ *
+ * Campos de cada tipo de nó:
+ *   PROGRAMA         a = nome, b = BLOCO
+ *   BLOCO            a = 1ª DECL_VAR, b = 1ª sub-rotina, c = CMD_BLOCO
+ *   DECL_VAR         a = 1º IDENT, b = tipo (também usado para um grupo de parâmetros)
+ *   IDENT            a = nome
+ *   PROCEDIMENTO     a = nome, b = 1º grupo de parâmetros, c = BLOCO
+ *   FUNCAO           idem, d = tipo de retorno
+ *   CMD_BLOCO        a = 1º comando, b = fim do intervalo de nós dos comandos (que começa no próprio nó)
+ *   ATRIBUICAO       a = nome, [b, c) = expressão
+ *   CHAMADA          a = nome, [b, c) = argumentos, d = linha onde faltariam argumentos
+ *   CHAMADA_SIMPLES  a = nome, d = linha onde faltariam argumentos (chamada sem parênteses)
+ *   SE               [a, b) = condição, c = comando 'entao', d = comando 'senao' (-1 se não há)
+ *   ENQUANTO         [a, b) = condição, c = corpo
+ *   ESCREVA          [a, b) = expressão
+ *   RETORNO          [a, b) = expressão, d = linha do token após a expressão
+ *   BREAK, CONTINUE, VAZIO
+ * Expressões (pós-fixa):
+ *   E_ID             a = nome
+ *   E_LITERAL        a = texto, b = tipo (INTEIRO ou BOOLEANO)
+ *   E_BINARIO        a = operador (TokenType), b = texto do operador
+ *   E_NAO
+ *   E_CHAMADA        a = nome da função; seguem os argumentos e E_CHAMADA_FIM
+ *   E_ARG            início de um argumento; E_ARG_FIM o encerra (linha = token após o argumento)
+ *   E_CHAMADA_FIM    linha = token onde faltariam argumentos
+ * Nos comandos SE e ENQUANTO a linha do nó é a do token logo após a condição.
+ * Nomes são os números da TabelaDeNomes do léxico; textos vêm de texto(i).
+ */
+public class ArvoreSintatica {
+    public static final byte PROGRAMA = 0;
+    public static final byte BLOCO = 1;
+    public static final byte DECL_VAR = 2;
+    public static final byte IDENT = 3;
+    public static final byte PROCEDIMENTO = 4;
+    public static final byte FUNCAO = 5;
+    public static final byte CMD_BLOCO = 6;
+    public static final byte ATRIBUICAO = 7;
+    public static final byte CHAMADA = 8;
+    public static final byte CHAMADA_SIMPLES = 9;
+    public static final byte SE = 10;
+    public static final byte ENQUANTO = 11;
+    public static final byte ESCREVA = 12;
+    public static final byte RETORNO = 13;
+    public static final byte BREAK = 14;
+    public static final byte CONTINUE = 15;
+    public static final byte VAZIO = 16;
+    public static final byte E_ID = 17;
+    public static final byte E_LITERAL = 18;
+    public static final byte E_BINARIO = 19;
+    public static final byte E_NAO = 20;
+    public static final byte E_CHAMADA = 21;
+    public static final byte E_ARG = 22;
+    public static final byte E_ARG_FIM = 23;
+    public static final byte E_CHAMADA_FIM = 24;
+
+    private static final TokenType[] TIPOS = TokenType.values();
+
+    private byte[] tipos = new byte[256];
+    private int[] linhas = new int[256];
+    private int[] campoA = new int[256];
+    private int[] campoB = new int[256];
+    private int[] campoC = new int[256];
+    private int[] campoD = new int[256];
+    private int[] proximos = new int[256];
+    private int[] anotacoes = new int[256];
+    private byte[] tiposAnotados = new byte[256];
+    private int quantidade = 0;
+    private int raiz = -1;
+
+    private String[] nomes = new String[64];               // texto de cada número de nome visto
+    private String[] textos = new String[64];              // literais e operadores
+    private int quantidadeTextos = 0;
+    private final Map<String, Integer> indiceTextos = new HashMap<>();
+
+    /**
+     * Cria um nó com todos os campos em -1 e devolve o seu número.
+     */
+    int novo(byte tipo, int linha) {
+        if (quantidade == tipos.length) {
+            int capacidade = quantidade * 2;
+            tipos = Arrays.copyOf(tipos, capacidade);
+            linhas = Arrays.copyOf(linhas, capacidade);
+            campoA = Arrays.copyOf(campoA, capacidade);
+            campoB = Arrays.copyOf(campoB, capacidade);
+            campoC = Arrays.copyOf(campoC, capacidade);
+            campoD = Arrays.copyOf(campoD, capacidade);
+            proximos = Arrays.copyOf(proximos, capacidade);
+            anotacoes = Arrays.copyOf(anotacoes, capacidade);
+            tiposAnotados = Arrays.copyOf(tiposAnotados, capacidade);
+        }
+        int no = quantidade++;
+        tipos[no] = tipo;
+        linhas[no] = linha;
+        campoA[no] = -1;
+        campoB[no] = -1;
+        campoC[no] = -1;
+        campoD[no] = -1;
+        proximos[no] = -1;
+        anotacoes[no] = -1;
+        tiposAnotados[no] = -1;
+        return no;
+    }
+
+    public int tamanho() { return quantidade; }
+    public int raiz() { return raiz; }
+    public byte tipo(int no) { return tipos[no]; }
+    public int linha(int no) { return linhas[no]; }
+    public int a(int no) { return campoA[no]; }
+    public int b(int no) { return campoB[no]; }
+    public int c(int no) { return campoC[no]; }
+    public int d(int no) { return campoD[no]; }
+    public int proximo(int no) { return proximos[no]; }
+
+    /**
+     * Informação deixada num nó pela análise semântica para os passos seguintes
+     * (ex.: em CHAMADA e CHAMADA_SIMPLES, 1 se a sub-rotina é uma função; em E_ID e
+     * ATRIBUICAO, o endereço (profundidade, posição) da variável no seu quadro).
+     */
+    public int anotacao(int no) { return anotacoes[no]; }
+    public void anotar(int no, int valor) { anotacoes[no] = valor; }
+
+    /**
+     * Tipo anotado pela análise semântica: nos nós de expressão, o do valor que termina no nó;
+     * em CHAMADA e CHAMADA_SIMPLES de uma função, o de retorno. null se não foi anotado.
+     */
+    public TokenType tipoAnotado(int no) { return tipoDoCampo(tiposAnotados[no]); }
+    public void anotarTipo(int no, TokenType tipo) { tiposAnotados[no] = (byte) (tipo == null ? -1 : tipo.ordinal()); }
+
+    void setRaiz(int no) { raiz = no; }
+    void setTipo(int no, byte tipo) { tipos[no] = tipo; }
+    void setLinha(int no, int linha) { linhas[no] = linha; }
+    void setA(int no, int valor) { campoA[no] = valor; }
+    void setB(int no, int valor) { campoB[no] = valor; }
+    void setC(int no, int valor) { campoC[no] = valor; }
+    void setD(int no, int valor) { campoD[no] = valor; }
+    void setProximo(int no, int valor) { proximos[no] = valor; }
+
+    /**
+     * Tipo guardado num campo (tipo de variável, de retorno ou de literal), ou null se não foi lido.
+     */
+    public static TokenType tipoDoCampo(int valor) {
+        return valor < 0 ? null : TIPOS[valor];
+    }
+
+    void registrarNome(int idNome, String texto) {
+        if (idNome >= nomes.length) {
+            nomes = Arrays.copyOf(nomes, Math.max(idNome + 1, nomes.length * 2));
+        }
+        nomes[idNome] = texto;
+    }
+
+    public String nome(int idNome) {
+        return nomes[idNome];
+    }
+
+    int registrarTexto(String texto) {
+        Integer indice = indiceTextos.get(texto);
+        if (indice != null) {
+            return indice;
+        }
+        if (quantidadeTextos == textos.length) {
+            textos = Arrays.copyOf(textos, quantidadeTextos * 2);
+        }
+        textos[quantidadeTextos] = texto;
+        indiceTextos.put(texto, quantidadeTextos);
+        return quantidadeTextos++;
+    }
+
+    public String texto(int indice) {
+        return textos[indice];
+    }
+}
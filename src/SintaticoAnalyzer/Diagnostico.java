@@ -0,0 +1,27 @@
+package SintaticoAnalyzer;
+
+/**
+ * Um erro encontrado no programa analisado.
+ */
+public class Diagnostico {
+    public enum Tipo { LEXICO, SINTATICO, SEMANTICO }
+
+    public final Tipo tipo;
+    public final int linha;
+    public final String mensagem;
+
+    public Diagnostico(Tipo tipo, int linha, String mensagem) {
+        this.tipo = tipo;
+        this.linha = linha;
+        this.mensagem = mensagem;
+    }
+
+    public static Diagnostico lexico(int linha) {
+        return new Diagnostico(Tipo.LEXICO, linha, "Erro léxico na linha " + linha);
+    }
+
+    @Override
+    public String toString() {
+        return mensagem;
+    }
+}
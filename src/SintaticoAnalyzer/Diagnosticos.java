@@ -0,0 +1,82 @@
+package SintaticoAnalyzer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Coleta os erros de uma compilação em vez de parar no primeiro.
+ * Pode receber erros do léxico em outra thread (modo pipeline), por isso é sincronizada.
+ *
+ * Cada fase encontra os seus erros em ordem de linha, mas as fases rodam uma depois da outra:
+ * para que o limite fique com os primeiros erros do programa, e não com os da primeira fase,
+ * cada fase só para quando passa do limite de erros do seu tipo, e getDiagnosticos() corta a
+ * lista depois de ordená-la. Assim há mais erros que o limite exatamente quando algum erro
+ * ficou de fora do relatório.
+ */
+public class Diagnosticos {
+    public static final int LIMITE_PADRAO = 100;
+
+    private final int limite;
+    private final List<Diagnostico> diagnosticos = new ArrayList<>();
+    private final int[] porTipo = new int[Diagnostico.Tipo.values().length];
+
+    public Diagnosticos() {
+        this(LIMITE_PADRAO);
+    }
+
+    /**
+     * @param limite quantidade de erros reportados (ao menos 1).
+     */
+    public Diagnosticos(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("O limite de erros deve ser ao menos 1: " + limite);
+        }
+        this.limite = limite;
+    }
+
+    public synchronized void adicionar(Diagnostico diagnostico) {
+        // Um mesmo erro costuma ser repetido por várias regras ao se recuperar (ex.: fim de arquivo).
+        if (!diagnosticos.isEmpty()) {
+            Diagnostico ultimo = diagnosticos.get(diagnosticos.size() - 1);
+            if (ultimo.linha == diagnostico.linha && ultimo.mensagem.equals(diagnostico.mensagem)) {
+                return;
+            }
+        }
+        diagnosticos.add(diagnostico);
+        porTipo[diagnostico.tipo.ordinal()]++;
+    }
+
+    /**
+     * Se algum erro ficou de fora do relatório (por isso, ou uma fase parou antes do fim).
+     */
+    public synchronized boolean limiteAtingido() {
+        return diagnosticos.size() > limite;
+    }
+
+    /**
+     * Se já há mais erros do tipo dado que o limite: a fase que os produz pode parar, porque os
+     * próximos que encontrasse viriam depois deles no programa.
+     */
+    public synchronized boolean limiteAtingido(Diagnostico.Tipo tipo) {
+        return porTipo[tipo.ordinal()] > limite;
+    }
+
+    public synchronized boolean temErros() {
+        return !diagnosticos.isEmpty();
+    }
+
+    public synchronized int quantidade() {
+        return Math.min(diagnosticos.size(), limite);
+    }
+
+    /**
+     * Os primeiros erros, até o limite, em ordem de linha (erros da mesma linha ficam na ordem
+     * em que foram encontrados).
+     */
+    public synchronized List<Diagnostico> getDiagnosticos() {
+        List<Diagnostico> ordenados = new ArrayList<>(diagnosticos);
+        ordenados.sort(Comparator.comparingInt(d -> d.linha));
+        return ordenados.size() > limite ? new ArrayList<>(ordenados.subList(0, limite)) : ordenados;
+    }
+}
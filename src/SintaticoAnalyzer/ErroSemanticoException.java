@@ -4,8 +4,17 @@ import LexicalAnalyzer.Token;
 
 public class ErroSemanticoException extends RuntimeException {
 
+  public final int linha;
+
   public ErroSemanticoException(String mensagem, Token token) {
-    super(formatarMensagem(mensagem, token));
+    // Sem stack trace: o erro é do programa analisado, não do compilador.
+    super(formatarMensagem(mensagem, token), null, false, false);
+    this.linha = token != null ? token.line : 0;
+  }
+
+  public ErroSemanticoException(String mensagem, int linha) {
+    super(String.format("Erro Semântico na linha %d: %s ", linha, mensagem), null, false, false);
+    this.linha = linha;
   }
 
   private static String formatarMensagem(String mensagem, Token token) {
@@ -15,4 +24,4 @@ public class ErroSemanticoException extends RuntimeException {
     }
     return "Erro Semântico: " + mensagem;
   }
-}
\ No newline at end of file
+}
@@ -4,8 +4,12 @@ import LexicalAnalyzer.Token;
 
 public class ErroSintaticoException extends RuntimeException {
 
+    public final int linha;
+
     public ErroSintaticoException(String mensagem, Token token) {
-        super(formatarMensagem(mensagem, token));
+        // Sem stack trace: o erro é do programa analisado, não do compilador.
+        super(formatarMensagem(mensagem, token), null, false, false);
+        this.linha = token != null ? token.line : 0;
     }
 
     private static String formatarMensagem(String mensagem, Token token) {
@@ -15,4 +19,4 @@ public class ErroSintaticoException extends RuntimeException {
         }
         return "Erro Sintático: " + mensagem;
     }
-}
\ No newline at end of file
+}
@@ -1,52 +1,89 @@
 package SintaticoAnalyzer;
 
 import GeradorCodigo.GeradorDeCodigo;
-import LexicalAnalyzer.LexicalAnalyzer;
+import GeradorCodigo.GeradorDeQuadruplas;
+import LexicalAnalyzer.FonteDeTokens;
 import LexicalAnalyzer.Token;
 import LexicalAnalyzer.TokenType;
-import SemanticsAnalyzer.Simbolo;
-import SemanticsAnalyzer.TabelaDeSimbolos;
-import SemanticsAnalyzer.TipoSimbolo;
+import SemanticsAnalyzer.AnalisadorSemantico;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.ArrayDeque;
-import java.util.Deque;
 
+/**
+ * Análise sintática: lê os tokens e monta a ArvoreSintatica. A análise semântica
+ * (AnalisadorSemantico) e a geração de código (GeradorDeQuadruplas) são passos separados
+ * sobre a árvore; parse() executa os três em sequência.
+ */
 public class Parser {
 
-    private final LexicalAnalyzer lexer;
+    private final FonteDeTokens lexer;
     private Token tokenAtual;
 
-    // ANÁLISE SEMÂNTICA: Instância da tabela de símbolos.
-    private final TabelaDeSimbolos tabelaDeSimbolos;
+    // A árvore montada pelo parser, consumida pelos passos seguintes.
+    private final ArvoreSintatica arvore = new ArvoreSintatica();
 
     // GERAÇÃO DE CÓDIGO: Instância do gerador de código intermediário.
     private final GeradorDeCodigo gerador;
 
-    // Variáveis de estado para controle semântico contextual.
-    private boolean dentroDeLaco = false;
-    private enum CategoriaSubRotina { NENHUMA, FUNCAO, PROCEDIMENTO }
-    private CategoriaSubRotina subRotinaAtual = CategoriaSubRotina.NENHUMA;
-    private Simbolo funcaoAtual = null;
-    private final Deque<String> pilhaInicioLaco = new ArrayDeque<>();
-    private final Deque<String> pilhaFimLaco    = new ArrayDeque<>();
+    // RECUPERAÇÃO DE ERROS: quando não é null, os erros são coletados e a análise continua.
+    private final Diagnosticos diagnosticos;
+    private int ramosEntaoAbertos = 0; // 'senao' só sincroniza dentro do 'entao' de um 'se'
+
+    // Analisa e gera os corpos das sub-rotinas em paralelo (mesmo resultado).
+    private boolean paralelo = false;
+
+    /**
+     * Construtor do Parser. Para no primeiro erro, lançando a exceção correspondente.
+     * @param lexer O analisador léxico (ou pipeline) que fornecerá os tokens.
+     */
+    public Parser(FonteDeTokens lexer) {
+        this(lexer, null);
+    }
 
     /**
-     * Construtor do Parser.
-     * @param lexer O analisador léxico que fornecerá os tokens.
+     * Construtor do Parser em modo de recuperação (modo pânico): cada erro é registrado em
+     * diagnosticos, o parser descarta tokens até um ponto de sincronização ('; ', 'fim',
+     * 'senao', ...) e continua, até o fim do arquivo ou até o limite de erros.
      */
-    public Parser(LexicalAnalyzer lexer) {
+    public Parser(FonteDeTokens lexer, Diagnosticos diagnosticos) {
         this.lexer = lexer;
+        this.diagnosticos = diagnosticos;
         this.tokenAtual = this.lexer.obterProximoToken();
-        this.tabelaDeSimbolos = new TabelaDeSimbolos();
         this.gerador = new GeradorDeCodigo();
     }
 
+    // Interrompe a análise quando o limite de erros é atingido.
+    private static class LimiteDeErrosAtingido extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LimiteDeErrosAtingido() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Erros coletados no modo de recuperação (null se o parser para no primeiro erro).
+     */
+    public Diagnosticos getDiagnosticos() {
+        return diagnosticos;
+    }
+
     public GeradorDeCodigo getGerador() {
         return this.gerador;
     }
 
+    public ArvoreSintatica getArvore() {
+        return this.arvore;
+    }
+
+    /**
+     * Faz parse() analisar e gerar o corpo de cada sub-rotina numa tarefa separada.
+     */
+    public void setParalelo(boolean paralelo) {
+        this.paralelo = paralelo;
+    }
+
     private void avancarToken() {
         this.tokenAtual = this.lexer.obterProximoToken();
     }
@@ -63,85 +100,241 @@ public class Parser {
         return this.tokenAtual.type == tipo;
     }
 
+    private void registrar(ErroSintaticoException erro) {
+        diagnosticos.adicionar(new Diagnostico(Diagnostico.Tipo.SINTATICO, erro.linha, erro.getMessage()));
+        if (diagnosticos.limiteAtingido(Diagnostico.Tipo.SINTATICO)) {
+            throw new LimiteDeErrosAtingido();
+        }
+    }
+
     /**
-     * Método principal que inicia a análise.
+     * Descarta tokens até encontrar um dos tipos indicados (sem consumi-lo) ou o fim do arquivo.
+     */
+    private void sincronizar(TokenType... tipos) {
+        while (!verificar(TokenType.FIM_ARQUIVO)) {
+            for (TokenType tipo : tipos) {
+                if (verificar(tipo)) return;
+            }
+            avancarToken();
+        }
+    }
+
+    /**
+     * Descarta o restante de um comando com erro: para no primeiro ';', 'fim' ou 'senao'
+     * que não esteja dentro de um bloco inicio/fim aberto durante o descarte.
+     */
+    private void sincronizarComando() {
+        int profundidade = 0;
+        while (!verificar(TokenType.FIM_ARQUIVO)) {
+            if (profundidade == 0 && (verificar(TokenType.PONTO_E_VIRGULA) || verificar(TokenType.FIM)
+                    || (verificar(TokenType.SENAO) && ramosEntaoAbertos > 0))) {
+                return;
+            }
+            if (verificar(TokenType.INICIO)) {
+                profundidade++;
+            } else if (verificar(TokenType.FIM)) {
+                profundidade--;
+            }
+            avancarToken();
+        }
+    }
+
+    /**
+     * Método principal: monta a árvore, faz a análise semântica e gera o código.
+     * Parando no primeiro erro (ou no limite de erros sintáticos), a análise semântica ainda
+     * percorre a parte da árvore lida antes, para que os erros semânticos anteriores sejam reportados.
      */
     public void parse() {
-        programa();
-        if (!verificar(TokenType.FIM_ARQUIVO)) {
-            throw new ErroSintaticoException("Esperado fim de arquivo, mas ainda existem tokens.", tokenAtual);
+        ErroSintaticoException erroSintatico = null;
+        try {
+            programa();
+            if (!verificar(TokenType.FIM_ARQUIVO)) {
+                throw new ErroSintaticoException("Esperado fim de arquivo, mas ainda existem tokens.", tokenAtual);
+            }
+        } catch (ErroSintaticoException e) {
+            if (diagnosticos == null) {
+                erroSintatico = e;
+            } else {
+                diagnosticos.adicionar(new Diagnostico(Diagnostico.Tipo.SINTATICO, e.linha, e.getMessage()));
+            }
+        } catch (LimiteDeErrosAtingido e) {
+            // Os erros já estão em diagnosticos; a parte da árvore já lida ainda pode ter
+            // erros semânticos anteriores a eles.
+        }
+
+        // ANÁLISE SEMÂNTICA
+        AnalisadorSemantico analisador = new AnalisadorSemantico(arvore, diagnosticos);
+        if (paralelo) {
+            analisador.analisarEmParalelo();
+        } else {
+            analisador.analisar();
         }
+        if (erroSintatico != null) {
+            throw erroSintatico;
+        }
+
+        // GERAÇÃO DE CÓDIGO
+        if (diagnosticos == null || !diagnosticos.temErros()) {
+            GeradorDeQuadruplas geracao = new GeradorDeQuadruplas(arvore, gerador);
+            if (paralelo) {
+                geracao.gerarEmParalelo();
+            } else {
+                geracao.gerar();
+            }
+        }
+    }
+
+    /**
+     * Só a sintaxe de um trecho do programa, para a compilação incremental (que compila cada
+     * trecho com o seu próprio Parser): "programa X;" com as variáveis globais, até a primeira
+     * sub-rotina ou o corpo. Devolve o nó PROGRAMA (-1 se nem o cabeçalho foi lido).
+     * Exige o modo de recuperação; o token em que a leitura parou fica em getTokenAtual().
+     */
+    public int parseCabecalho() {
+        lerTrecho(this::cabecalho);
+        return arvore.raiz();
+    }
+
+    /**
+     * Como parseCabecalho(), para uma sub-rotina seguida de ';'. Devolve o nó da sub-rotina
+     * (-1 se o cabeçalho dela não foi lido), filha de um BLOCO que é a raiz da árvore.
+     */
+    public int parseSubRotina() {
+        int bloco = arvore.novo(ArvoreSintatica.BLOCO, tokenAtual.line);
+        arvore.setRaiz(bloco);
+        lerTrecho(() -> {
+            decl_sub_rotina(bloco, -1);
+            consumir(TokenType.PONTO_E_VIRGULA);
+        });
+        return arvore.b(bloco);
+    }
+
+    /**
+     * Como parseCabecalho(), para o corpo do programa (inicio ... fim.). Devolve um BLOCO
+     * cujo campo c é o corpo.
+     */
+    public int parseCorpo() {
+        int bloco = arvore.novo(ArvoreSintatica.BLOCO, tokenAtual.line);
+        arvore.setRaiz(bloco);
+        lerTrecho(() -> {
+            corpo(bloco);
+            consumir(TokenType.PONTO);
+        });
+        return bloco;
+    }
+
+    public Token getTokenAtual() {
+        return tokenAtual;
+    }
+
+    private void lerTrecho(Runnable regra) {
+        try {
+            regra.run();
+        } catch (ErroSintaticoException e) {
+            diagnosticos.adicionar(new Diagnostico(Diagnostico.Tipo.SINTATICO, e.linha, e.getMessage()));
+        } catch (LimiteDeErrosAtingido e) {
+            // Os erros já estão em diagnosticos.
+        }
+    }
+
+    // Registra o texto do identificador na árvore e devolve o número do nome.
+    private int nome(Token id) {
+        arvore.registrarNome(id.nameId, id.lexeme);
+        return id.nameId;
     }
 
     private void programa() {
+        int bloco = cabecalho();
+        decl_sub_opcional(bloco);
+        corpo(bloco);
+        consumir(TokenType.PONTO);
+    }
+
+    // "programa X;" e as variáveis globais; devolve o bloco do programa.
+    private int cabecalho() {
         consumir(TokenType.PROGRAMA);
         Token idPrograma = tokenAtual;
         consumir(TokenType.ID);
-        // ANÁLISE SEMÂNTICA
-        tabelaDeSimbolos.inserir(new Simbolo(idPrograma.lexeme, TipoSimbolo.PROGRAMA, null));
+        int no = arvore.novo(ArvoreSintatica.PROGRAMA, idPrograma.line);
+        arvore.setA(no, nome(idPrograma));
+        arvore.setRaiz(no);
         consumir(TokenType.PONTO_E_VIRGULA);
-        bloco();
-        consumir(TokenType.PONTO);
-        // ANÁLISE SEMÂNTICA
-        tabelaDeSimbolos.fecharEscopo();
+        int bloco = arvore.novo(ArvoreSintatica.BLOCO, tokenAtual.line);
+        arvore.setB(no, bloco);
+        decl_var_opcional(bloco);
+        return bloco;
     }
 
-    private void bloco() {
-        decl_var_opcional();
-        decl_sub_opcional();
-        comandos();
+    // Os nós são ligados ao pai antes de seus filhos serem lidos, para que a parte já lida
+    // continue na árvore se um erro interromper a leitura.
+    private void bloco(int bloco) {
+        decl_var_opcional(bloco);
+        decl_sub_opcional(bloco);
+        corpo(bloco);
     }
 
-    private void decl_var_opcional() {
+    private void corpo(int bloco) {
+        int comandos = arvore.novo(ArvoreSintatica.CMD_BLOCO, tokenAtual.line);
+        arvore.setC(bloco, comandos);
+        comandos(comandos);
+    }
+
+    private void decl_var_opcional(int bloco) {
         if (verificar(TokenType.VAR)) {
             consumir(TokenType.VAR);
-            lista_decl_var();
+            lista_decl_var(bloco);
         }
     }
 
-    private void lista_decl_var() {
-        decl_var();
-        lista_decl_var_rest();
+    private void lista_decl_var(int bloco) {
+        int ultima = decl_var_recuperavel(bloco, -1);
+        lista_decl_var_rest(bloco, ultima);
     }
 
-    private void lista_decl_var_rest() {
+    private void lista_decl_var_rest(int bloco, int ultima) {
         while (verificar(TokenType.PONTO_E_VIRGULA)) {
             consumir(TokenType.PONTO_E_VIRGULA);
             if (verificar(TokenType.ID)) {
-                decl_var();
+                ultima = decl_var_recuperavel(bloco, ultima);
             } else {
                 break;
             }
         }
     }
 
-    private void decl_var() {
-        List<Token> identificadores = new ArrayList<>();
-        lista_id(identificadores);
-        consumir(TokenType.DOIS_PONTOS);
-        TokenType tipoVariavel = tipo();
-        // ANÁLISE SEMÂNTICA
-        for (Token id : identificadores) {
-            try {
-                tabelaDeSimbolos.inserir(new Simbolo(id.lexeme, TipoSimbolo.VARIAVEL, tipoVariavel));
-            } catch (RuntimeException e) {
-                throw new ErroSemanticoException(e.getMessage(), id);
-            }
+    private int decl_var_recuperavel(int bloco, int anterior) {
+        int no = arvore.novo(ArvoreSintatica.DECL_VAR, tokenAtual.line);
+        if (anterior < 0) arvore.setA(bloco, no); else arvore.setProximo(anterior, no);
+        try {
+            decl_var(no);
+        } catch (ErroSintaticoException e) {
+            if (diagnosticos == null) throw e;
+            registrar(e);
+            sincronizar(TokenType.PONTO_E_VIRGULA, TokenType.PROCEDIMENTO, TokenType.FUNCAO, TokenType.INICIO);
         }
+        return no;
     }
 
-    private void lista_id(List<Token> idList) {
-        idList.add(tokenAtual);
-        consumir(TokenType.ID);
-        lista_id_rest(idList);
+    // Também lê um grupo de parâmetros ("a, b: inteiro").
+    private void decl_var(int no) {
+        lista_id(no);
+        consumir(TokenType.DOIS_PONTOS);
+        arvore.setB(no, tipo().ordinal());
     }
 
-    private void lista_id_rest(List<Token> idList) {
-        while (verificar(TokenType.VIRGULA)) {
-            consumir(TokenType.VIRGULA);
-            idList.add(tokenAtual);
+    private void lista_id(int decl) {
+        int ultimo = -1;
+        do {
+            if (ultimo >= 0) {
+                consumir(TokenType.VIRGULA);
+            }
+            Token id = tokenAtual;
             consumir(TokenType.ID);
-        }
+            int no = arvore.novo(ArvoreSintatica.IDENT, id.line);
+            arvore.setA(no, nome(id));
+            if (ultimo < 0) arvore.setA(decl, no); else arvore.setProximo(ultimo, no);
+            ultimo = no;
+        } while (verificar(TokenType.VIRGULA));
     }
 
     private TokenType tipo() {
@@ -156,523 +349,427 @@ public class Parser {
         }
     }
 
-    private void decl_sub_opcional() {
+    private void decl_sub_opcional(int bloco) {
+        int ultima = -1;
         while (verificar(TokenType.PROCEDIMENTO) || verificar(TokenType.FUNCAO)) {
-            decl_sub_rotina();
+            ultima = decl_sub_rotina(bloco, ultima);
             consumir(TokenType.PONTO_E_VIRGULA);
         }
     }
 
-    private void decl_sub_rotina() {
-        if (verificar(TokenType.PROCEDIMENTO)) {
-            decl_proc();
-        } else if (verificar(TokenType.FUNCAO)) {
-            decl_func();
-        }
-    }
-
-    private void decl_proc() {
-        consumir(TokenType.PROCEDIMENTO);
-        Token idProc = tokenAtual;
+    private int decl_sub_rotina(int bloco, int anterior) {
+        boolean ehFuncao = verificar(TokenType.FUNCAO);
+        avancarToken(); // 'procedimento' ou 'funcao'
+        Token id = tokenAtual;
         consumir(TokenType.ID);
 
-        // 1. Cria o símbolo do procedimento.
-        Simbolo simboloProcedimento = new Simbolo(idProc.lexeme, TipoSimbolo.PROCEDIMENTO, null);
-
-        // 2. Analisa os parâmetros e preenche a lista dentro do símbolo.
-        parametros_formais_opc(simboloProcedimento.parametros);
-
-        // 3. Insere o símbolo COMPLETO na tabela do escopo PAI.
+        // O nó só entra na árvore com o cabeçalho lido (ou recuperado), como o símbolo só
+        // entrava na tabela depois dos parâmetros.
+        int no = arvore.novo(ehFuncao ? ArvoreSintatica.FUNCAO : ArvoreSintatica.PROCEDIMENTO, id.line);
+        arvore.setA(no, nome(id));
         try {
-            tabelaDeSimbolos.inserir(simboloProcedimento);
-        } catch (RuntimeException e) {
-            throw new ErroSemanticoException(e.getMessage(), idProc);
-        }
-        gerador.gerar(idProc.lexeme + ":", null, null, null);
-
-        // 4. ABRE o novo escopo para o corpo do procedimento.
-        tabelaDeSimbolos.abrirEscopo();
-
-        // 5. INSERE os parâmetros como variáveis locais no NOVO escopo.
-        for (Simbolo param : simboloProcedimento.parametros) {
-            try {
-                tabelaDeSimbolos.inserir(param);
-            } catch (RuntimeException e) {
-                throw new ErroSemanticoException("Parâmetro '" + param.nome + "' já declarado neste procedimento.", idProc);
+            parametros_formais_opc(no);
+            if (ehFuncao) {
+                consumir(TokenType.DOIS_PONTOS);
+                arvore.setD(no, tipo().ordinal());
             }
+        } catch (ErroSintaticoException e) {
+            if (diagnosticos == null) throw e;
+            registrar(e);
+            sincronizar(TokenType.PONTO_E_VIRGULA, TokenType.VAR, TokenType.INICIO);
         }
+        if (anterior < 0) arvore.setB(bloco, no); else arvore.setProximo(anterior, no);
 
         consumir(TokenType.PONTO_E_VIRGULA);
-
-        CategoriaSubRotina estadoAnterior = this.subRotinaAtual;
-        this.subRotinaAtual = CategoriaSubRotina.PROCEDIMENTO;
-
-        bloco();
-
-        this.subRotinaAtual = estadoAnterior;
-
-        tabelaDeSimbolos.fecharEscopo();
+        int corpo = arvore.novo(ArvoreSintatica.BLOCO, tokenAtual.line);
+        arvore.setC(no, corpo);
+        bloco(corpo);
+        return no;
     }
 
-    private void decl_func() {
-        consumir(TokenType.FUNCAO);
-        Token idFunc = tokenAtual;
-        consumir(TokenType.ID);
-
-        // 1. Cria o símbolo da função.
-        Simbolo simboloFuncao = new Simbolo(idFunc.lexeme, TipoSimbolo.FUNCAO, null);
-
-        // 2. Analisa os parâmetros e preenche a lista dentro do símbolo da função.
-        parametros_formais_opc(simboloFuncao.parametros);
-
-        consumir(TokenType.DOIS_PONTOS);
-        TokenType tipoRetorno = tipo();
-        simboloFuncao.tipo = tipoRetorno; // Define o tipo de retorno no símbolo.
-
-        // 3. Insere o símbolo COMPLETO na tabela do escopo PAI.
-        try {
-            tabelaDeSimbolos.inserir(simboloFuncao);
-        } catch (RuntimeException e) {
-            throw new ErroSemanticoException(e.getMessage(), idFunc);
-        }
-        gerador.gerar(idFunc.lexeme + ":", null, null, null);
-
-        // 4. ABRE o novo escopo para o corpo da função.
-        tabelaDeSimbolos.abrirEscopo();
-
-        // 5. INSERE os parâmetros como variáveis locais no NOVO escopo.
-        for (Simbolo param : simboloFuncao.parametros) {
-            try {
-                tabelaDeSimbolos.inserir(param);
-            } catch (RuntimeException e) {
-                throw new ErroSemanticoException("Parâmetro '" + param.nome + "' já declarado nesta função.", idFunc);
-            }
-        }
-
-        consumir(TokenType.PONTO_E_VIRGULA);
-
-        // Define o estado atual para análise do bloco
-        CategoriaSubRotina estadoAnteriorSub = this.subRotinaAtual;
-        Simbolo estadoAnteriorFunc = this.funcaoAtual;
-        this.subRotinaAtual = CategoriaSubRotina.FUNCAO;
-        this.funcaoAtual = simboloFuncao;
-
-        bloco();
-
-        this.subRotinaAtual = estadoAnteriorSub;
-        this.funcaoAtual = estadoAnteriorFunc;
-
-        tabelaDeSimbolos.fecharEscopo();
-    }
-
-    // *** MÉTODOS REESTRUTURADOS PARA ANÁLISE DE PARÂMETROS ***
-    private void parametros_formais_opc(List<Simbolo> listaDeParametros) {
+    private void parametros_formais_opc(int subRotina) {
         if (verificar(TokenType.ABRE_PAREN)) {
             consumir(TokenType.ABRE_PAREN);
             if (verificar(TokenType.ID)) {
-                lista_parametros(listaDeParametros);
+                lista_parametros(subRotina);
             }
             consumir(TokenType.FECHA_PAREN);
         }
     }
 
-    private void lista_parametros(List<Simbolo> listaDeParametros) {
-        parametro(listaDeParametros);
+    private void lista_parametros(int subRotina) {
+        int ultimo = parametro(subRotina, -1);
         while (verificar(TokenType.PONTO_E_VIRGULA)) {
             consumir(TokenType.PONTO_E_VIRGULA);
-            parametro(listaDeParametros);
+            ultimo = parametro(subRotina, ultimo);
         }
     }
 
-    private void parametro(List<Simbolo> listaDeParametros) {
-        List<Token> identificadores = new ArrayList<>();
-        lista_id(identificadores);
-        consumir(TokenType.DOIS_PONTOS);
-        TokenType tipoVariavel = tipo();
-
-        for (Token id : identificadores) {
-            // Cria um símbolo para cada parâmetro e o adiciona à lista
-            listaDeParametros.add(new Simbolo(id.lexeme, TipoSimbolo.VARIAVEL, tipoVariavel));
-        }
+    private int parametro(int subRotina, int anterior) {
+        int grupo = arvore.novo(ArvoreSintatica.DECL_VAR, tokenAtual.line);
+        if (anterior < 0) arvore.setB(subRotina, grupo); else arvore.setProximo(anterior, grupo);
+        decl_var(grupo);
+        return grupo;
     }
-    // *** FIM DOS MÉTODOS REESTRUTURADOS ***
 
-    private void comandos() {
+    private void comandos(int lista) {
         consumir(TokenType.INICIO);
-        lista_comandos();
+        lista_comandos(lista);
+        arvore.setB(lista, arvore.tamanho());
         consumir(TokenType.FIM);
     }
 
-    private void lista_comandos() {
+    private void lista_comandos(int lista) {
         if (!verificar(TokenType.FIM)) {
-            comando();
-            lista_comandos_rest();
+            int ultimo = novoComando();
+            arvore.setA(lista, ultimo);
+            comando(ultimo);
+            lista_comandos_rest(ultimo);
         }
     }
 
-    private void lista_comandos_rest() {
+    private void lista_comandos_rest(int ultimo) {
         while (verificar(TokenType.PONTO_E_VIRGULA)) {
             consumir(TokenType.PONTO_E_VIRGULA);
             if (!verificar(TokenType.FIM)) {
-                comando();
+                int no = novoComando();
+                arvore.setProximo(ultimo, no);
+                comando(no);
+                ultimo = no;
             } else {
                 break;
             }
         }
     }
 
-    private void comando() {
-        if (verificar(TokenType.INICIO)) {
-            comandos();
-        } else if (verificar(TokenType.ID)) {
-            comando_atr_chamada();
-        } else if (verificar(TokenType.SE)) {
-            comando_condicional();
-        } else if (verificar(TokenType.ENQUANTO)) {
-            comando_enquanto();
-        } else if (verificar(TokenType.ESCREVA)) {
-            comando_escrita();
-        } else if (verificar(TokenType.RETORNO)) {
-            comando_retorno();
-        } else if (verificar(TokenType.BREAK)) {
-            if (pilhaFimLaco.isEmpty()) {
-                throw new ErroSemanticoException("'break' fora de um laço 'enquanto'", tokenAtual);
-            }
-            consumir(TokenType.BREAK);
-            gerador.gerar("goto", null, null, pilhaFimLaco.peek());
+    /**
+     * Cria o nó do comando que começa no token atual, para o chamador ligá-lo antes de lê-lo.
+     * Um ID começa como ATRIBUICAO e vira CHAMADA se não vier ':='.
+     */
+    private int novoComando() {
+        byte tipo;
+        switch (tokenAtual.type) {
+            case INICIO:   tipo = ArvoreSintatica.CMD_BLOCO; break;
+            case ID:       tipo = ArvoreSintatica.ATRIBUICAO; break;
+            case SE:       tipo = ArvoreSintatica.SE; break;
+            case ENQUANTO: tipo = ArvoreSintatica.ENQUANTO; break;
+            case ESCREVA:  tipo = ArvoreSintatica.ESCREVA; break;
+            case RETORNO:  tipo = ArvoreSintatica.RETORNO; break;
+            case BREAK:    tipo = ArvoreSintatica.BREAK; break;
+            case CONTINUE: tipo = ArvoreSintatica.CONTINUE; break;
+            default:       tipo = ArvoreSintatica.VAZIO; break;
+        }
+        return arvore.novo(tipo, tokenAtual.line);
+    }
+
+    private void comando(int no) {
+        try {
+            comando_sem_recuperacao(no);
+        } catch (ErroSintaticoException e) {
+            if (diagnosticos == null) throw e;
+            registrar(e);
+            sincronizarComando();
         }
-        else if (verificar(TokenType.CONTINUE)) {
-            if (pilhaInicioLaco.isEmpty()) {
-                throw new ErroSemanticoException("'continue' fora de um laço 'enquanto'", tokenAtual);
-            }
-            consumir(TokenType.CONTINUE);
-            gerador.gerar("goto", null, null, pilhaInicioLaco.peek());
-        } else if (!verificar(TokenType.FIM)) {
-            throw new ErroSintaticoException("Esperado um comando válido", tokenAtual);
+    }
+
+    private void comando_sem_recuperacao(int no) {
+        switch (arvore.tipo(no)) {
+            case ArvoreSintatica.CMD_BLOCO:
+                comandos(no);
+                break;
+            case ArvoreSintatica.ATRIBUICAO:
+                comando_atr_chamada(no);
+                break;
+            case ArvoreSintatica.SE:
+                comando_condicional(no);
+                break;
+            case ArvoreSintatica.ENQUANTO:
+                comando_enquanto(no);
+                break;
+            case ArvoreSintatica.ESCREVA:
+                comando_escrita(no);
+                break;
+            case ArvoreSintatica.RETORNO:
+                comando_retorno(no);
+                break;
+            case ArvoreSintatica.BREAK:
+                consumir(TokenType.BREAK);
+                break;
+            case ArvoreSintatica.CONTINUE:
+                consumir(TokenType.CONTINUE);
+                break;
+            default:
+                if (!verificar(TokenType.FIM)) {
+                    throw new ErroSintaticoException("Esperado um comando válido", tokenAtual);
+                }
         }
     }
 
-    private void comando_atr_chamada() {
+    private void comando_atr_chamada(int no) {
         Token id = tokenAtual;
         consumir(TokenType.ID);
-        // ANÁLISE SEMÂNTICA
-        Simbolo simbolo = tabelaDeSimbolos.buscar(id.lexeme);
-        if (simbolo == null) {
-            throw new ErroSemanticoException("Identificador '" + id.lexeme + "' não foi declarado.", id);
-        }
+        arvore.setA(no, nome(id));
 
         if (verificar(TokenType.ATRIBUICAO)) { // Atribuição
             consumir(TokenType.ATRIBUICAO);
-            ResultadoExpressao resExpr = expressao();
-            // ANÁLISE SEMÂNTICA
-            if (simbolo.tipo != resExpr.tipo) {
-                throw new ErroSemanticoException("Tipos incompatíveis para atribuição. Esperado '" + simbolo.tipo + "' mas encontrado '" + resExpr.tipo + "'.", id);
-            }
-            // GERAÇÃO DE CÓDIGO
-            gerador.gerar(":=", resExpr.nome, null, id.lexeme);
-        } else { // Chamada de procedimento ou função (valor de retorno descartado)
-            if (simbolo.categoria != TipoSimbolo.PROCEDIMENTO && simbolo.categoria != TipoSimbolo.FUNCAO) {
-                throw new ErroSemanticoException("'" + simbolo.nome + "' não é uma sub-rotina e não pode ser chamado.", id);
-            }
-            argumentos_reais_opc(simbolo); // Passa o símbolo para validação
-            // GERAÇÃO DE CÓDIGO
-            if(simbolo.categoria == TipoSimbolo.PROCEDIMENTO) {
-                gerador.gerar("call", id.lexeme, null, null);
-            } else { // Chamada de função como procedimento
-                String temp = gerador.novoTemp(); // Descarta o retorno em um temporário
-                gerador.gerar("call", simbolo.nome, null, temp);
-            }
+            int inicio = arvore.tamanho();
+            expressao();
+            arvore.setB(no, inicio);
+            arvore.setC(no, arvore.tamanho());
+        } else if (verificar(TokenType.ABRE_PAREN)) { // Chamada de procedimento ou função (valor de retorno descartado)
+            arvore.setTipo(no, ArvoreSintatica.CHAMADA);
+            consumir(TokenType.ABRE_PAREN);
+            int inicio = arvore.tamanho();
+            lista_argumentos();
+            arvore.setD(no, tokenAtual.line);
+            arvore.setB(no, inicio);
+            arvore.setC(no, arvore.tamanho());
+            consumir(TokenType.FECHA_PAREN);
+        } else { // Chamada sem parênteses (ex: "meu_proc;")
+            arvore.setTipo(no, ArvoreSintatica.CHAMADA_SIMPLES);
+            arvore.setD(no, tokenAtual.line);
         }
     }
 
-    private void comando_condicional() {
+    private void comando_condicional(int no) {
         consumir(TokenType.SE);
-        // GERAÇÃO DE CÓDIGO
-        String rotuloSenao = gerador.novoRotulo();
-        String rotuloFimSe = gerador.novoRotulo();
-
-        ResultadoExpressao resCond = expressao();
-        // ANÁLISE SEMÂNTICA
-        if (resCond.tipo != TokenType.BOOLEANO) {
-            throw new ErroSemanticoException("Condição do 'se' deve ser booleana.", tokenAtual);
-        }
-        // GERAÇÃO DE CÓDIGO
-        gerador.gerar("if_false", resCond.nome, null, rotuloSenao);
+        int inicio = arvore.tamanho();
+        expressao();
+        arvore.setLinha(no, tokenAtual.line);
+        arvore.setA(no, inicio);
+        arvore.setB(no, arvore.tamanho());
 
         consumir(TokenType.ENTAO);
-        comando();
+        ramosEntaoAbertos++;
+        try {
+            int entao = novoComando();
+            arvore.setC(no, entao);
+            comando(entao);
+        } finally {
+            ramosEntaoAbertos--;
+        }
 
         if (verificar(TokenType.SENAO)) {
-            // GERAÇÃO DE CÓDIGO
-            gerador.gerar("goto", null, null, rotuloFimSe);
-            gerador.gerar(rotuloSenao + ":", null, null, null);
             consumir(TokenType.SENAO);
-            comando();
-            gerador.gerar(rotuloFimSe + ":", null, null, null);
-        } else {
-            gerador.gerar(rotuloSenao + ":", null, null, null);
+            int senao = novoComando();
+            arvore.setD(no, senao);
+            comando(senao);
         }
     }
 
-    private void comando_enquanto() {
+    private void comando_enquanto(int no) {
         consumir(TokenType.ENQUANTO);
-
-        String rotuloInicio = gerador.novoRotulo();
-        String rotuloFim    = gerador.novoRotulo();
-
-        gerador.gerar(rotuloInicio + ":", null, null, null);
-
-        ResultadoExpressao resCond = expressao();
-        if (resCond.tipo != TokenType.BOOLEANO) {
-            throw new ErroSemanticoException("Condição do 'enquanto' deve ser booleana.", tokenAtual);
-        }
-        gerador.gerar("if_false", resCond.nome, null, rotuloFim);
+        int inicio = arvore.tamanho();
+        expressao();
+        arvore.setLinha(no, tokenAtual.line);
+        arvore.setA(no, inicio);
+        arvore.setB(no, arvore.tamanho());
 
         consumir(TokenType.FACA);
-
-        pilhaInicioLaco.push(rotuloInicio);
-        pilhaFimLaco.push(rotuloFim);
-        boolean estadoAnterior = this.dentroDeLaco;
-        this.dentroDeLaco = true;
-
-        comando();
-
-        this.dentroDeLaco = estadoAnterior;
-        pilhaInicioLaco.pop();
-        pilhaFimLaco.pop();
-
-        gerador.gerar("goto", null, null, rotuloInicio);
-        gerador.gerar(rotuloFim + ":", null, null, null);
+        int corpo = novoComando();
+        arvore.setC(no, corpo);
+        comando(corpo);
     }
 
-    private void comando_escrita() {
+    private void comando_escrita(int no) {
         consumir(TokenType.ESCREVA);
         consumir(TokenType.ABRE_PAREN);
-        ResultadoExpressao resExpr = expressao();
-        gerador.gerar("escreva", resExpr.nome, null, null);
+        int inicio = arvore.tamanho();
+        expressao();
+        arvore.setA(no, inicio);
+        arvore.setB(no, arvore.tamanho());
         consumir(TokenType.FECHA_PAREN);
     }
 
-    private void comando_retorno() {
-        if (this.subRotinaAtual != CategoriaSubRotina.FUNCAO) {
-            throw new ErroSemanticoException("Comando 'retorno' só pode ser usado dentro de uma função.", tokenAtual);
-        }
+    private void comando_retorno(int no) {
         consumir(TokenType.RETORNO);
-        ResultadoExpressao resExpr = expressao();
-        if (funcaoAtual.tipo != resExpr.tipo) {
-            throw new ErroSemanticoException("Tipo de retorno incompatível. Esperado " + funcaoAtual.tipo + " mas encontrado " + resExpr.tipo + ".", tokenAtual);
-        }
-        gerador.gerar("retorno", resExpr.nome, null, null);
+        int inicio = arvore.tamanho();
+        expressao();
+        arvore.setD(no, tokenAtual.line);
+        arvore.setA(no, inicio);
+        arvore.setB(no, arvore.tamanho());
     }
 
-    private static class ResultadoExpressao {
-        final String nome;
-        final TokenType tipo;
-        ResultadoExpressao(String nome, TokenType tipo) { this.nome = nome; this.tipo = tipo; }
+    // Precedência dos operadores binários (0 = não é operador binário).
+    private static int precedencia(TokenType t) {
+        switch (t) {
+            case MULT: case DIVISAO: case E:
+                return 3;
+            case MAIS: case MENOS: case OU:
+                return 2;
+            case IGUAL: case DIFERENTE: case MENOR: case MENOR_IGUAL: case MAIOR: case MAIOR_IGUAL:
+                return 1;
+            default:
+                return 0;
+        }
     }
 
-    private boolean ehRelacional(TokenType t) {
-        return t == TokenType.IGUAL || t == TokenType.DIFERENTE ||
-                t == TokenType.MENOR || t == TokenType.MENOR_IGUAL ||
-                t == TokenType.MAIOR || t == TokenType.MAIOR_IGUAL;
-    }
+    // Um nível de agrupamento da expressão: a expressão inteira, um '(' ... ')' ou um argumento de chamada.
+    private static final class Quadro {
+        final boolean argumento;
+        final int baseOperadores;   // operadores abaixo desta posição pertencem a quadros externos
+        boolean temRelacional = false; // 'a < b < c' não é aceito: um relacional por expressão
 
-    private ResultadoExpressao expressao() {
-        ResultadoExpressao resEsq = expressao_simples();
+        Quadro(boolean argumento, int baseOperadores) {
+            this.argumento = argumento;
+            this.baseOperadores = baseOperadores;
+        }
+    }
 
-        if (ehRelacional(tokenAtual.type)) {
-            Token op = tokenAtual;           // <-- guarda o token do operador
-            TokenType operador = tokenAtual.type;
-            avancarToken();
+    // Pilhas do analisador de expressões (reaproveitadas entre chamadas).
+    private final List<Token> operadores = new ArrayList<>();
+    private final List<Quadro> quadros = new ArrayList<>();
 
-            ResultadoExpressao resDir = expressao_simples();
+    /**
+     * Analisa uma expressão por precedência de operadores com pilhas explícitas, sem recursão:
+     * parênteses, 'nao' e chamadas de função aninhados em qualquer profundidade não crescem a
+     * pilha de Java. Reconhece a gramática
+     *   expressao        ::= expressao_simples [relacional expressao_simples]
+     *   expressao_simples ::= [+|-] termo {(+|-|ou) termo}
+     *   termo            ::= fator {(*|/|e) fator}
+     *   fator            ::= id | id(args) | numero | verdadeiro | falso | (expressao) | nao fator
+     * e acrescenta à árvore os nós da expressão em ordem pós-fixa: cada operador entra no momento
+     * em que é reduzido, que é a ordem de avaliação (e de geração das quádruplas).
+     */
+    private void expressao() {
+        operadores.clear();
+        quadros.clear();
+        quadros.add(new Quadro(false, 0));
+        boolean inicioSimples = true; // onde a gramática aceita o sinal opcional
+
+        while (true) {
+            // ESPERA UM OPERANDO (fator).
+            if (inicioSimples && (verificar(TokenType.MAIS) || verificar(TokenType.MENOS))) {
+                avancarToken();
+            }
+            inicioSimples = false;
+            while (verificar(TokenType.NAO)) {
+                operadores.add(tokenAtual);
+                avancarToken();
+            }
 
-            switch (operador) {
-                case IGUAL:
-                case DIFERENTE:
-                    if (resEsq.tipo != resDir.tipo) {
-                        throw new ErroSemanticoException(
-                                "Os operadores '=' e '!=' exigem operandos do mesmo tipo ("
-                                        + resEsq.tipo + " vs " + resDir.tipo + ").", op);
+            Token token = tokenAtual;
+            if (verificar(TokenType.ID)) {
+                avancarToken();
+                if (verificar(TokenType.ABRE_PAREN)) { // É uma chamada de função
+                    int chamada = arvore.novo(ArvoreSintatica.E_CHAMADA, token.line);
+                    arvore.setA(chamada, nome(token));
+                    consumir(TokenType.ABRE_PAREN);
+                    if (!verificar(TokenType.FECHA_PAREN)) {
+                        arvore.novo(ArvoreSintatica.E_ARG, tokenAtual.line);
+                        quadros.add(new Quadro(true, operadores.size()));
+                        inicioSimples = true;
+                        continue;
                     }
-                    break;
+                    fecharChamada();
+                } else {
+                    int no = arvore.novo(ArvoreSintatica.E_ID, token.line);
+                    arvore.setA(no, nome(token));
+                }
+            } else if (verificar(TokenType.NUMERO)) {
+                avancarToken();
+                literal(token, TokenType.INTEIRO);
+            } else if (verificar(TokenType.VERDADEIRO) || verificar(TokenType.FALSO)) {
+                avancarToken();
+                literal(token, TokenType.BOOLEANO);
+            } else if (verificar(TokenType.ABRE_PAREN)) {
+                consumir(TokenType.ABRE_PAREN);
+                quadros.add(new Quadro(false, operadores.size()));
+                inicioSimples = true;
+                continue;
+            } else {
+                throw new ErroSintaticoException("Fator inesperado", token);
+            }
 
-                case MENOR:
-                case MENOR_IGUAL:
-                case MAIOR:
-                case MAIOR_IGUAL:
-                    if (resEsq.tipo != TokenType.INTEIRO || resDir.tipo != TokenType.INTEIRO) {
-                        throw new ErroSemanticoException(
-                                "O operador '" + op.lexeme + "' exige operandos inteiros.", op);
+            // ESPERA UM OPERADOR: fecha os agrupamentos que terminam aqui.
+            while (true) {
+                Quadro quadro = quadros.get(quadros.size() - 1);
+                reduzirNao(quadro);
+                int prec = precedencia(tokenAtual.type);
+                if (prec > 1 || (prec == 1 && !quadro.temRelacional)) {
+                    reduzir(quadro, prec);
+                    if (prec == 1) {
+                        quadro.temRelacional = true;
+                        inicioSimples = true;
                     }
+                    operadores.add(tokenAtual);
+                    avancarToken();
                     break;
-            }
-
-            String temp = gerador.novoTemp();
-            gerador.gerar(op.lexeme, resEsq.nome, resDir.nome, temp);
-            return new ResultadoExpressao(temp, TokenType.BOOLEANO);
-        }
-
-        return resEsq;
-    }
-
+                }
 
-    private ResultadoExpressao expressao_simples() {
-        sinal_opcional();
-        ResultadoExpressao resAcumulado = termo();
-        while (verificar(TokenType.MAIS) || verificar(TokenType.MENOS) || verificar(TokenType.OU)) {
-            Token op = tokenAtual;
-            avancarToken();
-            ResultadoExpressao resDir = termo();
+                // Fim da expressão do quadro atual.
+                reduzir(quadro, 1);
+                quadros.remove(quadros.size() - 1);
+                if (quadros.isEmpty()) {
+                    return;
+                }
+                if (!quadro.argumento) {
+                    consumir(TokenType.FECHA_PAREN);
+                    continue;
+                }
 
-            TokenType tipoResultante;
-            if (op.type == TokenType.OU) {
-                if (resAcumulado.tipo != TokenType.BOOLEANO || resDir.tipo != TokenType.BOOLEANO) throw new ErroSemanticoException("Operador 'ou' exige operandos booleanos.", op);
-                tipoResultante = TokenType.BOOLEANO;
-            } else {
-                if (resAcumulado.tipo != TokenType.INTEIRO || resDir.tipo != TokenType.INTEIRO) throw new ErroSemanticoException("Operadores '+' e '-' exigem operandos inteiros.", op);
-                tipoResultante = TokenType.INTEIRO;
+                arvore.novo(ArvoreSintatica.E_ARG_FIM, tokenAtual.line);
+                if (verificar(TokenType.VIRGULA)) {
+                    consumir(TokenType.VIRGULA);
+                    arvore.novo(ArvoreSintatica.E_ARG, tokenAtual.line);
+                    quadro.temRelacional = false;
+                    quadros.add(quadro);
+                    inicioSimples = true;
+                    break;
+                }
+                fecharChamada();
             }
-
-            String temp = gerador.novoTemp();
-            gerador.gerar(op.lexeme, resAcumulado.nome, resDir.nome, temp);
-            resAcumulado = new ResultadoExpressao(temp, tipoResultante);
         }
-        return resAcumulado;
     }
 
-    private void sinal_opcional() {
-        if (verificar(TokenType.MAIS) || verificar(TokenType.MENOS)) {
-            avancarToken();
-        }
+    private void literal(Token token, TokenType tipo) {
+        int no = arvore.novo(ArvoreSintatica.E_LITERAL, token.line);
+        arvore.setA(no, arvore.registrarTexto(token.lexeme));
+        arvore.setB(no, tipo.ordinal());
     }
 
-    private ResultadoExpressao termo() {
-        ResultadoExpressao resAcumulado = fator();
-        while (verificar(TokenType.MULT) || verificar(TokenType.DIVISAO) || verificar(TokenType.E)) {
-            Token op = tokenAtual;
-            avancarToken();
-            ResultadoExpressao resDir = fator();
-
-            TokenType tipoResultante;
-            if (op.type == TokenType.E) {
-                if (resAcumulado.tipo != TokenType.BOOLEANO || resDir.tipo != TokenType.BOOLEANO) throw new ErroSemanticoException("Operador 'e' exige operandos booleanos.", op);
-                tipoResultante = TokenType.BOOLEANO;
-            } else {
-                if (resAcumulado.tipo != TokenType.INTEIRO || resDir.tipo != TokenType.INTEIRO) throw new ErroSemanticoException("Operadores '*' e '/' exigem operandos inteiros.", op);
-                tipoResultante = TokenType.INTEIRO;
-            }
-
-            String temp = gerador.novoTemp();
-            gerador.gerar(op.lexeme, resAcumulado.nome, resDir.nome, temp);
-            resAcumulado = new ResultadoExpressao(temp, tipoResultante);
+    /**
+     * Reduz os operadores do quadro com precedência maior ou igual a precMinima
+     * (todos são associativos à esquerda).
+     */
+    private void reduzir(Quadro quadro, int precMinima) {
+        while (operadores.size() > quadro.baseOperadores
+                && precedencia(operadores.get(operadores.size() - 1).type) >= precMinima) {
+            Token op = operadores.remove(operadores.size() - 1);
+            int no = arvore.novo(ArvoreSintatica.E_BINARIO, op.line);
+            arvore.setA(no, op.type.ordinal());
+            arvore.setB(no, arvore.registrarTexto(op.lexeme));
         }
-        return resAcumulado;
     }
 
-    private ResultadoExpressao fator() {
-        Token token = tokenAtual;
-        if (verificar(TokenType.ID)) {
-            avancarToken();
-            Simbolo s = tabelaDeSimbolos.buscar(token.lexeme);
-            if (s == null) throw new ErroSemanticoException("Identificador não declarado: " + token.lexeme, token);
-
-            if (verificar(TokenType.ABRE_PAREN)) { // É uma chamada de função
-                if (s.categoria != TipoSimbolo.FUNCAO) {
-                    throw new ErroSemanticoException("'" + s.nome + "' não é uma função.", token);
-                }
-                argumentos_reais_opc(s); // Passa o símbolo da função para validação
-                String temp = gerador.novoTemp();
-                gerador.gerar("call", s.nome, null, temp);
-                return new ResultadoExpressao(temp, s.tipo);
-            }
-
-            return new ResultadoExpressao(token.lexeme, s.tipo);
-
-        } else if (verificar(TokenType.NUMERO)) {
-            avancarToken();
-            return new ResultadoExpressao(token.lexeme, TokenType.INTEIRO);
-        } else if (verificar(TokenType.VERDADEIRO) || verificar(TokenType.FALSO)) {
-            avancarToken();
-            return new ResultadoExpressao(token.lexeme, TokenType.BOOLEANO);
-        } else if (verificar(TokenType.ABRE_PAREN)) {
-            consumir(TokenType.ABRE_PAREN);
-            ResultadoExpressao resultado = expressao();
-            consumir(TokenType.FECHA_PAREN);
-            return resultado;
-        } else if (verificar(TokenType.NAO)) {
-            avancarToken();
-            ResultadoExpressao resFator = fator();
-            if (resFator.tipo != TokenType.BOOLEANO) {
-                throw new ErroSemanticoException("Operador 'nao' só pode ser aplicado a booleanos.", token);
-            }
-            String temp = gerador.novoTemp();
-            gerador.gerar("nao", resFator.nome, null, temp);
-            return new ResultadoExpressao(temp, TokenType.BOOLEANO);
-        } else {
-            throw new ErroSintaticoException("Fator inesperado", token);
+    // 'nao' se aplica a um fator, então é reduzido assim que o fator termina.
+    private void reduzirNao(Quadro quadro) {
+        while (operadores.size() > quadro.baseOperadores && operadores.get(operadores.size() - 1).type == TokenType.NAO) {
+            Token token = operadores.remove(operadores.size() - 1);
+            arvore.novo(ArvoreSintatica.E_NAO, token.line);
         }
     }
 
-    // *** MÉTODOS REESTRUTURADOS PARA VALIDAÇÃO DE ARGUMENTOS ***
-    private void argumentos_reais_opc(Simbolo subRotina) {
-        if (verificar(TokenType.ABRE_PAREN)) {
-            consumir(TokenType.ABRE_PAREN);
-            lista_argumentos(subRotina);
-            consumir(TokenType.FECHA_PAREN);
-        } else { // Chamada sem parênteses (ex: "meu_proc;")
-            if (!subRotina.parametros.isEmpty()) {
-                throw new ErroSemanticoException("Esperado " + subRotina.parametros.size() + " argumentos para '" + subRotina.nome + "', mas 0 foi fornecido.", tokenAtual);
-            }
-        }
+    // Termina uma chamada de função dentro de uma expressão.
+    private void fecharChamada() {
+        arvore.novo(ArvoreSintatica.E_CHAMADA_FIM, tokenAtual.line);
+        consumir(TokenType.FECHA_PAREN);
     }
 
-    private void lista_argumentos(Simbolo subRotina) {
-        int indiceArgumento = 0;
-        List<Simbolo> parametros = subRotina.parametros;
-
+    // Argumentos de uma chamada de procedimento (ou função) usada como comando.
+    private void lista_argumentos() {
         if (!verificar(TokenType.FECHA_PAREN)) { // Verifica se há pelo menos um argumento
-            // Lida com o primeiro argumento
-            if (indiceArgumento >= parametros.size()) {
-                throw new ErroSemanticoException("Número excessivo de argumentos para a chamada de '" + subRotina.nome + "'.", tokenAtual);
-            }
-            ResultadoExpressao resExpr = expressao();
-            Simbolo parametroEsperado = parametros.get(indiceArgumento);
-            if (resExpr.tipo != parametroEsperado.tipo) {
-                throw new ErroSemanticoException(
-                        "Tipo de argumento incompatível na chamada de '" + subRotina.nome +
-                                "'. Parâmetro " + (indiceArgumento + 1) + " espera " + parametroEsperado.tipo +
-                                " mas recebeu " + resExpr.tipo + ".",
-                        tokenAtual
-                );
-            }
-            gerador.gerar("param", resExpr.nome, null, null);
-            indiceArgumento++;
-
-            // Lida com os argumentos subsequentes
+            argumento();
             while (verificar(TokenType.VIRGULA)) {
                 consumir(TokenType.VIRGULA);
-
-                if (indiceArgumento >= parametros.size()) {
-                    throw new ErroSemanticoException("Número excessivo de argumentos para a chamada de '" + subRotina.nome + "'.", tokenAtual);
-                }
-                resExpr = expressao();
-                parametroEsperado = parametros.get(indiceArgumento);
-                if (resExpr.tipo != parametroEsperado.tipo) {
-                    throw new ErroSemanticoException(
-                            "Tipo de argumento incompatível na chamada de '" + subRotina.nome +
-                                    "'. Parâmetro " + (indiceArgumento + 1) + " espera " + parametroEsperado.tipo +
-                                    " mas recebeu " + resExpr.tipo + ".",
-                            tokenAtual
-                    );
-                }
-                gerador.gerar("param", resExpr.nome, null, null);
-                indiceArgumento++;
+                argumento();
             }
         }
+    }
 
-        if (indiceArgumento < parametros.size()) {
-            throw new ErroSemanticoException("Faltam argumentos para a chamada de '" + subRotina.nome + "'. Esperado " + parametros.size() + ", mas fornecido " + indiceArgumento + ".", tokenAtual);
-        }
+    private void argumento() {
+        arvore.novo(ArvoreSintatica.E_ARG, tokenAtual.line);
+        expressao();
+        arvore.novo(ArvoreSintatica.E_ARG_FIM, tokenAtual.line);
     }
-}
\ No newline at end of file
+}